@@ -0,0 +1,79 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Map;
+
+/**
+ * Builds the graphs measured by the Graph benchmarks.
+ */
+public class BenchmarkGraphs {
+    
+    /** Average number of outgoing edges per vertex in generated graphs. */
+    public static final int AVERAGE_DEGREE = 8;
+    
+    /**
+     * Create an empty graph.
+     * 
+     * @param impl simple name of a Graph implementation: ConcreteEdgesGraph,
+     *             ConcreteVerticesGraph, IndexedEdgesGraph, IndexedVerticesGraph,
+     *             ConcurrentGraph or OffHeapGraph (in direct memory)
+     * @return a new empty graph of that implementation
+     */
+    public static Graph<String> empty(String impl) {
+        switch (impl) {
+        case "ConcreteEdgesGraph": return new ConcreteEdgesGraph<>();
+        case "ConcreteVerticesGraph": return new ConcreteVerticesGraph<>();
+        case "IndexedEdgesGraph": return new IndexedEdgesGraph<>();
+        case "IndexedVerticesGraph": return new IndexedVerticesGraph<>();
+        case "ConcurrentGraph": return new ConcurrentGraph<>();
+        case "OffHeapGraph": return new OffHeapGraph<>();
+        default: throw new IllegalArgumentException("unknown graph implementation " + impl);
+        }
+    }
+    
+    /**
+     * Generate a random graph.
+     * Vertices are labeled "v0" to "v(size-1)"; the endpoints of
+     * size * AVERAGE_DEGREE edges are drawn from a uniform or Zipf(1)
+     * distribution over the vertices, and each edge is counted with increment().
+     * 
+     * @param impl simple name of a Graph implementation, as in {@link #empty(String)},
+     *             or FrozenGraph for an IndexedEdgesGraph frozen after it is built
+     * @param size number of vertices, positive
+     * @param degrees "uniform" or "zipf", the distribution of the endpoints of edges
+     * @return a new graph with size vertices
+     */
+    public static Graph<String> create(String impl, int size, String degrees) {
+        double exponent;
+        switch (degrees) {
+        case "uniform": exponent = 0; break;
+        case "zipf": exponent = 1; break;
+        default: throw new IllegalArgumentException("unknown degree distribution " + degrees);
+        }
+        // generate on the fastest implementation, then copy edge by edge
+        Graph<String> generated = new IndexedEdgesGraph<>();
+        for (int v = 0; v < size; v++) {
+            generated.add("v" + v);
+        }
+        Zipf sources = new Zipf(size, exponent, 6005);
+        Zipf targets = new Zipf(size, exponent, 6031);
+        for (int e = 0; e < size * AVERAGE_DEGREE; e++) {
+            generated.increment("v" + sources.next(), "v" + targets.next(), 1);
+        }
+        if (impl.equals("IndexedEdgesGraph")) return generated;
+        if (impl.equals("FrozenGraph")) return FrozenGraph.freeze(generated);
+        
+        Graph<String> graph = empty(impl);
+        for (String v : generated.vertices()) {
+            graph.add(v);
+        }
+        for (String v : generated.vertices()) {
+            for (Map.Entry<String, Integer> e : generated.targets(v).entrySet()) {
+                graph.set(v, e.getKey(), e.getValue());
+            }
+        }
+        return graph;
+    }
+}
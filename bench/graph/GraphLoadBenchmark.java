@@ -0,0 +1,62 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH benchmarks of loading a whole list of edges into a graph: one
+ * increment() at a time into an IndexedEdgesGraph that is then frozen,
+ * against a single bulk load with GraphBuilder.
+ * 
+ * <p>Run with the JMH runner on the classpath, e.g.
+ * <pre>    java -cp bin:bench-bin:jmh/* org.openjdk.jmh.Main GraphLoadBenchmark    </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GraphLoadBenchmark {
+    
+    @Param({"1000", "100000"})
+    public int size;
+    
+    @Param({"uniform", "zipf"})
+    public String degrees;
+    
+    private String[] sources;
+    private String[] targets;
+    private int[] weights;
+    
+    @Setup public void setUp() {
+        double exponent = degrees.equals("zipf") ? 1 : 0;
+        Zipf sourceIds = new Zipf(size, exponent, 6005);
+        Zipf targetIds = new Zipf(size, exponent, 6031);
+        int edges = size * BenchmarkGraphs.AVERAGE_DEGREE;
+        sources = new String[edges];
+        targets = new String[edges];
+        weights = new int[edges];
+        for (int e = 0; e < edges; e++) {
+            sources[e] = "v" + sourceIds.next();
+            targets[e] = "v" + targetIds.next();
+            weights[e] = 1 + (e & 7);
+        }
+    }
+    
+    @Benchmark public Graph<String> incrementThenFreeze() {
+        Graph<String> graph = new IndexedEdgesGraph<>(ValidationPolicy.off());
+        for (int e = 0; e < weights.length; e++) {
+            graph.increment(sources[e], targets[e], weights[e]);
+        }
+        return FrozenGraph.freeze(graph);
+    }
+    
+    @Benchmark public Graph<String> builder() {
+        return new GraphBuilder<String>(size, weights.length).addEdges(sources, targets, weights).build();
+    }
+}
@@ -0,0 +1,79 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH benchmarks of the Graph observers: vertices(), sources() and targets(),
+ * and their views, on every Graph implementation, at several sizes and
+ * degree distributions. The graph is not mutated, so snapshot views are
+ * copied once and then shared.
+ * 
+ * <p>Run with the JMH runner on the classpath, e.g.
+ * <pre>    java -cp bin:bench-bin:jmh/* org.openjdk.jmh.Main GraphReadBenchmark    </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GraphReadBenchmark {
+    
+    @Param({"ConcreteEdgesGraph", "ConcreteVerticesGraph", "IndexedEdgesGraph", "IndexedVerticesGraph", "ConcurrentGraph", "OffHeapGraph", "FrozenGraph"})
+    public String impl;
+    
+    @Param({"100", "1000", "10000"})
+    public int size;
+    
+    @Param({"uniform", "zipf"})
+    public String degrees;
+    
+    private Graph<String> graph;
+    private String[] labels;
+    private int next = 0;
+    
+    @Setup public void setUp() {
+        graph = BenchmarkGraphs.create(impl, size, degrees);
+        labels = new String[1024];
+        Random random = new Random(6005);
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = "v" + random.nextInt(size);
+        }
+    }
+    
+    private String nextLabel() {
+        return labels[next++ & (labels.length - 1)];
+    }
+    
+    @Benchmark public Set<String> vertices() {
+        return graph.vertices();
+    }
+    
+    @Benchmark public Map<String, Integer> sources() {
+        return graph.sources(nextLabel());
+    }
+    
+    @Benchmark public Map<String, Integer> targets() {
+        return graph.targets(nextLabel());
+    }
+    
+    @Benchmark public Set<String> vertexView() {
+        return graph.vertexView();
+    }
+    
+    @Benchmark public Map<String, Integer> sourcesView() {
+        return graph.sourcesView(nextLabel());
+    }
+    
+    @Benchmark public Map<String, Integer> targetsView() {
+        return graph.targetsView(nextLabel());
+    }
+}
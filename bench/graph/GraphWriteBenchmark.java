@@ -0,0 +1,128 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH benchmarks of the Graph mutators: add(), set(), increment() and
+ * remove(), on every mutable Graph implementation, at several sizes and
+ * degree distributions. Every benchmark leaves the graph with the same
+ * vertices and edges, up to edge weights.
+ * 
+ * <p>Run with the JMH runner on the classpath, e.g.
+ * <pre>    java -cp bin:bench-bin:jmh/* org.openjdk.jmh.Main GraphWriteBenchmark    </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GraphWriteBenchmark {
+    
+    @Param({"ConcreteEdgesGraph", "ConcreteVerticesGraph", "IndexedEdgesGraph", "IndexedVerticesGraph", "ConcurrentGraph", "OffHeapGraph"})
+    public String impl;
+    
+    @Param({"100", "1000", "10000"})
+    public int size;
+    
+    @Param({"uniform", "zipf"})
+    public String degrees;
+    
+    private Graph<String> graph;
+    private String[] labels;
+    private String[] edgeSources;
+    private String[] edgeTargets;
+    private int next = 0;
+    
+    @Setup public void setUp() {
+        graph = BenchmarkGraphs.create(impl, size, degrees);
+        Random random = new Random(6005);
+        labels = new String[1024];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = "v" + random.nextInt(size);
+        }
+        List<String[]> edges = new ArrayList<>();
+        for (String v : graph.vertices()) {
+            for (String t : graph.targets(v).keySet()) {
+                edges.add(new String[] { v, t });
+            }
+        }
+        Collections.shuffle(edges, random);
+        edgeSources = new String[1024];
+        edgeTargets = new String[1024];
+        for (int i = 0; i < 1024; i++) {
+            edgeSources[i] = edges.get(i % edges.size())[0];
+            edgeTargets[i] = edges.get(i % edges.size())[1];
+        }
+    }
+    
+    @Benchmark public boolean addExisting() {
+        return graph.add(labels[next++ & 1023]);
+    }
+    
+    @Benchmark public boolean addAndRemoveIsolated() {
+        graph.add("isolated");
+        return graph.remove("isolated");
+    }
+    
+    @Benchmark public int setExistingEdge() {
+        int i = next++ & 1023;
+        return graph.set(edgeSources[i], edgeTargets[i], 1 + (next & 7));
+    }
+    
+    @Benchmark public int incrementExistingEdge() {
+        int i = next++ & 1023;
+        return graph.increment(edgeSources[i], edgeTargets[i], 1);
+    }
+    
+    @Benchmark public int setAndRemoveNewEdge() {
+        int i = next++ & 1023;
+        graph.set(edgeSources[i], "isolated", 1);
+        graph.remove("isolated");
+        return i;
+    }
+    
+    @Benchmark public boolean removeVertexWithEdges(Victim victim) {
+        return graph.remove(victim.label);
+    }
+    
+    /**
+     * A vertex to remove, restored with all of its edges after each invocation.
+     * Invocation-level fixtures add timing noise, so only ops that cost more
+     * than a few microseconds are measured this way.
+     */
+    @State(Scope.Thread)
+    public static class Victim {
+        
+        String label;
+        private Map<String, Integer> targets;
+        private Map<String, Integer> sources;
+        private int next = 0;
+        
+        @Setup(Level.Invocation) public void pick(GraphWriteBenchmark bench) {
+            label = bench.labels[next++ & 1023];
+            targets = bench.graph.targets(label);
+            sources = bench.graph.sources(label);
+        }
+        
+        @TearDown(Level.Invocation) public void restore(GraphWriteBenchmark bench) {
+            bench.graph.add(label);
+            for (Map.Entry<String, Integer> e : targets.entrySet()) {
+                bench.graph.set(label, e.getKey(), e.getValue());
+            }
+            for (Map.Entry<String, Integer> e : sources.entrySet()) {
+                bench.graph.set(e.getKey(), label, e.getValue());
+            }
+        }
+    }
+}
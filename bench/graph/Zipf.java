@@ -0,0 +1,55 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Samples ranks 0..n-1 from a Zipf distribution: rank k is drawn with
+ * probability proportional to 1 / (k+1)^exponent. Used by the benchmarks to
+ * generate skewed degree distributions and word frequencies.
+ *
+ * <p>Mutable, because of its random number generator.
+ */
+public class Zipf {
+    
+    private final double[] cumulative;
+    private final Random random;
+    
+    // Abstraction function:
+    //   Represent the distribution where rank k has probability
+    //   cumulative[k] - cumulative[k-1] (cumulative[-1] = 0)
+    // Representation invariant:
+    //   cumulative is non-decreasing and ends at 1
+    // Safety from rep exposure:
+    //   All fields are private and final
+    
+    /**
+     * Create a sampler.
+     * 
+     * @param n number of ranks, positive
+     * @param exponent skew of the distribution; 0 is uniform
+     * @param seed seed of the random number generator
+     */
+    public Zipf(int n, double exponent, long seed) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+        cumulative[n - 1] = 1;
+        random = new Random(seed);
+    }
+    
+    /** @return a random rank in [0, n) */
+    public int next() {
+        int k = Arrays.binarySearch(cumulative, random.nextDouble());
+        return k >= 0 ? k : -k - 1;
+    }
+}
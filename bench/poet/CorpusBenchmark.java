@@ -0,0 +1,61 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH benchmarks of end-to-end GraphPoet construction from synthetic Zipfian
+ * corpora: streamed from memory, memory-mapped from a file, and counted in
+ * parallel from a file.
+ * 
+ * <p>Run with the JMH runner on the classpath, e.g.
+ * <pre>    java -cp bin:bench-bin:jmh/* org.openjdk.jmh.Main CorpusBenchmark    </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class CorpusBenchmark {
+    
+    @Param({"1000", "50000"})
+    public int vocabulary;
+    
+    @Param({"100000", "1000000"})
+    public int words;
+    
+    private byte[] corpus;
+    private File file;
+    
+    @Setup public void setUp() throws IOException {
+        corpus = ZipfCorpus.corpus(vocabulary, words, 6005);
+        file = File.createTempFile("corpus", ".txt");
+        Files.write(file.toPath(), corpus);
+    }
+    
+    @TearDown public void tearDown() throws IOException {
+        Files.delete(file.toPath());
+    }
+    
+    @Benchmark public GraphPoet fromStream() throws IOException {
+        return new GraphPoet(new ByteArrayInputStream(corpus));
+    }
+    
+    @Benchmark public GraphPoet fromMappedFile() throws IOException {
+        return new GraphPoet(file);
+    }
+    
+    @Benchmark public GraphPoet fromFileInParallel() throws IOException {
+        return new GraphPoet(file, ForkJoinPool.commonPool());
+    }
+}
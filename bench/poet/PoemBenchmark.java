@@ -0,0 +1,75 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import graph.GraphMetrics;
+
+/**
+ * JMH benchmarks of GraphPoet.poem() throughput on a synthetic Zipfian
+ * corpus, with Zipfian inputs of eight words, without help, with the bridge
+ * index, with the bridge cache, with bridge paths of up to three words, and
+ * with every graph call recorded by instrumentGraph(), of
+ * poem(CharSequence, Appendable) into a reused buffer, and of poems() on the
+ * whole batch of inputs. Add {@code -prof gc} to compare allocation rates.
+ * 
+ * <p>Run with the JMH runner on the classpath, e.g.
+ * <pre>    java -cp bin:bench-bin:jmh/* org.openjdk.jmh.Main PoemBenchmark    </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PoemBenchmark {
+    
+    @Param({"1000", "50000"})
+    public int vocabulary;
+    
+    @Param({"plain", "indexed", "cached", "paths", "instrumented"})
+    public String mode;
+    
+    private GraphPoet poet;
+    private String[] inputs;
+    private List<String> batch;
+    private int next = 0;
+    private final StringBuilder out = new StringBuilder(256);
+    
+    @Setup public void setUp() throws IOException {
+        poet = new GraphPoet(new ByteArrayInputStream(ZipfCorpus.corpus(vocabulary, 1000000, 6005)));
+        switch (mode) {
+        case "plain": break;
+        case "indexed": poet.indexBridges(false); break;
+        case "cached": poet.cacheBridges(10000); break;
+        case "paths": poet.bridgePaths(3, 16); break;
+        case "instrumented": poet.instrumentGraph(new GraphMetrics()); break;
+        default: throw new IllegalArgumentException("unknown mode " + mode);
+        }
+        inputs = ZipfCorpus.inputs(vocabulary, 4096, 8, 6031);
+        batch = Arrays.asList(inputs);
+    }
+    
+    @Benchmark public String poem() {
+        return poet.poem(inputs[next++ & 4095]);
+    }
+    
+    @Benchmark @OperationsPerInvocation(4096)
+    public List<String> poems() {
+        return poet.poems(batch);
+    }
+    
+    @Benchmark public StringBuilder poemInto() throws IOException {
+        out.setLength(0);
+        poet.poem(inputs[next++ & 4095], out);
+        return out;
+    }
+}
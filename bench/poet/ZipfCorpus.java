@@ -0,0 +1,57 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.nio.charset.StandardCharsets;
+
+import graph.Zipf;
+
+/**
+ * Generates synthetic corpora and poem inputs whose word frequencies follow
+ * a Zipf(1) distribution, like natural text. Words are "w0" to
+ * "w(vocabulary-1)", sometimes capitalized; about one word in twelve ends a line.
+ */
+public class ZipfCorpus {
+    
+    /**
+     * Generate a corpus.
+     * 
+     * @param vocabulary number of distinct words, positive
+     * @param words number of words in the corpus
+     * @param seed seed of the random number generator
+     * @return the UTF-8 bytes of the corpus
+     */
+    public static byte[] corpus(int vocabulary, int words, long seed) {
+        Zipf zipf = new Zipf(vocabulary, 1, seed);
+        StringBuilder text = new StringBuilder(words * 6);
+        for (int i = 0; i < words; i++) {
+            int rank = zipf.next();
+            text.append(rank % 5 == 0 ? "W" : "w").append(rank);
+            text.append(i % 12 == 11 ? '\n' : ' ');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Generate poem inputs.
+     * 
+     * @param vocabulary number of distinct words, positive
+     * @param count number of inputs
+     * @param length number of words in each input, positive
+     * @param seed seed of the random number generator
+     * @return count inputs of length space-separated words each
+     */
+    public static String[] inputs(int vocabulary, int count, int length, long seed) {
+        Zipf zipf = new Zipf(vocabulary, 1, seed);
+        String[] inputs = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder input = new StringBuilder("w" + zipf.next());
+            for (int j = 1; j < length; j++) {
+                input.append(" w").append(zipf.next());
+            }
+            inputs[i] = input.toString();
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,107 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * An immutable report of what a compaction of a graph removed.
+ */
+public class CompactionReport {
+
+    private final int verticesBefore;
+    private final int verticesAfter;
+    private final int edgesBefore;
+    private final int edgesAfter;
+    private final long bytesBefore;
+    private final long bytesAfter;
+    private final boolean estimatedBefore;
+
+    // Abstraction function:
+    //   Represent a compaction that took a graph of verticesBefore vertices,
+    //   edgesBefore edges and an estimated bytesBefore bytes to one of
+    //   verticesAfter vertices, edgesAfter edges and bytesAfter bytes;
+    //   estimatedBefore is true if the graph was not held frozen before
+    //   compaction, so that bytesBefore is the size it would have had frozen
+    // Representation invariant:
+    //   all fields are nonnegative
+    //   verticesAfter <= verticesBefore, edgesAfter <= edgesBefore
+    // Safety from rep exposure:
+    //   All fields are private, final and immutable
+
+    /**
+     * Create a report comparing a graph with its compacted copy.
+     *
+     * @param before graph before compaction
+     * @param after compacted graph
+     */
+    public CompactionReport(FrozenGraph<?> before, FrozenGraph<?> after) {
+        this(before, after, false);
+    }
+
+    /**
+     * Create a report comparing a graph with its compacted copy.
+     *
+     * @param before graph before compaction, or a frozen copy of it
+     * @param after compacted graph
+     * @param estimatedBefore true if before is a frozen copy of a graph that
+     *                        was held in another, mutable form, whose size in
+     *                        bytes is then only estimated by that of before
+     */
+    public CompactionReport(FrozenGraph<?> before, FrozenGraph<?> after, boolean estimatedBefore) {
+        this.verticesBefore = before.vertexCount();
+        this.verticesAfter = after.vertexCount();
+        this.edgesBefore = before.edgeCount();
+        this.edgesAfter = after.edgeCount();
+        this.bytesBefore = before.sizeInBytes();
+        this.bytesAfter = after.sizeInBytes();
+        this.estimatedBefore = estimatedBefore;
+        checkRep();
+    }
+
+    // checkRep
+    private void checkRep() {
+        assert verticesAfter >= 0 && edgesAfter >= 0 && bytesAfter >= 0;
+        assert verticesAfter <= verticesBefore && edgesAfter <= edgesBefore;
+    }
+
+    /** @return number of vertices removed */
+    public int verticesRemoved() {
+        return verticesBefore - verticesAfter;
+    }
+
+    /** @return number of edges removed */
+    public int edgesRemoved() {
+        return edgesBefore - edgesAfter;
+    }
+
+    /** @return number of edges kept */
+    public int edgesKept() {
+        return edgesAfter;
+    }
+
+    /**
+     * @return estimated number of bytes reclaimed, as measured by
+     *         {@link FrozenGraph#sizeInBytes()}; not counting removed labels.
+     *         If {@link #estimatedBefore()}, this is the size the graph would
+     *         have had frozen minus its compacted size, not the memory
+     *         actually held by the mutable graph before compaction
+     */
+    public long bytesReclaimed() {
+        return bytesBefore - bytesAfter;
+    }
+
+    /**
+     * @return true if the graph was held in a mutable form before compaction,
+     *         so that {@link #bytesReclaimed()} is a frozen-equivalent estimate
+     */
+    public boolean estimatedBefore() {
+        return estimatedBefore;
+    }
+
+    @Override public String toString() {
+        return "vertices = " + verticesBefore + " -> " + verticesAfter
+                + ", edges = " + edgesBefore + " -> " + edgesAfter
+                + ", bytes reclaimed = " + bytesReclaimed()
+                + (estimatedBefore ? " (frozen-equivalent estimate; the graph was mutable before)" : "");
+    }
+}
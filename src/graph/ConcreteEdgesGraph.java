@@ -19,19 +19,36 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
     
     private final Set<L> vertices = new HashSet<>();
     private final List<Edge<L>> edges = new ArrayList<>();
+    private final ValidationPolicy validation;
+    private long mutations = 0;
+    private final SnapshotCache<L> snapshots = new SnapshotCache<>();
     
     // Abstraction function:
     //   Represent a graph that has String vertices and edges that connect the said vertices: f(G) = {e | e \in G}
     // Representation invariant:
     //   Vertices do not duplicate and non-null (do not have to indicate this in the future)
     //   Edge goes from a source to a target vertex, having positive weight
+    //   mutations is the number of mutations so far, counted for validation
+    //   and as the version of the snapshots
     // Safety from rep exposure:
     //   Vertices and edges are immutable data types
-    //   All fields are private and final
+    //   vertexView() is an unmodifiable view; sourcesView() and targetsView()
+    //   are unmodifiable snapshots, copied once per version
+    //   All fields are private, and all but mutations are final
     //   Methods do not return direct reference to mutable data types
     
     // constructor
     public ConcreteEdgesGraph() {
+        this(ValidationPolicy.getDefault());
+    }
+    
+    /**
+     * Create an empty graph.
+     * 
+     * @param validation how often to check the rep invariant after mutations
+     */
+    public ConcreteEdgesGraph(ValidationPolicy validation) {
+        this.validation = validation;
     }
     
     // checkRep
@@ -43,10 +60,38 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
         }
     }
     
+    // Check the rep after a mutation of the edge source -> target (or of the
+    // vertex source, if source == target), as the validation policy asks.
+    // The incremental check still scans the edge list, like the mutation itself.
+    private void checkRep(L source, L target) {
+        if (validation.checkFull(++mutations)) {
+            checkRep();
+        }
+        else if (validation.checkIncremental()) {
+            int count = 0;
+            for (Edge<L> e : edges) {
+                if (e.getSource().equals(source) && e.getTarget().equals(target)) {
+                    assert e.getWeight() > 0;
+                    assert vertices.contains(source) && vertices.contains(target);
+                    count++;
+                }
+                if (e.getSource().equals(target) || e.getTarget().equals(source)) {
+                    assert vertices.contains(e.getSource()) && vertices.contains(e.getTarget());
+                }
+            }
+            assert count <= 1;
+        }
+    }
+    
+    @Override public void validate() {
+        Graph.super.validate();
+        checkRep();
+    }
+    
     @Override public boolean add(L vertex) {
         if (!vertices.contains(vertex)) { 
             vertices.add(vertex);
-            checkRep();
+            checkRep(vertex, vertex);
             return true;
         }
         return false;
@@ -69,7 +114,33 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
             vertices.add(source);
         }
         if (weight > 0) edges.add(new Edge<L>(source, target, weight));
-        checkRep();
+        checkRep(source, target);
+        return prev;
+    }
+    
+    @Override public int increment(L source, L target, int delta) {
+        int prev = 0;
+        int index = -1;
+        for (int i = 0; i < edges.size(); i++) {
+            Edge<L> e = edges.get(i);
+            if (e.getSource().equals(source) && e.getTarget().equals(target)) {
+                prev = e.getWeight();
+                index = i;
+                break;
+            }
+        }
+        int weight = prev + delta;
+        if (weight < 0) throw new RuntimeException();
+        if (weight == 0) {
+            if (index >= 0) edges.remove(index);
+        }
+        else {
+            vertices.add(source);
+            vertices.add(target);
+            if (index >= 0) edges.set(index, new Edge<L>(source, target, weight));
+            else edges.add(new Edge<L>(source, target, weight));
+        }
+        checkRep(source, target);
         return prev;
     }
     
@@ -82,7 +153,7 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
                     iterator.remove();
                 }
             }
-            checkRep();
+            checkRep(vertex, vertex);
             return true;
         }
         return false;
@@ -92,6 +163,21 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
         return new TreeSet<L>(vertices);
     }
     
+    /** @return a live view of the vertices, in no particular order */
+    @Override public Set<L> vertexView() {
+        return Collections.unmodifiableSet(vertices);
+    }
+    
+    /** @return a snapshot of the sources of target, shared until the next mutation */
+    @Override public Map<L, Integer> sourcesView(L target) {
+        return snapshots.sources(mutations, target, this::sources);
+    }
+    
+    /** @return a snapshot of the targets of source, shared until the next mutation */
+    @Override public Map<L, Integer> targetsView(L source) {
+        return snapshots.targets(mutations, source, this::targets);
+    }
+    
     @Override public Map<L, Integer> sources(L target) {
         Map<L, Integer> sources = new HashMap<>();
         for (Edge<L> e : edges) {
@@ -124,71 +210,3 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
         return all;
     }
 }
-
-/**
- * 
- * Immutable.
- * This class is internal to the rep of ConcreteEdgesGraph.
- * 
- * <p>PS2 instructions: the specification and implementation of this class is
- * up to you.
- * 
- * Edge is an immutable data type that contains non-negative weight.
- * Edge is directed. 
- * 
- * @param weight weight of the connection
- * @param source the vertex source
- * @param target the vertex target
- * 
- */
-class Edge<L> {
-    
-    private final int weight;
-    private final L source;
-    private final L target;
-    
-    // Abstraction function:
-    //   Represent the connection between source -> target and its weight
-    // Representation invariant:
-    //   weight > 0 and non-null (doesn't need to specify this though)
-    //   source != target - not correct! 
-    // Safety from rep exposure:
-    //   All fields are private and all types in the rep are immutable.
-    
-    // constructor
-    public Edge(L source, L target, int weight) {
-        this.source = source;
-        this.target = target;
-        this.weight = weight;
-        checkRep();
-    }
-    
-    // checkRep
-    // Check that rep invariant is true
-    private void checkRep() {
-        assert weight > 0;
-//        assert (!source.equals(target));
-    }
-    
-    // methods
-    /** @return source of the edge */
-    public L getSource() {
-        return source;
-    }
-    
-    /** @return target of the edge */
-    public L getTarget() {
-        return target;
-    }
-    
-    /** @return weight of the edge */
-    public int getWeight() {
-        return weight;
-    }
-    
-    // toString()
-    @Override public String toString() {
-        String rep = getSource() + " ---> " + getTarget() + ", weight = " + getWeight() + "\n";
-        return rep;
-    }
-}
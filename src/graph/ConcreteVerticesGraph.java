@@ -17,17 +17,34 @@ import java.util.Set;
 public class ConcreteVerticesGraph<L> implements Graph<L> {
     
     private final List<Vertex<L>> vertices = new ArrayList<>();
+    private final ValidationPolicy validation;
+    private long mutations = 0;
+    private final SnapshotCache<L> snapshots = new SnapshotCache<>();
     
     // Abstraction function:
     //   A collection of vertices that comprise a graph
     // Representation invariant:
     //   Labels of the vertices in {@code vertices} don't duplicate
+    //   Every vertex connected to a vertex in {@code vertices} is in {@code vertices}
+    //   mutations is the number of mutations so far, counted for validation
+    //   and as the version of the snapshots
     // Safety from rep exposure:
-    //   Field is private
+    //   Fields are private
     //   Do not return direct reference to {@code vertices}
+    //   Views are unmodifiable snapshots, copied once per version
     
     // constructor
     public ConcreteVerticesGraph() {
+        this(ValidationPolicy.getDefault());
+    }
+    
+    /**
+     * Create an empty graph.
+     * 
+     * @param validation how often to check the rep invariant after mutations
+     */
+    public ConcreteVerticesGraph(ValidationPolicy validation) {
+        this.validation = validation;
     }
     
     // checkRep
@@ -39,6 +56,41 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
             s.add(v.getLabel());
         }
         assert s.size() == vertices.size();
+        Set<Vertex<L>> all = Collections.newSetFromMap(new IdentityHashMap<>());
+        all.addAll(vertices);
+        for (Vertex<L> v : vertices) {
+            v.checkRep();
+            assert all.containsAll(v.getVerticesFrom());
+            assert all.containsAll(v.getSources());
+        }
+    }
+    
+    // Check the rep after a mutation of the edge source -> target (or of the
+    // vertex source, if source == target), as the validation policy asks.
+    // The incremental check still scans the vertex list, like the mutation itself.
+    private void checkRep(L source, L target) {
+        if (validation.checkFull(++mutations)) {
+            checkRep();
+        }
+        else if (validation.checkIncremental()) {
+            Vertex<L> s = null;
+            Vertex<L> t = null;
+            int count = 0;
+            for (Vertex<L> v : vertices) {
+                if (v.getLabel().equals(source)) {
+                    s = v;
+                    count++;
+                }
+                if (v.getLabel().equals(target)) t = v;
+            }
+            assert count <= 1;
+            if (s != null && t != null && s != t) s.checkEdgeTo(t);
+        }
+    }
+    
+    @Override public void validate() {
+        Graph.super.validate();
+        checkRep();
     }
     
     
@@ -47,7 +99,7 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
             if (ver.getLabel().equals(vertex)) return false;
         }
         vertices.add(new Vertex<L>(vertex));
-        checkRep();
+        checkRep(vertex, vertex);
         return true;
     }
     
@@ -64,7 +116,32 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
             if (v.getLabel().equals(target)) t = v;
         }
         prev = s.addWeightTo(t, weight);
-        checkRep();
+        checkRep(source, target);
+        return prev;
+    }
+    
+    @Override public int increment(L source, L target, int delta) {
+        Vertex<L> s = null;
+        Vertex<L> t = null;
+        for (Vertex<L> v : vertices) {
+            if (v.getLabel().equals(source)) s = v;
+            if (v.getLabel().equals(target)) t = v;
+        }
+        int prev = (s == null || t == null) ? 0 : s.getWeightTo(t);
+        int weight = prev + delta;
+        if (weight < 0) throw new RuntimeException("Weight must be larger than 0");
+        if (weight == 0 && prev == 0) return 0;
+        if (s == null) {
+            s = new Vertex<L>(source);
+            vertices.add(s);
+        }
+        if (t == null && target.equals(source)) t = s;
+        if (t == null) {
+            t = new Vertex<L>(target);
+            vertices.add(t);
+        }
+        s.addWeightTo(t, weight);
+        checkRep(source, target);
         return prev;
     }
     
@@ -73,11 +150,11 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
             Vertex<L> v = iterator.next();
             if (v.getLabel().equals(vertex)) {
                 iterator.remove();
-                checkRep();
+                v.unlink();
+                checkRep(vertex, vertex);
                 return true;
             }
         }
-        checkRep();
         return false;
     }
     
@@ -89,18 +166,31 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
         return vers;
     }
     
+    /** @return a snapshot of the vertices, shared until the next mutation */
+    @Override public Set<L> vertexView() {
+        return snapshots.vertices(mutations, this::vertices);
+    }
+    
+    /** @return a snapshot of the sources of target, shared until the next mutation */
+    @Override public Map<L, Integer> sourcesView(L target) {
+        return snapshots.sources(mutations, target, this::sources);
+    }
+    
+    /** @return a snapshot of the targets of source, shared until the next mutation */
+    @Override public Map<L, Integer> targetsView(L source) {
+        return snapshots.targets(mutations, source, this::targets);
+    }
+    
     @Override public Map<L, Integer> sources(L target) {
         Map<L, Integer> sources = new HashMap<>();
         for (Vertex<L> v : vertices) {
-            Set<Vertex<L>> setV = v.getVerticesFrom();
-            for (Vertex<L> j : setV) {
-                if (j.getLabel().equals(target)) {
-                    sources.put(v.getLabel(), v.getWeightTo(j));
-                    break;
+            if (v.getLabel().equals(target)) {
+                for (Vertex<L> j : v.getSources()) {
+                    sources.put(j.getLabel(), v.getWeightFrom(j));
                 }
+                break;
             }
         }
-        checkRep();
         return sources;
     }
     
@@ -115,7 +205,6 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
                 break;
             }
         }
-        checkRep();
         return targets;
     }
     
@@ -128,116 +217,3 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
         return rep.toString();
     }
 }
-
-/**
- * specification
- * Mutable.
- * This class is internal to the rep of ConcreteVerticesGraph.
- * 
- * This mutable data type represents role of vertex in a graph.
- * Each vertex indicates the vertices that are pointing to that vertex, and the vertices
- * that vertex is pointing to. 
- * 
- * Vertex contains information about the edges: having non-negative weight of type {@code int} and are directed.
- * Vertices have distinct labels of type {@code String}.
- * 
- * @param 
- */
-class Vertex<L> {
-    
-    // fields
-    private final Map<Vertex<L>, Integer> to = new HashMap<>();
-    private final L label;
-    
-    // Abstraction function:
-    //   Each vertex indicates the vertices that are pointing to that vertex, and the vertices
-    //   that vertex is pointing to. 
-    // Representation invariant:
-    //   Vertices cannot be a key in filed 'to'
-    //   Vertices don't duplicate
-    //   Edge goes from a source to a target vertex, having positive weight
-    // Safety from rep exposure:
-    //   All fields are private.
-    //   Label is immutable
-    //   Does not return direct references to the mutable fields.
-    
-    // constructor
-    public Vertex(L label) {
-        this.label = label;
-        checkRep();
-    }
-    
-//    public Vertex() {
-//        this.label = new L;
-//    }
-    
-    // checkRep
-    private void checkRep() {
-        for (Vertex<L> v : to.keySet()) {
-            assert (v.getLabel() != getLabel());
-        }
-        for (Integer i : to.values()) {
-            assert (i > 0);
-        }
-    }
-    // methods
-    
-    /** @return the weight to vertex v from the main vertex. 
-     * Return zero if no weight exists */ 
-    public int getWeightTo(Vertex<L> v) {
-        if (to.containsKey(v)) return to.get(v);
-        return 0;
-    }
-    
-    /** @return the vertices that point to the main vertex */
-    public Set<Vertex<L>> getVerticesFrom() {
-        return to.keySet();
-    }
-    
-    /** 
-     * Set the (new) weight for a vertex connection (main -> target). 
-     * If the connection didn't exist,
-     * add target vertex to the field. 
-     * If {@code weight} is specified as 0, remove the connection.
-     * 
-     * @param target the target vertex
-     * @param weight the non-negative weight.
-     * @return the previous weight; return 0 if the vertices were not connected
-     */
-    public int addWeightTo(Vertex<L> target, int weight) {
-        if (weight < 0) throw new RuntimeException("Weight must be larger than 0");
-        int prev = 0;
-        if (to.containsKey(target)) {
-            prev = getWeightTo(target);
-            if (weight == 0) to.remove(target);
-        }
-        if (weight != 0) to.put(target, weight);
-        checkRep();
-        return prev;
-    }
-    
-    /**
-     * Get label of the main vertex
-     * 
-     * @return label of the main vertex
-     */
-    public L getLabel() {
-        return label;
-    }
-    
-    /**
-     * Check if the vertices are equal
-     * 
-     * @return true if the two vertices are equal, false otherwise
-     */
-    
-    // toString()
-    @Override public String toString() {
-        StringBuilder rep = new StringBuilder("From vertex: " + getLabel());
-        Set<Vertex<L>> target = getVerticesFrom();
-        for (Vertex<L> v : target) {
-            rep.append(getLabel() + " ---> " + v.getLabel() + ", weight = " + getWeightTo(v) + "\n");
-        }
-        return rep.toString();
-    }
-}
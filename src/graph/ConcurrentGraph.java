@@ -0,0 +1,248 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe implementation of Graph with striped locking.
+ *
+ * <p>Every vertex has a row of outgoing weights and a row of incoming
+ * weights, and every vertex is guarded by one of a fixed number of stripe
+ * locks chosen by the hash of its label. A change to the edge s -> t holds
+ * the stripes of s and t, so many threads can add and count edges at once as
+ * long as they touch different stripes. {@code sources} and {@code targets}
+ * hold the stripe of their vertex while copying its row, so each returned
+ * map is a consistent snapshot. {@code remove} holds every stripe.
+ *
+ * <p>{@code vertices} is weakly consistent: it includes every vertex added
+ * before the call started and removed after it returned, and may or may not
+ * include vertices added or removed during the call.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class ConcurrentGraph<L> implements Graph<L> {
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ConcurrentMap<L, Map<L, Integer>> outgoing = new ConcurrentHashMap<>();
+    private final ConcurrentMap<L, Map<L, Integer>> incoming = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes;
+
+    // Abstraction function:
+    //   Represent the graph whose vertices are the keys of outgoing, with an
+    //   edge s -> t of weight outgoing.get(s).get(t) for every such entry
+    // Representation invariant:
+    //   outgoing and incoming have the same key set
+    //   outgoing.get(s).get(t) equals incoming.get(t).get(s) for every edge
+    //   s -> t, and is positive
+    //   stripes.length is a power of two
+    // Safety from rep exposure:
+    //   All fields are private and final
+    //   Methods return fresh copies, never the maps of the rep, except
+    //   vertexView, which is an unmodifiable view of the key set of outgoing
+    // Thread safety argument:
+    //   outgoing and incoming are thread-safe maps, so vertexView is weakly
+    //   consistent like vertices
+    //   The rows outgoing.get(v) and incoming.get(v) are plain HashMaps that
+    //   are only read or written while holding stripeOf(v); so is the
+    //   presence of the key v in outgoing and incoming
+    //   Threads that hold more than one stripe acquire them in index order,
+    //   so they cannot deadlock
+
+    /**
+     * Create an empty graph.
+     */
+    public ConcurrentGraph() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Create an empty graph.
+     *
+     * @param stripes number of stripe locks; must be a positive power of two
+     */
+    public ConcurrentGraph(int stripes) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("stripes must be a positive power of two");
+        }
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // checkRep
+    // Checks the edge s -> t; the caller must hold the stripes of s and t.
+    private void checkRep(L source, L target) {
+        Map<L, Integer> out = outgoing.get(source);
+        Map<L, Integer> in = incoming.get(target);
+        Integer weight = out == null ? null : out.get(target);
+        assert weight == null || weight > 0;
+        assert (weight == null && (in == null || !in.containsKey(source)))
+                || (in != null && weight.equals(in.get(source)));
+    }
+
+    private int stripeOf(L vertex) {
+        int h = vertex.hashCode();
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    /** Acquire the stripes of two vertices, in index order. */
+    private void lock(L source, L target) {
+        int s = stripeOf(source);
+        int t = stripeOf(target);
+        stripes[Math.min(s, t)].lock();
+        if (s != t) stripes[Math.max(s, t)].lock();
+    }
+
+    private void unlock(L source, L target) {
+        int s = stripeOf(source);
+        int t = stripeOf(target);
+        if (s != t) stripes[Math.max(s, t)].unlock();
+        stripes[Math.min(s, t)].unlock();
+    }
+
+    /** Add a vertex; the caller must hold its stripe. */
+    private boolean addLocked(L vertex) {
+        if (outgoing.containsKey(vertex)) return false;
+        outgoing.put(vertex, new HashMap<>());
+        incoming.put(vertex, new HashMap<>());
+        return true;
+    }
+
+    @Override public boolean add(L vertex) {
+        ReentrantLock stripe = stripes[stripeOf(vertex)];
+        stripe.lock();
+        try {
+            return addLocked(vertex);
+        }
+        finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override public int set(L source, L target, int weight) {
+        if (weight < 0) throw new RuntimeException("Weight must be larger than 0");
+        lock(source, target);
+        try {
+            return setLocked(source, target, weight);
+        }
+        finally {
+            unlock(source, target);
+        }
+    }
+
+    @Override public int increment(L source, L target, int delta) {
+        lock(source, target);
+        try {
+            Map<L, Integer> out = outgoing.get(source);
+            Integer prev = out == null ? null : out.get(target);
+            int weight = (prev == null ? 0 : prev) + delta;
+            if (weight < 0) throw new RuntimeException("Weight must be larger than 0");
+            return setLocked(source, target, weight);
+        }
+        finally {
+            unlock(source, target);
+        }
+    }
+
+    /** Set the weight of an edge; the caller must hold the stripes of source and target. */
+    private int setLocked(L source, L target, int weight) {
+        Map<L, Integer> out = outgoing.get(source);
+        Integer prev = out == null ? null : out.get(target);
+        if (weight == 0) {
+            if (prev != null) {
+                out.remove(target);
+                incoming.get(target).remove(source);
+            }
+        }
+        else {
+            addLocked(source);
+            addLocked(target);
+            outgoing.get(source).put(target, weight);
+            incoming.get(target).put(source, weight);
+        }
+        checkRep(source, target);
+        return prev == null ? 0 : prev;
+    }
+
+    @Override public boolean remove(L vertex) {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            Map<L, Integer> out = outgoing.remove(vertex);
+            if (out == null) return false;
+            Map<L, Integer> in = incoming.remove(vertex);
+            for (L target : out.keySet()) {
+                Map<L, Integer> row = incoming.get(target);
+                if (row != null) row.remove(vertex);
+            }
+            for (L source : in.keySet()) {
+                Map<L, Integer> row = outgoing.get(source);
+                if (row != null) row.remove(vertex);
+            }
+            return true;
+        }
+        finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    @Override public Set<L> vertices() {
+        return new HashSet<L>(outgoing.keySet());
+    }
+
+    @Override public Set<L> vertexView() {
+        return Collections.unmodifiableSet(outgoing.keySet());
+    }
+
+    @Override public Map<L, Integer> sources(L target) {
+        return snapshot(incoming, target);
+    }
+
+    @Override public Map<L, Integer> targets(L source) {
+        return snapshot(outgoing, source);
+    }
+
+    /** Copy the row of a vertex while holding its stripe. */
+    private Map<L, Integer> snapshot(ConcurrentMap<L, Map<L, Integer>> rows, L vertex) {
+        ReentrantLock stripe = stripes[stripeOf(vertex)];
+        stripe.lock();
+        try {
+            Map<L, Integer> row = rows.get(vertex);
+            return row == null ? new HashMap<>() : new HashMap<>(row);
+        }
+        finally {
+            stripe.unlock();
+        }
+    }
+
+    // toString()
+    @Override public String toString() {
+        Set<L> vertices = vertices();
+        if (vertices.isEmpty()) return "The graph is empty, nothing to print";
+        StringBuilder all = new StringBuilder("Vertices: ");
+        StringBuilder edges = new StringBuilder();
+        for (L v : vertices) {
+            all.append(v + " ");
+            for (Map.Entry<L, Integer> e : targets(v).entrySet()) {
+                edges.append(v + " ---> " + e.getKey() + ", weight = " + e.getValue() + "\n");
+            }
+        }
+        all.append("\nEdges: ");
+        if (edges.length() == 0) return all + "empty edges";
+        return all.append(edges).toString();
+    }
+}
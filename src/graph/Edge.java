@@ -0,0 +1,72 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * 
+ * Immutable.
+ * This class is internal to the rep of ConcreteEdgesGraph and IndexedEdgesGraph.
+ * 
+ * <p>PS2 instructions: the specification and implementation of this class is
+ * up to you.
+ * 
+ * Edge is an immutable data type that contains non-negative weight.
+ * Edge is directed. 
+ * 
+ * @param weight weight of the connection
+ * @param source the vertex source
+ * @param target the vertex target
+ * 
+ */
+class Edge<L> {
+    
+    private final int weight;
+    private final L source;
+    private final L target;
+    
+    // Abstraction function:
+    //   Represent the connection between source -> target and its weight
+    // Representation invariant:
+    //   weight > 0 and non-null (doesn't need to specify this though)
+    //   source != target - not correct! 
+    // Safety from rep exposure:
+    //   All fields are private and all types in the rep are immutable.
+    
+    // constructor
+    public Edge(L source, L target, int weight) {
+        this.source = source;
+        this.target = target;
+        this.weight = weight;
+        checkRep();
+    }
+    
+    // checkRep
+    // Check that rep invariant is true
+    private void checkRep() {
+        assert weight > 0;
+//        assert (!source.equals(target));
+    }
+    
+    // methods
+    /** @return source of the edge */
+    public L getSource() {
+        return source;
+    }
+    
+    /** @return target of the edge */
+    public L getTarget() {
+        return target;
+    }
+    
+    /** @return weight of the edge */
+    public int getWeight() {
+        return weight;
+    }
+    
+    // toString()
+    @Override public String toString() {
+        String rep = getSource() + " ---> " + getTarget() + ", weight = " + getWeight() + "\n";
+        return rep;
+    }
+}
@@ -0,0 +1,91 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * An unmodifiable live view of a row of edges of a graph, as a map from the
+ * labels of the vertices at the other ends of the edges to their weights.
+ * The row is any map whose keys identify those vertices and whose values
+ * carry the weights, such as a map from labels to Edges.
+ *
+ * @param <L> type of vertex labels
+ * @param <K> type of keys of the row
+ * @param <V> type of values of the row
+ */
+class EdgeRowView<L, K, V> extends AbstractMap<L, Integer> {
+
+    private final Map<K, V> row;
+    private final Function<Object, K> key;
+    private final Function<K, L> label;
+    private final ToIntFunction<V> weight;
+
+    // Abstraction function:
+    //   Represent the map from label(k) to weight(row.get(k)) for every key k of row
+    // Representation invariant:
+    //   key and label are inverses on the keys of row
+    // Safety from rep exposure:
+    //   All fields are private and final; row is only read, and entries are
+    //   immutable copies
+
+    /**
+     * Create a view of a row of edges.
+     *
+     * @param row the row, read but never modified by this view
+     * @param key function from a label to its key in row, or to null if it has none
+     * @param label function from a key of row to its label
+     * @param weight function from a value of row to its weight
+     */
+    EdgeRowView(Map<K, V> row, Function<Object, K> key, Function<K, L> label, ToIntFunction<V> weight) {
+        this.row = row;
+        this.key = key;
+        this.label = label;
+        this.weight = weight;
+    }
+
+    @Override public int size() {
+        return row.size();
+    }
+
+    @Override public boolean containsKey(Object vertex) {
+        K k = key.apply(vertex);
+        return k != null && row.containsKey(k);
+    }
+
+    @Override public Integer get(Object vertex) {
+        K k = key.apply(vertex);
+        V v = k == null ? null : row.get(k);
+        return v == null ? null : weight.applyAsInt(v);
+    }
+
+    @Override public Set<Map.Entry<L, Integer>> entrySet() {
+        return new AbstractSet<Map.Entry<L, Integer>>() {
+            @Override public int size() {
+                return row.size();
+            }
+
+            @Override public Iterator<Map.Entry<L, Integer>> iterator() {
+                Iterator<Map.Entry<K, V>> entries = row.entrySet().iterator();
+                return new Iterator<Map.Entry<L, Integer>>() {
+                    @Override public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override public Map.Entry<L, Integer> next() {
+                        Map.Entry<K, V> e = entries.next();
+                        return new AbstractMap.SimpleImmutableEntry<>(label.apply(e.getKey()),
+                                weight.applyAsInt(e.getValue()));
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,543 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable implementation of Graph in compressed sparse row (CSR) form.
+ *
+ * <p>Every label is interned to a dense {@code int} id, and the outgoing and
+ * incoming edges of all vertices are packed into flat {@code int[]} arrays,
+ * so an edge costs a few ints instead of a boxed Edge object.
+ * A FrozenGraph is produced from any other Graph with {@link #freeze(Graph)}.
+ * Besides the Graph operations, which box weights into fresh maps, the edges
+ * can be read by id with {@link #id(Object)}, {@link #label(int)},
+ * {@link #target(int, int)}, {@link #source(int, int)} and
+ * {@link #weight(int, int)}, which allocate nothing.
+ *
+ * <p>The mutators {@link #add(Object) add}, {@link #set(Object, Object, int) set},
+ * {@link #increment(Object, Object, int) increment} and {@link #remove(Object) remove}
+ * throw UnsupportedOperationException.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class FrozenGraph<L> implements Graph<L> {
+
+    private final Object[] labels;
+    private final Map<L, Integer> ids;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+
+    // Abstraction function:
+    //   Represent the graph whose vertices are labels[0..n-1], where n is the
+    //   number of vertices, and which has an edge labels[s] -> labels[outTargets[i]]
+    //   of weight outWeights[i] for every outOffsets[s] <= i < outOffsets[s+1]
+    // Representation invariant:
+    //   ids.get(labels[i]) == i for every i, and ids has n keys
+    //   outOffsets and inOffsets have n+1 entries, start at 0, are non-decreasing
+    //   and end at the number of edges
+    //   Each row of outTargets (resp. inSources) is strictly increasing
+    //   All weights are positive
+    //   inSources/inWeights hold exactly the edges of outTargets/outWeights, transposed
+    // Safety from rep exposure:
+    //   All fields are private and final, and no method mutates them
+    //   Methods return fresh copies or unmodifiable views, never the arrays
+    //   or maps of the rep
+
+    private FrozenGraph(Object[] labels, Map<L, Integer> ids,
+            int[] outOffsets, int[] outTargets, int[] outWeights,
+            int[] inOffsets, int[] inSources, int[] inWeights) {
+        this.labels = labels;
+        this.ids = ids;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outWeights = outWeights;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.inWeights = inWeights;
+        checkRep();
+    }
+
+    /**
+     * Freeze a graph into compressed sparse row form.
+     *
+     * @param <L> type of vertex labels in the graph, must be immutable
+     * @param graph graph to copy; it is not modified
+     * @return an immutable graph with the same vertices and edges as graph;
+     *         graph itself if it is already a FrozenGraph
+     */
+    public static <L> FrozenGraph<L> freeze(Graph<L> graph) {
+        if (graph instanceof FrozenGraph) return (FrozenGraph<L>) graph;
+
+        Set<L> vertices = graph.vertexView();
+        int n = vertices.size();
+        Object[] labels = new Object[n];
+        Map<L, Integer> ids = new HashMap<>(n * 4 / 3 + 1);
+        for (L v : vertices) {
+            labels[ids.size()] = v;
+            ids.put(v, ids.size());
+        }
+
+        int m = 0;
+        int[] sources = new int[Math.max(16, n)];
+        int[] targets = new int[sources.length];
+        int[] weights = new int[sources.length];
+        for (int s = 0; s < n; s++) {
+            @SuppressWarnings("unchecked")
+            Map<L, Integer> row = graph.targetsView((L) labels[s]);
+            if (m + row.size() > sources.length) {
+                int capacity = Math.max(m + row.size(), sources.length * 2);
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            for (Map.Entry<L, Integer> e : row.entrySet()) {
+                sources[m] = s;
+                targets[m] = ids.get(e.getKey());
+                weights[m] = e.getValue();
+                m++;
+            }
+        }
+        return build(labels, ids, sources, targets, weights, m);
+    }
+
+    /**
+     * Build a FrozenGraph from edges given as parallel arrays of vertex ids,
+     * in any order. The weights of repeated edges are added together.
+     * Takes O(n + m log d) time, where d is the largest out-degree.
+     *
+     * @param labels labels[i] is the label of the vertex with id i; not copied
+     * @param ids inverse of labels; not copied
+     * @param sources source ids of the edges, in [0, labels.length)
+     * @param targets target ids of the edges
+     * @param weights positive weights of the edges
+     * @param m number of edges; only the first m entries of the arrays are read
+     * @return a graph with vertices labels and the given edges
+     * @throws ArithmeticException if the weights of a repeated edge add up to
+     *         more than Integer.MAX_VALUE
+     */
+    static <L> FrozenGraph<L> build(Object[] labels, Map<L, Integer> ids,
+            int[] sources, int[] targets, int[] weights, int m) {
+        int n = labels.length;
+
+        // group edges by source with a counting sort
+        int[] outOffsets = new int[n + 1];
+        for (int i = 0; i < m; i++) {
+            outOffsets[sources[i] + 1]++;
+        }
+        for (int s = 0; s < n; s++) {
+            outOffsets[s + 1] += outOffsets[s];
+        }
+        int[] fill = Arrays.copyOf(outOffsets, n);
+        long[] packed = new long[m];
+        for (int i = 0; i < m; i++) {
+            packed[fill[sources[i]]++] = ((long) targets[i] << 32) | (weights[i] & 0xffffffffL);
+        }
+
+        // outgoing rows: sort each by target id and add up repeated edges
+        int[] outTargets = new int[m];
+        int[] outWeights = new int[m];
+        int[] inDegree = new int[n];
+        int k = 0;
+        for (int s = 0; s < n; s++) {
+            int start = outOffsets[s];
+            int end = outOffsets[s + 1];
+            Arrays.sort(packed, start, end);
+            outOffsets[s] = k;
+            for (int i = start; i < end; i++) {
+                int t = (int) (packed[i] >>> 32);
+                int w = (int) packed[i];
+                if (k > outOffsets[s] && outTargets[k - 1] == t) {
+                    outWeights[k - 1] = Math.addExact(outWeights[k - 1], w);
+                }
+                else {
+                    outTargets[k] = t;
+                    outWeights[k] = w;
+                    inDegree[t]++;
+                    k++;
+                }
+            }
+        }
+        outOffsets[n] = k;
+        if (k < m) {
+            outTargets = Arrays.copyOf(outTargets, k);
+            outWeights = Arrays.copyOf(outWeights, k);
+        }
+
+        // incoming rows: transpose; scanning sources in id order keeps rows sorted
+        int[] inOffsets = new int[n + 1];
+        for (int t = 0; t < n; t++) {
+            inOffsets[t + 1] = inOffsets[t] + inDegree[t];
+        }
+        fill = Arrays.copyOf(inOffsets, n);
+        int[] inSources = new int[k];
+        int[] inWeights = new int[k];
+        for (int s = 0; s < n; s++) {
+            for (int i = outOffsets[s]; i < outOffsets[s + 1]; i++) {
+                int at = fill[outTargets[i]]++;
+                inSources[at] = s;
+                inWeights[at] = outWeights[i];
+            }
+        }
+
+        return new FrozenGraph<L>(labels, ids, outOffsets, outTargets, outWeights,
+                inOffsets, inSources, inWeights);
+    }
+
+    // checkRep
+    private void checkRep() {
+        int n = labels.length;
+        assert ids.size() == n;
+        assert outOffsets.length == n + 1 && inOffsets.length == n + 1;
+        assert outOffsets[0] == 0 && inOffsets[0] == 0;
+        assert outOffsets[n] == outTargets.length && inOffsets[n] == inSources.length;
+        assert outTargets.length == inSources.length;
+        for (int v = 0; v < n; v++) {
+            assert ids.get(labels[v]) == v;
+            for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                assert outWeights[i] > 0;
+                assert i == outOffsets[v] || outTargets[i - 1] < outTargets[i];
+            }
+            for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+                assert inWeights[i] > 0;
+                assert i == inOffsets[v] || inSources[i - 1] < inSources[i];
+            }
+        }
+    }
+
+    /** @throws UnsupportedOperationException always; a FrozenGraph is immutable */
+    @Override public boolean add(L vertex) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+
+    /** @throws UnsupportedOperationException always; a FrozenGraph is immutable */
+    @Override public int set(L source, L target, int weight) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+
+    /** @throws UnsupportedOperationException always; a FrozenGraph is immutable */
+    @Override public int increment(L source, L target, int delta) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+
+    /** @throws UnsupportedOperationException always; a FrozenGraph is immutable */
+    @Override public boolean remove(L vertex) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+
+    @Override public Set<L> vertices() {
+        return new HashSet<L>(ids.keySet());
+    }
+
+    @Override public Map<L, Integer> sources(L target) {
+        Map<L, Integer> sources = new HashMap<>();
+        Integer t = ids.get(target);
+        if (t == null) return sources;
+        for (int i = inOffsets[t]; i < inOffsets[t + 1]; i++) {
+            sources.put(label(inSources[i]), inWeights[i]);
+        }
+        return sources;
+    }
+
+    @Override public Map<L, Integer> targets(L source) {
+        Map<L, Integer> targets = new HashMap<>();
+        Integer s = ids.get(source);
+        if (s == null) return targets;
+        for (int i = outOffsets[s]; i < outOffsets[s + 1]; i++) {
+            targets.put(label(outTargets[i]), outWeights[i]);
+        }
+        return targets;
+    }
+
+    /** @return an unmodifiable view of the vertices, valid forever since this graph is immutable */
+    @Override public Set<L> vertexView() {
+        return Collections.unmodifiableSet(ids.keySet());
+    }
+
+    /** @return an unmodifiable view of a row of the incoming edges, without copying it */
+    @Override public Map<L, Integer> sourcesView(L target) {
+        Integer t = ids.get(target);
+        if (t == null) return Collections.emptyMap();
+        return new Row(inSources, inWeights, inOffsets[t], inOffsets[t + 1]);
+    }
+
+    /** @return an unmodifiable view of a row of the outgoing edges, without copying it */
+    @Override public Map<L, Integer> targetsView(L source) {
+        Integer s = ids.get(source);
+        if (s == null) return Collections.emptyMap();
+        return new Row(outTargets, outWeights, outOffsets[s], outOffsets[s + 1]);
+    }
+
+    /**
+     * An unmodifiable view of a row of edges, as a map from the labels of the
+     * vertices at their other ends to their weights. Lookups binary search the row.
+     */
+    private class Row extends AbstractMap<L, Integer> {
+
+        private final int[] ends;
+        private final int[] weights;
+        private final int start;
+        private final int end;
+
+        Row(int[] ends, int[] weights, int start, int end) {
+            this.ends = ends;
+            this.weights = weights;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override public int size() {
+            return end - start;
+        }
+
+        @Override public boolean containsKey(Object vertex) {
+            return indexOf(vertex) >= 0;
+        }
+
+        @Override public Integer get(Object vertex) {
+            int i = indexOf(vertex);
+            return i >= 0 ? weights[i] : null;
+        }
+
+        private int indexOf(Object vertex) {
+            Integer id = ids.get(vertex);
+            return id == null ? -1 : Arrays.binarySearch(ends, start, end, id);
+        }
+
+        @Override public Set<Map.Entry<L, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<L, Integer>>() {
+                @Override public int size() {
+                    return end - start;
+                }
+
+                @Override public Iterator<Map.Entry<L, Integer>> iterator() {
+                    return new Iterator<Map.Entry<L, Integer>>() {
+                        private int i = start;
+
+                        @Override public boolean hasNext() {
+                            return i < end;
+                        }
+
+                        @Override public Map.Entry<L, Integer> next() {
+                            if (i >= end) throw new NoSuchElementException();
+                            Map.Entry<L, Integer> entry = new AbstractMap.SimpleImmutableEntry<>(label(ends[i]), weights[i]);
+                            i++;
+                            return entry;
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * Prune this graph: keep only the heaviest outgoing edges of every
+     * vertex, and only edges of at least a minimum weight, then drop the
+     * vertices left without any edge.
+     * When weights tie at the cut-off, every tied edge is kept, so that the
+     * result does not depend on the order of vertices; a vertex may then keep
+     * more than maxOutDegree edges.
+     *
+     * @param maxOutDegree number of heaviest outgoing edges to keep per
+     *                     vertex; must be nonnegative, Integer.MAX_VALUE to keep all
+     * @param minWeight minimum weight of the edges to keep; must be positive,
+     *                  1 to keep all
+     * @return a new graph with the kept vertices and edges; this graph is not modified
+     */
+    public FrozenGraph<L> compact(int maxOutDegree, int minWeight) {
+        if (maxOutDegree < 0) throw new IllegalArgumentException("maxOutDegree must be nonnegative");
+        if (minWeight <= 0) throw new IllegalArgumentException("minWeight must be positive");
+        int n = labels.length;
+        int[] sources = new int[outTargets.length];
+        int[] targets = new int[outTargets.length];
+        int[] weights = new int[outTargets.length];
+        boolean[] kept = new boolean[n];
+        int m = 0;
+        for (int s = 0; s < n; s++) {
+            int start = outOffsets[s];
+            int end = outOffsets[s + 1];
+            int cut = minWeight;
+            if (end - start > maxOutDegree) {
+                if (maxOutDegree == 0) continue;
+                int[] row = Arrays.copyOfRange(outWeights, start, end);
+                Arrays.sort(row);
+                cut = Math.max(cut, row[row.length - maxOutDegree]);
+            }
+            for (int i = start; i < end; i++) {
+                if (outWeights[i] < cut) continue;
+                sources[m] = s;
+                targets[m] = outTargets[i];
+                weights[m] = outWeights[i];
+                kept[s] = kept[outTargets[i]] = true;
+                m++;
+            }
+        }
+
+        // renumber the kept vertices, in the same order
+        int[] renumber = new int[n];
+        int k = 0;
+        for (int v = 0; v < n; v++) {
+            if (kept[v]) renumber[v] = k++;
+        }
+        Object[] keptLabels = new Object[k];
+        Map<L, Integer> keptIds = new HashMap<>(k * 4 / 3 + 1);
+        for (int v = 0; v < n; v++) {
+            if (!kept[v]) continue;
+            keptLabels[renumber[v]] = labels[v];
+            keptIds.put(label(v), renumber[v]);
+        }
+        for (int i = 0; i < m; i++) {
+            sources[i] = renumber[sources[i]];
+            targets[i] = renumber[targets[i]];
+        }
+        return build(keptLabels, keptIds, sources, targets, weights, m);
+    }
+
+    /** @return the number of vertices of this graph */
+    public int vertexCount() {
+        return labels.length;
+    }
+
+    /** @return the number of edges of this graph */
+    public int edgeCount() {
+        return outTargets.length;
+    }
+
+    /**
+     * Estimate the memory used by this graph, not counting the label objects
+     * themselves, on a 64-bit JVM with compressed references.
+     *
+     * @return estimated size in bytes of the arrays and the label index of this graph
+     */
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (int[] array : new int[][] { outOffsets, outTargets, outWeights, inOffsets, inSources, inWeights }) {
+            bytes += 16 + 4L * array.length;
+        }
+        bytes += 16 + 4L * labels.length;
+        // HashMap: its table, and a node and an Integer per vertex
+        int table = Integer.highestOneBit(Math.max(1, labels.length * 4 / 3 + 1) * 2 - 1);
+        bytes += 48 + 16 + 4L * table + 48L * labels.length;
+        return bytes;
+    }
+
+    /**
+     * Look up the dense id of a vertex. The ids of a graph with n vertices
+     * are 0..n-1; the rows of edges of every vertex are sorted by id.
+     *
+     * @param vertex label of a vertex
+     * @return the id of vertex, or -1 if it is not in this graph
+     */
+    public int id(L vertex) {
+        Integer id = ids.get(vertex);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id id of a vertex, in [0, vertexCount())
+     * @return the label of the vertex
+     */
+    @SuppressWarnings("unchecked")
+    public L label(int id) {
+        return (L) labels[id];
+    }
+
+    /**
+     * @param id id of a vertex, in [0, vertexCount())
+     * @return the number of edges from the vertex
+     */
+    public int outDegree(int id) {
+        return outOffsets[id + 1] - outOffsets[id];
+    }
+
+    /**
+     * @param id id of a vertex, in [0, vertexCount())
+     * @param k index of an edge from the vertex, in [0, outDegree(id))
+     * @return the id of the target of the k-th edge from the vertex, in
+     *         increasing order of target id
+     */
+    public int target(int id, int k) {
+        return outTargets[outOffsets[id] + Objects.checkIndex(k, outDegree(id))];
+    }
+
+    /**
+     * @param id id of a vertex, in [0, vertexCount())
+     * @param k index of an edge from the vertex, in [0, outDegree(id))
+     * @return the weight of the k-th edge from the vertex
+     */
+    public int targetWeight(int id, int k) {
+        return outWeights[outOffsets[id] + Objects.checkIndex(k, outDegree(id))];
+    }
+
+    /**
+     * @param id id of a vertex, in [0, vertexCount())
+     * @return the number of edges to the vertex
+     */
+    public int inDegree(int id) {
+        return inOffsets[id + 1] - inOffsets[id];
+    }
+
+    /**
+     * @param id id of a vertex, in [0, vertexCount())
+     * @param k index of an edge to the vertex, in [0, inDegree(id))
+     * @return the id of the source of the k-th edge to the vertex, in
+     *         increasing order of source id
+     */
+    public int source(int id, int k) {
+        return inSources[inOffsets[id] + Objects.checkIndex(k, inDegree(id))];
+    }
+
+    /**
+     * @param id id of a vertex, in [0, vertexCount())
+     * @param k index of an edge to the vertex, in [0, inDegree(id))
+     * @return the weight of the k-th edge to the vertex
+     */
+    public int sourceWeight(int id, int k) {
+        return inWeights[inOffsets[id] + Objects.checkIndex(k, inDegree(id))];
+    }
+
+    /**
+     * Look up an edge by binary search, in O(log outDegree(source)) time.
+     *
+     * @param source id of the source vertex, in [0, vertexCount())
+     * @param target id of the target vertex
+     * @return the weight of the edge from source to target, or 0 if there is none
+     */
+    public int weight(int source, int target) {
+        int i = Arrays.binarySearch(outTargets, outOffsets[source], outOffsets[source + 1], target);
+        return i >= 0 ? outWeights[i] : 0;
+    }
+
+    // toString()
+    @Override public String toString() {
+        if (labels.length == 0) return "The graph is empty, nothing to print";
+        StringBuilder all = new StringBuilder("Vertices: ");
+        for (Object v : labels) {
+            all.append(v + " ");
+        }
+        all.append("\nEdges: ");
+        if (outTargets.length == 0) return all + "empty edges";
+        for (int s = 0; s < labels.length; s++) {
+            for (int i = outOffsets[s]; i < outOffsets[s + 1]; i++) {
+                all.append(labels[s] + " ---> " + labels[outTargets[i]] + ", weight = " + outWeights[i] + "\n");
+            }
+        }
+        return all.toString();
+    }
+}
@@ -3,6 +3,8 @@
  */
 package graph;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -26,7 +28,7 @@ public interface Graph<L> {
      * @return a new empty weighted directed graph
      */
     public static <L> Graph<L> empty() {
-        return new ConcreteEdgesGraph<L>();
+        return new IndexedEdgesGraph<L>();
     }
     
     /**
@@ -54,6 +56,28 @@ public interface Graph<L> {
      */
     public int set(L source, L target, int weight);
     
+    /**
+     * Add to the weight of a directed edge in this graph, in a single call.
+     * Equivalent to {@code set(source, target, w + delta)} where w is the
+     * current weight of the edge, or zero if there is no such edge: if the new
+     * weight is nonzero, the edge is added or updated and vertices with the
+     * given labels are added to the graph if they do not already exist; if it
+     * is zero, the edge is removed if it exists.
+     * 
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta amount to add to the weight of the edge; the new weight
+     *              must be nonnegative
+     * @return the previous weight of the edge, or zero if there was no such
+     *         edge
+     */
+    public default int increment(L source, L target, int delta) {
+        Integer prev = targets(source).get(target);
+        int weight = (prev == null ? 0 : prev) + delta;
+        if (weight < 0) throw new RuntimeException("Weight must be larger than 0");
+        return set(source, target, weight);
+    }
+    
     /**
      * Remove a vertex from this graph; any edges to or from the vertex are
      * also removed.
@@ -95,4 +119,77 @@ public interface Graph<L> {
      */
     public Map<L, Integer> targets(L source);
     
+    /**
+     * Get all the vertices in this graph, without copying them where the
+     * implementation can avoid it. Unlike {@link #vertices()}, the set may be
+     * a live view of this graph, or a snapshot shared by calls until the next
+     * mutation; it must not be read after this graph is next mutated.
+     * 
+     * @return an unmodifiable set of labels of vertices in this graph
+     */
+    public default Set<L> vertexView() {
+        return Collections.unmodifiableSet(vertices());
+    }
+    
+    /**
+     * Get the source vertices with directed edges to a target vertex and the
+     * weights of those edges, without copying them where the implementation
+     * can avoid it. Unlike {@link #sources(Object)}, the map may be a live
+     * view of this graph, or a snapshot shared by calls until the next
+     * mutation; it must not be read after this graph is next mutated.
+     * 
+     * @param target a label
+     * @return an unmodifiable map with the same entries as sources(target)
+     */
+    public default Map<L, Integer> sourcesView(L target) {
+        return Collections.unmodifiableMap(sources(target));
+    }
+    
+    /**
+     * Get the target vertices with directed edges from a source vertex and
+     * the weights of those edges, without copying them where the
+     * implementation can avoid it. Unlike {@link #targets(Object)}, the map
+     * may be a live view of this graph, or a snapshot shared by calls until
+     * the next mutation; it must not be read after this graph is next mutated.
+     * 
+     * @param source a label
+     * @return an unmodifiable map with the same entries as targets(source)
+     */
+    public default Map<L, Integer> targetsView(L source) {
+        return Collections.unmodifiableMap(targets(source));
+    }
+    
+    /**
+     * Check this graph in full, whatever its {@link ValidationPolicy}: every
+     * edge has a positive weight and vertices at both ends, and
+     * {@link #sources(Object) sources} and {@link #targets(Object) targets}
+     * agree on every edge. Implementations may also check their rep
+     * invariant, which takes effect only when assertions are enabled.
+     * Takes time proportional to the size of the graph.
+     * 
+     * @throws IllegalStateException if this graph is inconsistent
+     */
+    public default void validate() {
+        Set<L> vertices = vertices();
+        Map<L, Map<L, Integer>> incoming = new HashMap<>();
+        for (L source : vertices) {
+            for (Map.Entry<L, Integer> edge : targets(source).entrySet()) {
+                L target = edge.getKey();
+                if (edge.getValue() <= 0) {
+                    throw new IllegalStateException("edge " + source + " -> " + target + " has weight " + edge.getValue());
+                }
+                if (!vertices.contains(target)) {
+                    throw new IllegalStateException("edge " + source + " -> " + target + " ends outside the graph");
+                }
+                incoming.computeIfAbsent(target, t -> new HashMap<>()).put(source, edge.getValue());
+            }
+        }
+        for (L target : vertices) {
+            Map<L, Integer> expected = incoming.getOrDefault(target, Collections.emptyMap());
+            if (!expected.equals(sources(target))) {
+                throw new IllegalStateException("sources and targets disagree on the edges to " + target);
+            }
+        }
+    }
+    
 }
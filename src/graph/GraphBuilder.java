@@ -0,0 +1,167 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A builder that bulk-loads vertices and edges into a {@link FrozenGraph}.
+ * Mutable.
+ *
+ * <p>Edges are appended to flat arrays of vertex ids, with no per-edge lookup
+ * of existing edges and no rep check. {@link #build()} then groups them by
+ * source with a counting sort, sorts each row by target, and packs them into
+ * compressed sparse row form in one pass. Edges may be added in any order,
+ * and an edge added more than once gets the sum of its weights, so a builder
+ * can count adjacencies as well as load precomputed ones.
+ *
+ * @param <L> type of vertex labels in the graph, must be immutable
+ */
+public class GraphBuilder<L> {
+
+    private final Map<L, Integer> ids;
+    private Object[] labels;
+    private int[] sources;
+    private int[] targets;
+    private int[] weights;
+    private int edges = 0;
+
+    // Abstraction function:
+    //   Represent the graph whose vertices are labels[0..ids.size()-1], and
+    //   which has an edge labels[sources[i]] -> labels[targets[i]] for every
+    //   i < edges, whose weight is the sum of weights[i] over every such i
+    // Representation invariant:
+    //   ids.get(labels[i]) == i for every i < ids.size(), and ids.size() <= labels.length
+    //   sources, targets and weights have the same length, at least edges
+    //   sources[i] and targets[i] are ids, and weights[i] > 0, for every i < edges
+    // Safety from rep exposure:
+    //   All fields are private
+    //   build() copies what it needs, so later additions do not change built graphs
+
+    /**
+     * Create an empty builder.
+     */
+    public GraphBuilder() {
+        this(16, 16);
+    }
+
+    /**
+     * Create an empty builder sized for a graph, so that it does not need to
+     * grow while loading it.
+     *
+     * @param expectedVertices expected number of vertices; must be nonnegative
+     * @param expectedEdges expected number of edges added; must be nonnegative
+     */
+    public GraphBuilder(int expectedVertices, int expectedEdges) {
+        if (expectedVertices < 0 || expectedEdges < 0) {
+            throw new IllegalArgumentException("expected sizes must be nonnegative");
+        }
+        ids = new HashMap<>(expectedVertices * 4 / 3 + 1);
+        labels = new Object[expectedVertices];
+        sources = new int[expectedEdges];
+        targets = new int[expectedEdges];
+        weights = new int[expectedEdges];
+        checkRep();
+    }
+
+    // checkRep
+    private void checkRep() {
+        assert ids.size() <= labels.length;
+        assert sources.length == targets.length && targets.length == weights.length;
+        assert edges <= sources.length;
+    }
+
+    /**
+     * Add a vertex, if there is no vertex with the same label yet.
+     *
+     * @param vertex label of the vertex
+     * @return this builder
+     */
+    public GraphBuilder<L> addVertex(L vertex) {
+        id(vertex);
+        return this;
+    }
+
+    /**
+     * Add a weighted directed edge, and the vertices at its ends if they were
+     * not added yet. If the edge was already added, its weight is added to
+     * the weight of the edge.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param weight positive weight of the edge
+     * @return this builder
+     */
+    public GraphBuilder<L> addEdge(L source, L target, int weight) {
+        if (weight <= 0) throw new RuntimeException("Weight must be larger than 0");
+        ensureEdgeCapacity(edges + 1);
+        sources[edges] = id(source);
+        targets[edges] = id(target);
+        weights[edges] = weight;
+        edges++;
+        return this;
+    }
+
+    /**
+     * Add weighted directed edges sources[i] -> targets[i] of weight
+     * weights[i], as if by {@link #addEdge(Object, Object, int)} for each i
+     * in order. If any weight is not positive, no edge is added.
+     *
+     * @param sources labels of the source vertices
+     * @param targets labels of the target vertices
+     * @param weights positive weights of the edges
+     * @return this builder
+     * @throws IllegalArgumentException if the arrays have different lengths
+     */
+    public GraphBuilder<L> addEdges(L[] sources, L[] targets, int[] weights) {
+        if (sources.length != targets.length || targets.length != weights.length) {
+            throw new IllegalArgumentException("sources, targets and weights must have the same length");
+        }
+        for (int w : weights) {
+            if (w <= 0) throw new RuntimeException("Weight must be larger than 0");
+        }
+        ensureEdgeCapacity(edges + weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            this.sources[edges] = id(sources[i]);
+            this.targets[edges] = id(targets[i]);
+            this.weights[edges] = weights[i];
+            edges++;
+        }
+        return this;
+    }
+
+    /**
+     * Build a graph from the vertices and edges added so far. The builder
+     * can still be used afterwards.
+     *
+     * @return an immutable graph with the vertices and edges added so far
+     * @throws ArithmeticException if the weights of an edge add up to more
+     *         than Integer.MAX_VALUE
+     */
+    public FrozenGraph<L> build() {
+        return FrozenGraph.build(Arrays.copyOf(labels, ids.size()), new HashMap<>(ids),
+                sources, targets, weights, edges);
+    }
+
+    /** @return the id of a vertex, adding the vertex if it is new */
+    private int id(L vertex) {
+        Integer id = ids.get(vertex);
+        if (id != null) return id;
+        int n = ids.size();
+        if (n == labels.length) labels = Arrays.copyOf(labels, Math.max(16, n * 2));
+        labels[n] = vertex;
+        ids.put(vertex, n);
+        return n;
+    }
+
+    private void ensureEdgeCapacity(int capacity) {
+        if (capacity <= sources.length) return;
+        capacity = Math.max(capacity, Math.max(16, sources.length * 2));
+        sources = Arrays.copyOf(sources, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+    }
+}
@@ -0,0 +1,113 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The metrics that one or more {@link InstrumentedGraph}s record about the
+ * calls made to them: for every {@link GraphOperation}, a histogram of the
+ * latencies of its calls and, for the operations that return a set or a map,
+ * a histogram of the sizes of their results. Metrics are cumulative from the
+ * creation of this object, so that an exporter can poll snapshots of them.
+ * Mutable. Safe for use by multiple threads; recording a call only adds to
+ * striped counters, so threads that record calls rarely contend.
+ */
+public class GraphMetrics {
+
+    private final Histogram[] latencies = new Histogram[GraphOperation.values().length];
+    private final Histogram[] resultSizes = new Histogram[GraphOperation.values().length];
+
+    // Abstraction function:
+    //   Represent the metrics of the calls of every operation op: the
+    //   latencies latencies[op.ordinal()], and the result sizes
+    //   resultSizes[op.ordinal()] if op.hasResultSize()
+    // Representation invariant:
+    //   latencies has no null element
+    //   resultSizes[op.ordinal()] is null iff !op.hasResultSize()
+    // Safety from rep exposure:
+    //   All fields are private and final; only immutable snapshots are returned
+    // Thread safety argument:
+    //   The arrays are filled by the constructor and never written again, and
+    //   Histograms are thread-safe
+
+    /**
+     * Create empty metrics.
+     */
+    public GraphMetrics() {
+        for (GraphOperation op : GraphOperation.values()) {
+            latencies[op.ordinal()] = new Histogram();
+            if (op.hasResultSize()) resultSizes[op.ordinal()] = new Histogram();
+        }
+        checkRep();
+    }
+
+    // checkRep
+    private void checkRep() {
+        for (GraphOperation op : GraphOperation.values()) {
+            assert latencies[op.ordinal()] != null;
+            assert (resultSizes[op.ordinal()] != null) == op.hasResultSize();
+        }
+    }
+
+    /**
+     * Record a call of an operation that has no result size.
+     *
+     * @param operation operation called; !operation.hasResultSize()
+     * @param nanos latency of the call, in nanoseconds
+     */
+    void record(GraphOperation operation, long nanos) {
+        latencies[operation.ordinal()].record(nanos);
+    }
+
+    /**
+     * Record a call of an operation that has a result size.
+     *
+     * @param operation operation called; operation.hasResultSize()
+     * @param nanos latency of the call, in nanoseconds
+     * @param size size of the set or map the call returned
+     */
+    void record(GraphOperation operation, long nanos, int size) {
+        latencies[operation.ordinal()].record(nanos);
+        resultSizes[operation.ordinal()].record(size);
+    }
+
+    /**
+     * Take a snapshot of the metrics of an operation. The snapshot is not
+     * atomic: calls recorded while it is taken may be counted in some of its
+     * totals only.
+     *
+     * @param operation an operation
+     * @return the metrics of the calls of operation recorded so far
+     */
+    public OperationStats stats(GraphOperation operation) {
+        Histogram sizes = resultSizes[operation.ordinal()];
+        return new OperationStats(operation, latencies[operation.ordinal()].snapshot(),
+                sizes == null ? HistogramSnapshot.empty() : sizes.snapshot());
+    }
+
+    /**
+     * Take a snapshot of the metrics of every operation, as by
+     * {@link #stats(GraphOperation)}.
+     *
+     * @return an unmodifiable map from every operation to its metrics
+     */
+    public Map<GraphOperation, OperationStats> snapshot() {
+        Map<GraphOperation, OperationStats> stats = new EnumMap<>(GraphOperation.class);
+        for (GraphOperation op : GraphOperation.values()) {
+            stats.put(op, stats(op));
+        }
+        return Collections.unmodifiableMap(stats);
+    }
+
+    @Override public String toString() {
+        StringBuilder s = new StringBuilder();
+        for (OperationStats stats : snapshot().values()) {
+            if (stats.calls() > 0) s.append(stats).append("\n");
+        }
+        return s.length() == 0 ? "no calls recorded" : s.toString();
+    }
+}
@@ -0,0 +1,45 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * The operations of a {@link Graph} that an {@link InstrumentedGraph} records.
+ */
+public enum GraphOperation {
+
+    /** {@link Graph#add(Object)} */
+    ADD(false),
+    /** {@link Graph#set(Object, Object, int)} */
+    SET(false),
+    /** {@link Graph#increment(Object, Object, int)} */
+    INCREMENT(false),
+    /** {@link Graph#remove(Object)} */
+    REMOVE(false),
+    /** {@link Graph#vertices()} */
+    VERTICES(true),
+    /** {@link Graph#sources(Object)} */
+    SOURCES(true),
+    /** {@link Graph#targets(Object)} */
+    TARGETS(true),
+    /** {@link Graph#vertexView()} */
+    VERTEX_VIEW(true),
+    /** {@link Graph#sourcesView(Object)} */
+    SOURCES_VIEW(true),
+    /** {@link Graph#targetsView(Object)} */
+    TARGETS_VIEW(true);
+
+    private final boolean sized;
+
+    private GraphOperation(boolean sized) {
+        this.sized = sized;
+    }
+
+    /**
+     * @return true iff the operation returns a set or a map, whose size is
+     *         recorded as the result size of each call
+     */
+    public boolean hasResultSize() {
+        return sized;
+    }
+}
@@ -0,0 +1,118 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of nonnegative long values, with buckets whose width grows with
+ * the values they hold, as in an HDR histogram: values below 16 have a bucket
+ * each, and every power of two above is split into 8 buckets, so a value is
+ * known to within 1/8 of itself. Values up to MAX_VALUE are bucketed; larger
+ * values are counted in the last bucket, but still count fully in the sum and
+ * the maximum.
+ * Mutable. Safe for use by multiple threads; recording a value only adds to
+ * striped counters, so threads rarely contend.
+ */
+class Histogram {
+
+    /** Largest value that is bucketed exactly: about 18 minutes in nanoseconds. */
+    static final long MAX_VALUE = (1L << 40) - 1;
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int EXACT = 2 * SUB_BUCKETS;
+
+    /** Number of buckets. */
+    static final int BUCKETS = bucket(MAX_VALUE) + 1;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    // Abstraction function:
+    //   Represent the multiset of values recorded, whose sum is sum and
+    //   maximum is max, and of which counts[b] fall in bucket b, that is
+    //   between lowest(b) and highest(b)
+    // Representation invariant:
+    //   counts has BUCKETS non-null elements
+    // Safety from rep exposure:
+    //   All fields are private and final; snapshot() copies the counts
+    // Thread safety argument:
+    //   All fields are final and refer to thread-safe adders and accumulators
+
+    /**
+     * Create an empty histogram.
+     */
+    Histogram() {
+        for (int b = 0; b < BUCKETS; b++) {
+            counts[b] = new LongAdder();
+        }
+        checkRep();
+    }
+
+    // checkRep
+    private void checkRep() {
+        assert counts.length == BUCKETS;
+    }
+
+    /**
+     * Record a value.
+     *
+     * @param value value to record; negative values are recorded as 0
+     */
+    void record(long value) {
+        value = Math.max(0, value);
+        counts[bucket(Math.min(value, MAX_VALUE))].increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Take a snapshot of this histogram. The snapshot is not atomic: values
+     * recorded while it is taken may be counted in some of its totals only.
+     *
+     * @return the counts, sum and maximum of the values recorded so far
+     */
+    HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int b = 0; b < BUCKETS; b++) {
+            copy[b] = counts[b].sum();
+        }
+        return new HistogramSnapshot(copy, sum.sum(), max.get());
+    }
+
+    /**
+     * @param value a value, 0 <= value <= MAX_VALUE
+     * @return the bucket of value
+     */
+    static int bucket(long value) {
+        if (value < EXACT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT + (exponent - SUB_BITS - 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @param bucket a bucket, 0 <= bucket < BUCKETS
+     * @return the smallest value of bucket
+     */
+    static long lowest(int bucket) {
+        if (bucket < EXACT) return bucket;
+        int exponent = (bucket - EXACT) / SUB_BUCKETS + SUB_BITS + 1;
+        int sub = (bucket - EXACT) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+
+    /**
+     * @param bucket a bucket, 0 <= bucket < BUCKETS
+     * @return the largest value of bucket
+     */
+    static long highest(int bucket) {
+        if (bucket < EXACT) return bucket;
+        int exponent = (bucket - EXACT) / SUB_BUCKETS + SUB_BITS + 1;
+        return lowest(bucket) + (1L << (exponent - SUB_BITS)) - 1;
+    }
+}
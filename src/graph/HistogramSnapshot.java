@@ -0,0 +1,106 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * An immutable snapshot of a histogram of nonnegative values, such as the
+ * latencies or the result sizes of the calls of one graph operation.
+ * Percentiles are known to within 1/8 of their value, as in an HDR
+ * histogram, and never exceed the maximum.
+ */
+public class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    // Abstraction function:
+    //   Represent count values, of sum sum and maximum max, of which counts[b]
+    //   are between Histogram.lowest(b) and Histogram.highest(b)
+    // Representation invariant:
+    //   counts.length == Histogram.BUCKETS, and all counts are nonnegative
+    //   count is the sum of counts
+    //   sum >= 0, max >= 0
+    // Safety from rep exposure:
+    //   All fields are private and final; counts is never returned
+
+    /**
+     * Create a snapshot.
+     *
+     * @param counts number of values in each bucket of a Histogram; not
+     *               copied, so must not be modified afterwards
+     * @param sum sum of the values, nonnegative
+     * @param max maximum of the values, nonnegative
+     */
+    HistogramSnapshot(long[] counts, long sum, long max) {
+        this.counts = counts;
+        long count = 0;
+        for (long c : counts) {
+            count += c;
+        }
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+        checkRep();
+    }
+
+    // checkRep
+    private void checkRep() {
+        assert counts.length == Histogram.BUCKETS;
+        assert count >= 0 && sum >= 0 && max >= 0;
+    }
+
+    /** @return an empty snapshot */
+    static HistogramSnapshot empty() {
+        return new HistogramSnapshot(new long[Histogram.BUCKETS], 0, 0);
+    }
+
+    /** @return number of values recorded */
+    public long count() {
+        return count;
+    }
+
+    /** @return sum of the values recorded */
+    public long sum() {
+        return sum;
+    }
+
+    /** @return largest value recorded, or 0 if none was */
+    public long max() {
+        return max;
+    }
+
+    /** @return mean of the values recorded, or 0 if none was */
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Get a percentile of the values recorded.
+     *
+     * @param percentile percentage of the values, 0 <= percentile <= 100
+     * @return the smallest value v such that at least percentile% of the
+     *         values recorded are at most v, rounded up to the end of its
+     *         bucket but at most max(); 0 if no value was recorded
+     */
+    public long valueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if (seen >= rank) return Math.min(Histogram.highest(b), max);
+        }
+        return max;
+    }
+
+    @Override public String toString() {
+        return "count = " + count + ", mean = " + String.format("%.1f", mean())
+                + ", p50 = " + valueAtPercentile(50) + ", p99 = " + valueAtPercentile(99) + ", max = " + max;
+    }
+}
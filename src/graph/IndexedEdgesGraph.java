@@ -0,0 +1,232 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An implementation of Graph that indexes its edges by source and by target.
+ *
+ * <p>Uses the same immutable {@link Edge} as ConcreteEdgesGraph, but instead of
+ * one list of edges it keeps, for every vertex, a hash map of its outgoing
+ * edges and a hash map of its incoming edges. {@code add}, {@code set} and
+ * {@code increment} run in expected O(1) time; {@code remove}, {@code sources}
+ * and {@code targets} run in O(degree) time.
+ */
+public class IndexedEdgesGraph<L> implements Graph<L> {
+
+    private final Map<L, Map<L, Edge<L>>> outgoing = new HashMap<>();
+    private final Map<L, Map<L, Edge<L>>> incoming = new HashMap<>();
+    private final ValidationPolicy validation;
+    private long mutations = 0;
+
+    // Abstraction function:
+    //   Represent a graph whose vertices are the keys of outgoing, and whose
+    //   edges are the values of outgoing.get(v) for every vertex v
+    // Representation invariant:
+    //   outgoing and incoming have the same key set
+    //   outgoing.get(s).get(t) == incoming.get(t).get(s) for every edge s -> t,
+    //   and that edge has source s, target t and positive weight
+    //   Every edge in incoming is also in outgoing
+    //   mutations is the number of mutations so far, counted for validation
+    // Safety from rep exposure:
+    //   All fields are private, and all but mutations are final
+    //   Edges are immutable
+    //   Methods do not return direct reference to mutable data types
+
+    // constructor
+    public IndexedEdgesGraph() {
+        this(ValidationPolicy.getDefault());
+    }
+
+    /**
+     * Create an empty graph.
+     *
+     * @param validation how often to check the rep invariant after mutations
+     */
+    public IndexedEdgesGraph(ValidationPolicy validation) {
+        this.validation = validation;
+    }
+
+    // checkRep
+    private void checkRep() {
+        assert outgoing.keySet().equals(incoming.keySet());
+        int outCount = 0;
+        for (Map.Entry<L, Map<L, Edge<L>>> entry : outgoing.entrySet()) {
+            for (Map.Entry<L, Edge<L>> out : entry.getValue().entrySet()) {
+                Edge<L> e = out.getValue();
+                assert e.getWeight() > 0;
+                assert e.getSource().equals(entry.getKey()) && e.getTarget().equals(out.getKey());
+                assert incoming.get(e.getTarget()).get(e.getSource()) == e;
+                outCount++;
+            }
+        }
+        int inCount = 0;
+        for (Map<L, Edge<L>> in : incoming.values()) {
+            inCount += in.size();
+        }
+        assert outCount == inCount;
+    }
+
+    // Check the rep after a mutation of the edge source -> target (or of the
+    // vertex source, if source == target), as the validation policy asks.
+    private void checkRep(L source, L target) {
+        if (validation.checkFull(++mutations)) {
+            checkRep();
+        }
+        else if (validation.checkIncremental()) {
+            Map<L, Edge<L>> out = outgoing.get(source);
+            Map<L, Edge<L>> in = incoming.get(target);
+            assert (out == null) == !incoming.containsKey(source);
+            assert (in == null) == !outgoing.containsKey(target);
+            Edge<L> e = out == null ? null : out.get(target);
+            assert e == (in == null ? null : in.get(source));
+            assert e == null || (e.getWeight() > 0
+                    && e.getSource().equals(source) && e.getTarget().equals(target));
+        }
+    }
+
+    @Override public void validate() {
+        Graph.super.validate();
+        checkRep();
+    }
+
+    @Override public boolean add(L vertex) {
+        if (outgoing.containsKey(vertex)) return false;
+        outgoing.put(vertex, new HashMap<>());
+        incoming.put(vertex, new HashMap<>());
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override public int set(L source, L target, int weight) {
+        if (weight < 0) throw new RuntimeException("Weight must be larger than 0");
+        int prev = 0;
+        Map<L, Edge<L>> out = outgoing.get(source);
+        Edge<L> old = out == null ? null : out.get(target);
+        if (old != null) prev = old.getWeight();
+        if (weight == 0) {
+            if (old != null) {
+                out.remove(target);
+                incoming.get(target).remove(source);
+            }
+        }
+        else {
+            add(source);
+            add(target);
+            Edge<L> e = new Edge<L>(source, target, weight);
+            outgoing.get(source).put(target, e);
+            incoming.get(target).put(source, e);
+        }
+        checkRep(source, target);
+        return prev;
+    }
+
+    @Override public int increment(L source, L target, int delta) {
+        Map<L, Edge<L>> out = outgoing.get(source);
+        Edge<L> old = out == null ? null : out.get(target);
+        int prev = old == null ? 0 : old.getWeight();
+        if (prev + delta < 0) throw new RuntimeException("Weight must be larger than 0");
+        if (prev + delta == 0) {
+            if (old != null) {
+                out.remove(target);
+                incoming.get(target).remove(source);
+            }
+        }
+        else {
+            if (out == null) {
+                add(source);
+                out = outgoing.get(source);
+            }
+            add(target);
+            Edge<L> e = new Edge<L>(source, target, prev + delta);
+            out.put(target, e);
+            incoming.get(target).put(source, e);
+        }
+        checkRep(source, target);
+        return prev;
+    }
+
+    @Override public boolean remove(L vertex) {
+        if (!outgoing.containsKey(vertex)) return false;
+        for (L target : outgoing.get(vertex).keySet()) {
+            incoming.get(target).remove(vertex);
+        }
+        for (L source : incoming.get(vertex).keySet()) {
+            outgoing.get(source).remove(vertex);
+        }
+        outgoing.remove(vertex);
+        incoming.remove(vertex);
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override public Set<L> vertices() {
+        return new HashSet<L>(outgoing.keySet());
+    }
+
+    /** @return a live view of the vertices */
+    @Override public Set<L> vertexView() {
+        return Collections.unmodifiableSet(outgoing.keySet());
+    }
+
+    /** @return a live view of the incoming edges of target, until target is removed */
+    @Override public Map<L, Integer> sourcesView(L target) {
+        return view(incoming.get(target));
+    }
+
+    /** @return a live view of the outgoing edges of source, until source is removed */
+    @Override public Map<L, Integer> targetsView(L source) {
+        return view(outgoing.get(source));
+    }
+
+    // the keys of a row are labels, so any label can be looked up in it as is
+    @SuppressWarnings("unchecked")
+    private Map<L, Integer> view(Map<L, Edge<L>> row) {
+        if (row == null) return Collections.emptyMap();
+        return new EdgeRowView<L, L, Edge<L>>(row, label -> (L) label, label -> label, Edge::getWeight);
+    }
+
+    @Override public Map<L, Integer> sources(L target) {
+        Map<L, Integer> sources = new HashMap<>();
+        Map<L, Edge<L>> in = incoming.get(target);
+        if (in == null) return sources;
+        for (Edge<L> e : in.values()) {
+            sources.put(e.getSource(), e.getWeight());
+        }
+        return sources;
+    }
+
+    @Override public Map<L, Integer> targets(L source) {
+        Map<L, Integer> targets = new HashMap<>();
+        Map<L, Edge<L>> out = outgoing.get(source);
+        if (out == null) return targets;
+        for (Edge<L> e : out.values()) {
+            targets.put(e.getTarget(), e.getWeight());
+        }
+        return targets;
+    }
+
+    // toString()
+    @Override public String toString() {
+        if (outgoing.isEmpty()) return "The graph is empty, nothing to print";
+        StringBuilder all = new StringBuilder("Vertices: ");
+        for (L v : outgoing.keySet()) {
+            all.append(v + " ");
+        }
+        all.append("\nEdges: ");
+        StringBuilder edges = new StringBuilder();
+        for (Map<L, Edge<L>> out : outgoing.values()) {
+            for (Edge<L> e : out.values()) {
+                edges.append(e.toString());
+            }
+        }
+        if (edges.length() == 0) return all + "empty edges";
+        return all.append(edges).toString();
+    }
+}
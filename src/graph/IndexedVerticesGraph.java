@@ -0,0 +1,185 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An implementation of Graph that indexes its vertices by label.
+ *
+ * <p>Uses the same mutable {@link Vertex} as ConcreteVerticesGraph, but keeps
+ * the vertices in a map from label to Vertex, and relies on each Vertex
+ * tracking both its outgoing and its incoming edges. {@code add}, {@code set}
+ * and {@code increment} run in expected O(1) time; {@code remove},
+ * {@code sources} and {@code targets} run in O(degree) time.
+ */
+public class IndexedVerticesGraph<L> implements Graph<L> {
+
+    private final Map<L, Vertex<L>> vertices = new LinkedHashMap<>();
+    private final ValidationPolicy validation;
+    private long mutations = 0;
+
+    // Abstraction function:
+    //   A collection of vertices that comprise a graph, each with its edges
+    //   to other vertices; vertices are kept in the order they were added
+    // Representation invariant:
+    //   vertices.get(l).getLabel() equals l for every key l
+    //   Every vertex connected to a vertex of the graph is in the graph
+    //   mutations is the number of mutations so far, counted for validation
+    // Safety from rep exposure:
+    //   Fields are private, and all but mutations are final
+    //   Do not return references to {@code vertices} or to any Vertex
+    //   Views are unmodifiable, and translate vertices to their labels
+
+    // constructor
+    public IndexedVerticesGraph() {
+        this(ValidationPolicy.getDefault());
+    }
+
+    /**
+     * Create an empty graph.
+     *
+     * @param validation how often to check the rep invariant after mutations
+     */
+    public IndexedVerticesGraph(ValidationPolicy validation) {
+        this.validation = validation;
+    }
+
+    // checkRep
+    private void checkRep() {
+        for (Map.Entry<L, Vertex<L>> entry : vertices.entrySet()) {
+            Vertex<L> v = entry.getValue();
+            assert v.getLabel().equals(entry.getKey());
+            v.checkRep();
+            for (Vertex<L> t : v.getVerticesFrom()) {
+                assert vertices.get(t.getLabel()) == t;
+            }
+        }
+    }
+
+    // Check the rep after a mutation of the edge source -> target (or of the
+    // vertex source, if source == target), as the validation policy asks.
+    private void checkRep(L source, L target) {
+        if (validation.checkFull(++mutations)) {
+            checkRep();
+        }
+        else if (validation.checkIncremental()) {
+            Vertex<L> s = vertices.get(source);
+            Vertex<L> t = vertices.get(target);
+            assert s == null || s.getLabel().equals(source);
+            assert t == null || t.getLabel().equals(target);
+            if (s != null && t != null && s != t) s.checkEdgeTo(t);
+        }
+    }
+
+    @Override public void validate() {
+        Graph.super.validate();
+        checkRep();
+    }
+
+    /** @return the vertex with the given label, adding it if it does not exist */
+    private Vertex<L> vertex(L label) {
+        Vertex<L> v = vertices.get(label);
+        if (v == null) {
+            v = new Vertex<L>(label);
+            vertices.put(label, v);
+        }
+        return v;
+    }
+
+    @Override public boolean add(L vertex) {
+        if (vertices.containsKey(vertex)) return false;
+        vertices.put(vertex, new Vertex<L>(vertex));
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override public int set(L source, L target, int weight) {
+        if (weight < 0) throw new RuntimeException("Weight must be larger than 0");
+        Vertex<L> s = vertices.get(source);
+        Vertex<L> t = vertices.get(target);
+        if (weight == 0 && (s == null || t == null)) return 0;
+        int prev = vertex(source).addWeightTo(vertex(target), weight);
+        checkRep(source, target);
+        return prev;
+    }
+
+    @Override public int increment(L source, L target, int delta) {
+        Vertex<L> s = vertices.get(source);
+        Vertex<L> t = vertices.get(target);
+        int prev = (s == null || t == null) ? 0 : s.getWeightTo(t);
+        if (prev + delta < 0) throw new RuntimeException("Weight must be larger than 0");
+        if (prev + delta == 0 && prev == 0) return 0;
+        vertex(source).addWeightTo(vertex(target), prev + delta);
+        checkRep(source, target);
+        return prev;
+    }
+
+    @Override public boolean remove(L vertex) {
+        Vertex<L> v = vertices.remove(vertex);
+        if (v == null) return false;
+        v.unlink();
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override public Set<L> vertices() {
+        return new HashSet<L>(vertices.keySet());
+    }
+
+    /** @return a live view of the vertices */
+    @Override public Set<L> vertexView() {
+        return Collections.unmodifiableSet(vertices.keySet());
+    }
+
+    /** @return a live view of the incoming edges of target, until target is removed */
+    @Override public Map<L, Integer> sourcesView(L target) {
+        Vertex<L> t = vertices.get(target);
+        return t == null ? Collections.emptyMap() : view(t.getSourceWeights());
+    }
+
+    /** @return a live view of the outgoing edges of source, until source is removed */
+    @Override public Map<L, Integer> targetsView(L source) {
+        Vertex<L> s = vertices.get(source);
+        return s == null ? Collections.emptyMap() : view(s.getTargetWeights());
+    }
+
+    private Map<L, Integer> view(Map<Vertex<L>, Integer> row) {
+        return new EdgeRowView<L, Vertex<L>, Integer>(row, vertices::get, Vertex::getLabel, Integer::intValue);
+    }
+
+    @Override public Map<L, Integer> sources(L target) {
+        Map<L, Integer> sources = new HashMap<>();
+        Vertex<L> t = vertices.get(target);
+        if (t == null) return sources;
+        for (Vertex<L> s : t.getSources()) {
+            sources.put(s.getLabel(), t.getWeightFrom(s));
+        }
+        return sources;
+    }
+
+    @Override public Map<L, Integer> targets(L source) {
+        Map<L, Integer> targets = new HashMap<>();
+        Vertex<L> s = vertices.get(source);
+        if (s == null) return targets;
+        for (Vertex<L> t : s.getVerticesFrom()) {
+            targets.put(t.getLabel(), s.getWeightTo(t));
+        }
+        return targets;
+    }
+
+    // toString()
+    @Override public String toString() {
+        StringBuilder rep = new StringBuilder();
+        for (Vertex<L> v : vertices.values()) {
+            rep.append(v.toString() + "\n");
+        }
+        return rep.toString();
+    }
+}
@@ -0,0 +1,148 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A graph that forwards every call to another graph, and records the
+ * latency of each call, and the size of the set or map it returns, into
+ * {@link GraphMetrics}. Calls that throw are not recorded.
+ *
+ * <p>Recording a call costs two reads of {@link System#nanoTime()} and a few
+ * uncontended additions, tens of nanoseconds in all, so the latencies of the
+ * fastest operations include some of that overhead.
+ *
+ * <p>Safe for use by multiple threads if the wrapped graph is.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class InstrumentedGraph<L> implements Graph<L> {
+
+    private final Graph<L> graph;
+    private final GraphMetrics metrics;
+
+    // Abstraction function:
+    //   Represent the same graph as graph
+    // Representation invariant:
+    //   graph and metrics are not null
+    // Safety from rep exposure:
+    //   All fields are private and final; graph and metrics are shared with
+    //   the client on purpose, and results of graph are returned as they are
+    // Thread safety argument:
+    //   Calls are forwarded to graph, and metrics is thread-safe
+
+    /**
+     * Wrap a graph, recording into new metrics.
+     *
+     * @param graph graph to forward calls to
+     */
+    public InstrumentedGraph(Graph<L> graph) {
+        this(graph, new GraphMetrics());
+    }
+
+    /**
+     * Wrap a graph.
+     *
+     * @param graph graph to forward calls to; calls made to it directly are
+     *              not recorded
+     * @param metrics metrics to record into, which may be shared with other graphs
+     */
+    public InstrumentedGraph(Graph<L> graph, GraphMetrics metrics) {
+        if (graph == null) throw new NullPointerException("graph");
+        if (metrics == null) throw new NullPointerException("metrics");
+        this.graph = graph;
+        this.metrics = metrics;
+    }
+
+    /** @return the graph this graph forwards calls to */
+    public Graph<L> delegate() {
+        return graph;
+    }
+
+    /** @return the metrics this graph records into */
+    public GraphMetrics metrics() {
+        return metrics;
+    }
+
+    @Override public boolean add(L vertex) {
+        long start = System.nanoTime();
+        boolean added = graph.add(vertex);
+        metrics.record(GraphOperation.ADD, System.nanoTime() - start);
+        return added;
+    }
+
+    @Override public int set(L source, L target, int weight) {
+        long start = System.nanoTime();
+        int previous = graph.set(source, target, weight);
+        metrics.record(GraphOperation.SET, System.nanoTime() - start);
+        return previous;
+    }
+
+    @Override public int increment(L source, L target, int delta) {
+        long start = System.nanoTime();
+        int previous = graph.increment(source, target, delta);
+        metrics.record(GraphOperation.INCREMENT, System.nanoTime() - start);
+        return previous;
+    }
+
+    @Override public boolean remove(L vertex) {
+        long start = System.nanoTime();
+        boolean removed = graph.remove(vertex);
+        metrics.record(GraphOperation.REMOVE, System.nanoTime() - start);
+        return removed;
+    }
+
+    @Override public Set<L> vertices() {
+        long start = System.nanoTime();
+        Set<L> vertices = graph.vertices();
+        metrics.record(GraphOperation.VERTICES, System.nanoTime() - start, vertices.size());
+        return vertices;
+    }
+
+    @Override public Map<L, Integer> sources(L target) {
+        long start = System.nanoTime();
+        Map<L, Integer> sources = graph.sources(target);
+        metrics.record(GraphOperation.SOURCES, System.nanoTime() - start, sources.size());
+        return sources;
+    }
+
+    @Override public Map<L, Integer> targets(L source) {
+        long start = System.nanoTime();
+        Map<L, Integer> targets = graph.targets(source);
+        metrics.record(GraphOperation.TARGETS, System.nanoTime() - start, targets.size());
+        return targets;
+    }
+
+    @Override public Set<L> vertexView() {
+        long start = System.nanoTime();
+        Set<L> vertices = graph.vertexView();
+        metrics.record(GraphOperation.VERTEX_VIEW, System.nanoTime() - start, vertices.size());
+        return vertices;
+    }
+
+    @Override public Map<L, Integer> sourcesView(L target) {
+        long start = System.nanoTime();
+        Map<L, Integer> sources = graph.sourcesView(target);
+        metrics.record(GraphOperation.SOURCES_VIEW, System.nanoTime() - start, sources.size());
+        return sources;
+    }
+
+    @Override public Map<L, Integer> targetsView(L source) {
+        long start = System.nanoTime();
+        Map<L, Integer> targets = graph.targetsView(source);
+        metrics.record(GraphOperation.TARGETS_VIEW, System.nanoTime() - start, targets.size());
+        return targets;
+    }
+
+    // Not recorded: validation is a check, not an operation of the graph
+    @Override public void validate() {
+        graph.validate();
+    }
+
+    @Override public String toString() {
+        return graph.toString();
+    }
+}
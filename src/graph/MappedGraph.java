@@ -0,0 +1,391 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * An immutable Graph of String labels, served straight from a memory-mapped
+ * binary snapshot file.
+ *
+ * <p>A snapshot is written by {@link #write(Graph, Path)} and opened by
+ * {@link #open(Path)}. Opening maps the file and verifies its checksum but
+ * builds no objects, so it takes a fraction of a second even for large
+ * graphs; each query then decodes only the labels and edges it returns.
+ *
+ * <p>Snapshot format, version 1; all ints are 4-byte big-endian, varints are
+ * unsigned LEB128:
+ * <pre>
+ *   magic "GPSN", version, n (number of vertices), m (number of edges)
+ *   vocabulary:  int[n+1] offsets, then the UTF-8 bytes of the n labels,
+ *                sorted in unsigned byte order; a vertex's id is its index
+ *   outgoing:    int[n+1] offsets, then for each vertex in id order its
+ *                edges sorted by target id, each as two varints:
+ *                target id minus the previous target id in the row (or
+ *                minus 0 for the first), and weight
+ *   incoming:    the same, with sources instead of targets
+ *   checksum:    CRC-32 of all the bytes above
+ * </pre>
+ * Offsets are relative to the first byte after their table.
+ * Snapshots are limited to 2 GB.
+ *
+ * <p>The mutators {@link #add(Object) add}, {@link #set(Object, Object, int) set},
+ * {@link #increment(Object, Object, int) increment} and {@link #remove(Object) remove}
+ * throw UnsupportedOperationException. Safe for use by multiple threads.
+ */
+public class MappedGraph implements Graph<String> {
+
+    private static final int MAGIC = 0x4750534e; // "GPSN"
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+
+    private final ByteBuffer buffer;
+    private final int n;
+    private final int m;
+    private final int vocabulary;
+    private final int outgoing;
+    private final int incoming;
+
+    // Abstraction function:
+    //   Represent the graph described by the snapshot in buffer, as laid out
+    //   above, whose vocabulary, outgoing and incoming sections start at the
+    //   positions vocabulary, outgoing and incoming
+    // Representation invariant:
+    //   buffer holds a snapshot of n vertices and m edges that matches its checksum
+    //   Offset tables are non-decreasing and end within their sections
+    // Safety from rep exposure:
+    //   All fields are private and final, and buffer is only read, by
+    //   absolute position; methods return fresh Strings and maps
+    // Thread safety argument:
+    //   buffer is never written after open(), and absolute reads do not
+    //   touch its position, so any number of threads may read it at once
+
+    private MappedGraph(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER + 4 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a graph snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported graph snapshot version " + buffer.getInt(4));
+        }
+        this.n = buffer.getInt(8);
+        this.m = buffer.getInt(12);
+        int end = buffer.capacity() - 4;
+        this.vocabulary = HEADER;
+        this.outgoing = section(vocabulary, end);
+        this.incoming = section(outgoing, end);
+        if (section(incoming, end) != end) throw new IOException("corrupt graph snapshot: bad length");
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(0).limit(end));
+        if ((int) crc.getValue() != buffer.getInt(end)) {
+            throw new IOException("corrupt graph snapshot: checksum mismatch");
+        }
+        checkRep();
+    }
+
+    /**
+     * Check the bounds of a section.
+     *
+     * @return the position of the first byte after the section that starts at start
+     */
+    private int section(int start, int end) throws IOException {
+        if (n < 0 || m < 0 || (long) start + 4L * (n + 1) > end) {
+            throw new IOException("corrupt graph snapshot: bad section");
+        }
+        int data = start + 4 * (n + 1);
+        int length = buffer.getInt(start + 4 * n);
+        if (length < 0 || buffer.getInt(start) != 0 || (long) data + length > end) {
+            throw new IOException("corrupt graph snapshot: bad section");
+        }
+        return data + length;
+    }
+
+    // checkRep
+    private void checkRep() {
+        for (int section : new int[] { vocabulary, outgoing, incoming }) {
+            for (int i = 0; i < n; i++) {
+                assert buffer.getInt(section + 4 * i) <= buffer.getInt(section + 4 * (i + 1));
+            }
+        }
+    }
+
+    /**
+     * Write a snapshot of a graph. The file is written under a temporary name
+     * and then moved into place, so readers never see a partial snapshot.
+     *
+     * @param graph graph to save; it is not modified
+     * @param path file to write, replaced if it exists
+     * @throws IOException if the file cannot be written, or the snapshot
+     *         would be larger than 2 GB
+     */
+    public static void write(Graph<String> graph, Path path) throws IOException {
+        Set<String> vertices = graph.vertexView();
+        byte[][] words = new byte[vertices.size()][];
+        int n = 0;
+        for (String v : vertices) {
+            words[n++] = v.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(words, Arrays::compareUnsigned);
+        Map<String, Integer> ids = new HashMap<>(n * 4 / 3 + 1);
+        String[] labels = new String[n];
+        for (int i = 0; i < n; i++) {
+            labels[i] = new String(words[i], StandardCharsets.UTF_8);
+            ids.put(labels[i], i);
+        }
+
+        Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (OutputStream file = Files.newOutputStream(tmp);
+                    DataOutputStream out = new DataOutputStream(
+                            new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc))) {
+                Rows rowsOut = new Rows(n);
+                Rows rowsIn = new Rows(n);
+                for (int i = 0; i < n; i++) {
+                    rowsOut.add(ids, graph.targetsView(labels[i]));
+                    rowsIn.add(ids, graph.sourcesView(labels[i]));
+                }
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(n);
+                out.writeInt(rowsOut.edges);
+                long offset = 0;
+                out.writeInt(0);
+                for (byte[] word : words) {
+                    offset += word.length;
+                    if (offset > Integer.MAX_VALUE) throw new IOException("graph snapshot would be larger than 2 GB");
+                    out.writeInt((int) offset);
+                }
+                for (byte[] word : words) {
+                    out.write(word);
+                }
+                rowsOut.writeTo(out);
+                rowsIn.writeTo(out);
+                // size() stops counting at Integer.MAX_VALUE
+                if (out.size() > Integer.MAX_VALUE - 4) throw new IOException("graph snapshot would be larger than 2 GB");
+                out.writeInt((int) crc.getValue());
+            }
+            try {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Open a snapshot written by {@link #write(Graph, Path)}.
+     * The file stays mapped until the graph is garbage collected, and must
+     * not be modified meanwhile.
+     *
+     * @param path snapshot file
+     * @return a graph with the vertices and edges of the snapshot
+     * @throws IOException if the file cannot be read, or is not a valid snapshot
+     */
+    public static MappedGraph open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("graph snapshot is larger than 2 GB");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedGraph(buffer);
+        }
+    }
+
+    /** @throws UnsupportedOperationException always; a MappedGraph is immutable */
+    @Override public boolean add(String vertex) {
+        throw new UnsupportedOperationException("MappedGraph is immutable");
+    }
+
+    /** @throws UnsupportedOperationException always; a MappedGraph is immutable */
+    @Override public int set(String source, String target, int weight) {
+        throw new UnsupportedOperationException("MappedGraph is immutable");
+    }
+
+    /** @throws UnsupportedOperationException always; a MappedGraph is immutable */
+    @Override public int increment(String source, String target, int delta) {
+        throw new UnsupportedOperationException("MappedGraph is immutable");
+    }
+
+    /** @throws UnsupportedOperationException always; a MappedGraph is immutable */
+    @Override public boolean remove(String vertex) {
+        throw new UnsupportedOperationException("MappedGraph is immutable");
+    }
+
+    @Override public Set<String> vertices() {
+        Set<String> vertices = new HashSet<>(n * 4 / 3 + 1);
+        for (int i = 0; i < n; i++) {
+            vertices.add(label(i));
+        }
+        return vertices;
+    }
+
+    @Override public Map<String, Integer> sources(String target) {
+        return row(incoming, id(target));
+    }
+
+    @Override public Map<String, Integer> targets(String source) {
+        return row(outgoing, id(source));
+    }
+
+    /** @return the number of edges of this graph */
+    public int edgeCount() {
+        return m;
+    }
+
+    /** @return the label of the vertex with the given id */
+    private String label(int id) {
+        int start = buffer.getInt(vocabulary + 4 * id);
+        int end = buffer.getInt(vocabulary + 4 * (id + 1));
+        byte[] bytes = new byte[end - start];
+        buffer.get(vocabulary + 4 * (n + 1) + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** @return the id of the vertex with the given label, or -1 if there is none */
+    private int id(String label) {
+        byte[] key = label.getBytes(StandardCharsets.UTF_8);
+        int data = vocabulary + 4 * (n + 1);
+        int lo = 0;
+        int hi = n - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int start = buffer.getInt(vocabulary + 4 * mid);
+            int end = buffer.getInt(vocabulary + 4 * (mid + 1));
+            int cmp = compare(data + start, end - start, key);
+            if (cmp < 0) lo = mid + 1;
+            else if (cmp > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /** Compare length bytes of the buffer at position with key, in unsigned byte order. */
+    private int compare(int position, int length, byte[] key) {
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(buffer.get(position + i) & 0xff, key[i] & 0xff);
+            if (cmp != 0) return cmp;
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    /** @return the row of vertex id in the given adjacency section, decoded into a new map */
+    private Map<String, Integer> row(int section, int id) {
+        Map<String, Integer> row = new HashMap<>();
+        if (id < 0) return row;
+        int data = section + 4 * (n + 1);
+        int[] at = { data + buffer.getInt(section + 4 * id) };
+        int end = data + buffer.getInt(section + 4 * (id + 1));
+        int other = 0;
+        while (at[0] < end) {
+            other += readVarint(at);
+            row.put(label(other), readVarint(at));
+        }
+        return row;
+    }
+
+    /** Read a varint at at[0], advancing at[0] past it. */
+    private int readVarint(int[] at) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get(at[0]++);
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    // toString()
+    @Override public String toString() {
+        if (n == 0) return "The graph is empty, nothing to print";
+        StringBuilder all = new StringBuilder("Vertices: ");
+        for (int i = 0; i < n; i++) {
+            all.append(label(i) + " ");
+        }
+        all.append("\nEdges: ");
+        if (m == 0) return all + "empty edges";
+        for (int i = 0; i < n; i++) {
+            for (Map.Entry<String, Integer> e : row(outgoing, i).entrySet()) {
+                all.append(label(i) + " ---> " + e.getKey() + ", weight = " + e.getValue() + "\n");
+            }
+        }
+        return all.toString();
+    }
+
+    /**
+     * The varint-encoded rows of one adjacency section, built one vertex at
+     * a time in id order.
+     */
+    private static class Rows {
+
+        private final int[] offsets;
+        private byte[] bytes = new byte[1 << 12];
+        private int length = 0;
+        private int rows = 0;
+        private int edges = 0;
+
+        Rows(int n) {
+            offsets = new int[n + 1];
+        }
+
+        /** Encode the next row, given as a map from label to weight. */
+        void add(Map<String, Integer> ids, Map<String, Integer> row) throws IOException {
+            long[] packed = new long[row.size()];
+            int k = 0;
+            for (Map.Entry<String, Integer> e : row.entrySet()) {
+                packed[k++] = ((long) ids.get(e.getKey()) << 32) | (e.getValue() & 0xffffffffL);
+            }
+            Arrays.sort(packed);
+            int prev = 0;
+            for (long edge : packed) {
+                int id = (int) (edge >>> 32);
+                writeVarint(id - prev);
+                writeVarint((int) edge);
+                prev = id;
+            }
+            edges += packed.length;
+            offsets[++rows] = length;
+        }
+
+        private void writeVarint(int value) throws IOException {
+            if (length + 5 > bytes.length) {
+                if (bytes.length == Integer.MAX_VALUE - 8) throw new IOException("graph snapshot would be larger than 2 GB");
+                bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8, 2L * bytes.length));
+            }
+            while ((value & ~0x7f) != 0) {
+                bytes[length++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            out.write(bytes, 0, length);
+        }
+    }
+}
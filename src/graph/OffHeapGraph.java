@@ -0,0 +1,882 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A mutable Graph whose vertices, edges and label index are stored outside
+ * the Java heap, in direct memory or in a memory-mapped file, so that the
+ * garbage collector has no work proportional to the number of edges. Only
+ * the labels themselves are kept on the heap, in a list indexed by vertex id.
+ *
+ * <p>The off-heap memory is an arena of {@link OffHeapMemory} that only
+ * grows. It holds a header, then tables allocated one after the other:
+ * <ul><li> a table of vertex records, indexed by vertex id: the position,
+ *          length and capacity of the vertex's row of targets and of its row
+ *          of sources, the position, length and capacity of its label (in
+ *          a file), and the next free id if the vertex was removed;
+ *     <li> an open-addressing hash table from label hash codes to vertex ids,
+ *          whose keys are compared with the labels on the heap;
+ *     <li> an open-addressing hash table of edges, keyed by (source id,
+ *          target id), holding the weight of each edge and its positions in
+ *          the rows of its source and target;
+ *     <li> the rows: arrays of vertex ids. </ul>
+ * Tables and rows that outgrow their space are copied to twice the space at
+ * the end of the arena; the old space is not reused, but since sizes double
+ * it is less than the space in use. Removed edges free their slots for the
+ * next edges, and a removed vertex frees its id for the next vertex, which
+ * takes over its rows and the space of its label: label space is rounded up
+ * to a power of two, and only moves when a longer label needs more, so the
+ * memory of a graph whose vertices come and go stays bounded.
+ * {@code add}, {@code set} and {@code increment} run in expected amortized
+ * O(1) time; {@code remove}, {@code sources} and {@code targets} in O(degree).
+ *
+ * <p>A graph of String labels created by {@link #create(Path)} is stored in
+ * a file, with its labels in UTF-8, and can be opened again by
+ * {@link #open(Path)} to read and mutate it, or by {@link #openReadOnly(Path)}
+ * to only read it. The file is locked until the graph is closed: exclusively
+ * by {@code create} and {@code open}, so that one graph at a time mutates it
+ * and no other reads it meanwhile, and shared by {@code openReadOnly}, so
+ * that graphs in several processes may read it at once. Opening a file that
+ * is locked otherwise fails. Since file locks are held by whole processes,
+ * opening a file that another graph of the same process has open fails too,
+ * without touching the file, whose lock would be lost if it were opened and
+ * closed again.
+ * All ints and longs in the file are big-endian.
+ *
+ * <p>Not safe for use by multiple threads.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class OffHeapGraph<L> implements Graph<L>, Closeable {
+
+    private static final int MAGIC = 0x47504f48; // "GPOH"
+    private static final int VERSION = 2;
+
+    // header fields, by byte position
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_TOP = 8;
+    private static final int H_VERTICES = 16;
+    private static final int H_VERTEX_CAPACITY = 24;
+    private static final int H_VERTEX_HIGH = 28;
+    private static final int H_FREE = 32;
+    private static final int H_VERTEX_COUNT = 36;
+    private static final int H_IDS = 40;
+    private static final int H_ID_BITS = 48;
+    private static final int H_EDGE_BITS = 52;
+    private static final int H_EDGES = 56;
+    private static final int H_EDGE_COUNT = 64;
+    private static final int HEADER = 72;
+
+    // vertex record fields, by byte offset in the record
+    private static final int V_OUT = 0;
+    private static final int V_IN = 8;
+    private static final int V_LABEL = 16;
+    private static final int V_OUT_LENGTH = 24;
+    private static final int V_OUT_CAPACITY = 28;
+    private static final int V_IN_LENGTH = 32;
+    private static final int V_IN_CAPACITY = 36;
+    private static final int V_LABEL_LENGTH = 40;
+    private static final int V_NEXT = 44;
+    private static final int V_LABEL_CAPACITY = 48;
+    private static final int VERTEX = 56;
+    /** V_NEXT of a vertex in the graph; otherwise, the next free id or -1. */
+    private static final int LIVE = -2;
+
+    // edge entry fields, by byte offset in the entry; weight 0 marks an empty slot
+    private static final int E_SOURCE = 0;
+    private static final int E_TARGET = 4;
+    private static final int E_WEIGHT = 8;
+    private static final int E_OUT_POSITION = 12;
+    private static final int E_IN_POSITION = 16;
+    private static final int EDGE = 20;
+
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
+    // real paths of the files open by graphs of this process
+    private static final Set<Path> OPEN_FILES = ConcurrentHashMap.newKeySet();
+
+    private final OffHeapMemory memory;
+    private final FileChannel file;
+    private final Path key;
+    private final boolean readOnly;
+    private final Function<L, byte[]> encoder;
+    private final List<L> labels;
+    private final ValidationPolicy validation;
+    private long mutations = 0;
+
+    // cached header fields
+    private long top;
+    private long vertices;
+    private int vertexCapacity;
+    private int vertexHigh;
+    private int free;
+    private int vertexCount;
+    private long ids;
+    private int idBits;
+    private int edgeBits;
+    private long edges;
+    private long edgeCount;
+
+    // Abstraction function:
+    //   Represent the graph whose vertices are the non-null labels.get(v),
+    //   and whose edges are source -> target of weight w for every non-empty
+    //   entry (source, target, w, ...) of the edge table at position edges
+    //   in memory, where source and target are vertex ids
+    // Representation invariant:
+    //   the header in memory holds the values of the cached header fields
+    //   labels.size() == vertexHigh <= vertexCapacity; labels.get(v) is not
+    //   null iff the record of v has V_NEXT == LIVE; the other ids below
+    //   vertexHigh form the free list that starts at free
+    //   vertexCount is the number of non-null labels
+    //   the id table has 2^idBits int slots, 0 if empty and v + 1 for every
+    //   live vertex v, placed by linear probing from hash(labels.get(v)),
+    //   and is at most half full
+    //   the edge table has 2^edgeBits entries, edgeCount of them non-empty,
+    //   and is at most half full; an entry (s, t, w, i, j) is placed by
+    //   linear probing from hash(s, t), has w > 0, and is the only entry of
+    //   s -> t; the row of targets of s holds t at position i, the row of
+    //   sources of t holds s at position j, and every position of every row
+    //   below its length is the position of exactly one edge
+    //   if encoder is not null, the record of every live vertex v holds the
+    //   position and length of encoder(labels.get(v)) in memory, and the
+    //   capacity of the space at that position, positive and at least that
+    //   length, even for an empty label
+    //   every table, row and label lies between HEADER and top; top <= memory.size()
+    //   readOnly iff memory.readOnly(), and then file is not null
+    //   key is not null iff file is not null, and OPEN_FILES contains key
+    //   while file is open
+    // Safety from rep exposure:
+    //   All fields are private; memory and labels are never returned, and
+    //   methods return fresh sets and maps
+
+    /**
+     * Create an empty graph in direct memory.
+     */
+    public OffHeapGraph() {
+        this(ValidationPolicy.getDefault());
+    }
+
+    /**
+     * Create an empty graph in direct memory.
+     *
+     * @param validation how often to check the rep invariant after mutations
+     */
+    public OffHeapGraph(ValidationPolicy validation) {
+        this(OffHeapMemory.allocate(OffHeapMemory.CHUNK_BITS), null, null, null, validation);
+    }
+
+    /**
+     * Create an empty graph in direct memory split into small chunks, to
+     * test graphs that span several chunks.
+     *
+     * @param chunkBits log2 of the chunk size, at least 3
+     */
+    OffHeapGraph(int chunkBits) {
+        this(OffHeapMemory.allocate(chunkBits), null, null, null, ValidationPolicy.getDefault());
+    }
+
+    /** Create an empty graph in memory, with labels stored as encoded by encoder if it is not null. */
+    private OffHeapGraph(OffHeapMemory memory, FileChannel file, Path key, Function<L, byte[]> encoder,
+            ValidationPolicy validation) {
+        this.memory = memory;
+        this.file = file;
+        this.key = key;
+        this.readOnly = false;
+        this.encoder = encoder;
+        this.labels = new ArrayList<>();
+        this.validation = validation;
+        top = HEADER;
+        vertexCapacity = 8;
+        vertices = allocate((long) VERTEX * vertexCapacity);
+        vertexHigh = 0;
+        free = -1;
+        vertexCount = 0;
+        idBits = 4;
+        ids = allocate(4L << idBits);
+        edgeBits = 4;
+        edges = allocate((long) EDGE << edgeBits);
+        edgeCount = 0;
+        memory.putInt(H_MAGIC, MAGIC);
+        memory.putInt(H_VERSION, VERSION);
+        writeHeader();
+        checkRep();
+    }
+
+    /** Open the graph stored in memory, whose labels have already been decoded. */
+    private OffHeapGraph(OffHeapMemory memory, FileChannel file, Path key, Function<L, byte[]> encoder,
+            List<L> labels) {
+        this.memory = memory;
+        this.file = file;
+        this.key = key;
+        this.readOnly = memory.readOnly();
+        this.encoder = encoder;
+        this.labels = labels;
+        this.validation = ValidationPolicy.getDefault();
+        readHeader();
+        checkRep();
+    }
+
+    /**
+     * Create an empty graph of String labels in a file, replacing the file
+     * if it exists. The file is mapped into memory and grows with the graph,
+     * and is locked exclusively until the graph is closed.
+     *
+     * @param path file to create
+     * @return an empty graph stored in path
+     * @throws IOException if the file cannot be created or mapped, or is
+     *                     open by another graph
+     */
+    public static OffHeapGraph<String> create(Path path) throws IOException {
+        Path key = register(path);
+        FileChannel file = null;
+        try {
+            file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            lock(file, false);
+            file.truncate(0);
+            return new OffHeapGraph<>(OffHeapMemory.map(file, OffHeapMemory.CHUNK_BITS), file, key,
+                    label -> label.getBytes(StandardCharsets.UTF_8), ValidationPolicy.getDefault());
+        }
+        catch (IOException | RuntimeException e) {
+            release(file, key);
+            throw e;
+        }
+    }
+
+    /**
+     * Open a graph of String labels stored in a file by {@link #create(Path)}.
+     * The file is mapped into memory; only its labels are read, to build the
+     * label list on the heap. Mutations of the returned graph change the file,
+     * which is locked exclusively until the graph is closed.
+     *
+     * @param path file to open
+     * @return the graph stored in path
+     * @throws IOException if the file cannot be read, written or mapped, is
+     *                     not a graph, or is open by another graph
+     */
+    public static OffHeapGraph<String> open(Path path) throws IOException {
+        return open(path, false);
+    }
+
+    /**
+     * Open a graph of String labels stored in a file by {@link #create(Path)},
+     * only to read it. The file is mapped into memory read-only, and is
+     * locked shared until the graph is closed, so that other graphs may read
+     * it meanwhile but none may mutate it.
+     *
+     * @param path file to open; need only be readable
+     * @return the graph stored in path, whose mutators throw
+     *         UnsupportedOperationException
+     * @throws IOException if the file cannot be read or mapped, is not a
+     *                     graph, or is open by a graph that may mutate it
+     */
+    public static OffHeapGraph<String> openReadOnly(Path path) throws IOException {
+        return open(path, true);
+    }
+
+    private static OffHeapGraph<String> open(Path path, boolean readOnly) throws IOException {
+        Path key = register(path);
+        FileChannel file = null;
+        try {
+            file = readOnly ? FileChannel.open(path, StandardOpenOption.READ)
+                    : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            lock(file, readOnly);
+            long size = file.size();
+            if (size < HEADER) throw new IOException("not an off-heap graph");
+            OffHeapMemory memory = readOnly ? OffHeapMemory.mapReadOnly(file, OffHeapMemory.CHUNK_BITS)
+                    : OffHeapMemory.map(file, OffHeapMemory.CHUNK_BITS);
+            if (memory.getInt(H_MAGIC) != MAGIC) throw new IOException("not an off-heap graph");
+            if (memory.getInt(H_VERSION) != VERSION) {
+                throw new IOException("unsupported off-heap graph version " + memory.getInt(H_VERSION));
+            }
+            long top = memory.getLong(H_TOP);
+            long vertices = memory.getLong(H_VERTICES);
+            int high = memory.getInt(H_VERTEX_HIGH);
+            if (top < HEADER || top > size || high < 0 || vertices < HEADER
+                    || vertices + (long) VERTEX * high > top) {
+                throw new IOException("corrupt off-heap graph");
+            }
+            List<String> labels = new ArrayList<>(high);
+            for (int v = 0; v < high; v++) {
+                long record = vertices + (long) VERTEX * v;
+                if (memory.getInt(record + V_NEXT) != LIVE) {
+                    labels.add(null);
+                    continue;
+                }
+                long position = memory.getLong(record + V_LABEL);
+                int length = memory.getInt(record + V_LABEL_LENGTH);
+                if (length < 0 || length > memory.getInt(record + V_LABEL_CAPACITY)
+                        || position < HEADER || position + length > top) {
+                    throw new IOException("corrupt off-heap graph");
+                }
+                byte[] bytes = new byte[length];
+                memory.get(position, bytes);
+                labels.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            return new OffHeapGraph<>(memory, file, key, label -> label.getBytes(StandardCharsets.UTF_8), labels);
+        }
+        catch (IOException | RuntimeException e) {
+            release(file, key);
+            throw e;
+        }
+    }
+
+    /**
+     * Record that a file is open by a graph of this process.
+     *
+     * @param path file to open, which may not exist yet
+     * @return the real path of the file, to release when the file is closed
+     * @throws IOException if the file is already open by a graph of this
+     *                     process, or its real path cannot be found
+     */
+    private static Path register(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Path key = Files.exists(absolute) || absolute.getParent() == null ? absolute.toRealPath()
+                : absolute.getParent().toRealPath().resolve(absolute.getFileName());
+        if (!OPEN_FILES.add(key)) throw new IOException("off-heap graph is already open in this process");
+        return key;
+    }
+
+    /**
+     * Close a file, if it was opened, and record that it is no longer open.
+     *
+     * @param file file to close, or null
+     * @param key real path of file, as returned by register()
+     * @throws IOException if the file cannot be closed
+     */
+    private static void release(FileChannel file, Path key) throws IOException {
+        try {
+            if (file != null) file.close();
+        }
+        finally {
+            OPEN_FILES.remove(key);
+        }
+    }
+
+    /**
+     * Lock a whole file until it is closed.
+     *
+     * @param file file to lock, open for writing unless shared
+     * @param shared true for a shared lock, false for an exclusive one
+     * @throws IOException if the file is locked by another graph, in this
+     *                     process or another one, in a way that excludes the lock
+     */
+    private static void lock(FileChannel file, boolean shared) throws IOException {
+        FileLock lock;
+        try {
+            lock = file.tryLock(0, Long.MAX_VALUE, shared);
+        }
+        catch (OverlappingFileLockException e) {
+            throw new IOException("off-heap graph is locked by this process", e);
+        }
+        if (lock == null) throw new IOException("off-heap graph is locked by another process");
+    }
+
+    /**
+     * Write the changes to this graph to its file, so that the file can be
+     * opened by another graph once this one is closed. Does nothing for a
+     * graph in direct memory or opened read-only.
+     */
+    public void force() {
+        memory.force();
+    }
+
+    /**
+     * Force this graph to its file and close the file, releasing its lock.
+     * The graph can still be read, and mutated as long as it does not need
+     * more memory, but other graphs may then open the file; its memory is
+     * freed when it is garbage collected. Does nothing if the graph is in
+     * direct memory or already closed.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override public void close() throws IOException {
+        if (file == null || !file.isOpen()) return;
+        force();
+        release(file, key);
+    }
+
+    private void writeHeader() {
+        memory.putLong(H_TOP, top);
+        memory.putLong(H_VERTICES, vertices);
+        memory.putInt(H_VERTEX_CAPACITY, vertexCapacity);
+        memory.putInt(H_VERTEX_HIGH, vertexHigh);
+        memory.putInt(H_FREE, free);
+        memory.putInt(H_VERTEX_COUNT, vertexCount);
+        memory.putLong(H_IDS, ids);
+        memory.putInt(H_ID_BITS, idBits);
+        memory.putInt(H_EDGE_BITS, edgeBits);
+        memory.putLong(H_EDGES, edges);
+        memory.putLong(H_EDGE_COUNT, edgeCount);
+    }
+
+    private void readHeader() {
+        top = memory.getLong(H_TOP);
+        vertices = memory.getLong(H_VERTICES);
+        vertexCapacity = memory.getInt(H_VERTEX_CAPACITY);
+        vertexHigh = memory.getInt(H_VERTEX_HIGH);
+        free = memory.getInt(H_FREE);
+        vertexCount = memory.getInt(H_VERTEX_COUNT);
+        ids = memory.getLong(H_IDS);
+        idBits = memory.getInt(H_ID_BITS);
+        edgeBits = memory.getInt(H_EDGE_BITS);
+        edges = memory.getLong(H_EDGES);
+        edgeCount = memory.getLong(H_EDGE_COUNT);
+    }
+
+    private void checkWritable() {
+        if (readOnly) throw new UnsupportedOperationException("off-heap graph is open read-only");
+    }
+
+    // checkRep
+    private void checkRep() {
+        assert readOnly == memory.readOnly() && (!readOnly || file != null);
+        assert (key != null) == (file != null) && (file == null || !file.isOpen() || OPEN_FILES.contains(key));
+        assert memory.getLong(H_TOP) == top && memory.getLong(H_EDGE_COUNT) == edgeCount;
+        assert memory.getInt(H_VERTEX_COUNT) == vertexCount && memory.getInt(H_FREE) == free;
+        assert labels.size() == vertexHigh && vertexHigh <= vertexCapacity;
+        assert top <= memory.size();
+        int live = 0;
+        long outLengths = 0;
+        long inLengths = 0;
+        for (int v = 0; v < vertexHigh; v++) {
+            L label = labels.get(v);
+            assert (label != null) == (next(v) == LIVE);
+            if (label == null) continue;
+            live++;
+            assert id(label) == v;
+            long record = record(v);
+            assert encoder == null || memory.getInt(record + V_LABEL_LENGTH) <= memory.getInt(record + V_LABEL_CAPACITY)
+                    && memory.getInt(record + V_LABEL_CAPACITY) > 0 && memory.getLong(record + V_LABEL) >= HEADER;
+            for (int k = 0; k < memory.getInt(record + V_OUT_LENGTH); k++) {
+                long e = findEdge(v, rowGet(record + V_OUT, k));
+                assert e >= 0 && memory.getInt(entry(e) + E_OUT_POSITION) == k;
+            }
+            for (int k = 0; k < memory.getInt(record + V_IN_LENGTH); k++) {
+                long e = findEdge(rowGet(record + V_IN, k), v);
+                assert e >= 0 && memory.getInt(entry(e) + E_IN_POSITION) == k;
+            }
+            outLengths += memory.getInt(record + V_OUT_LENGTH);
+            inLengths += memory.getInt(record + V_IN_LENGTH);
+        }
+        assert live == vertexCount;
+        assert outLengths == edgeCount && inLengths == edgeCount;
+        assert 2 * edgeCount <= 1L << edgeBits && 2L * vertexCount <= 1L << idBits;
+        int freeCount = 0;
+        for (int v = free; v >= 0; v = next(v)) {
+            assert labels.get(v) == null;
+            freeCount++;
+        }
+        assert freeCount + vertexCount == vertexHigh;
+    }
+
+    // Check the rep after a mutation of the edge source -> target (or of the
+    // vertex source, if source == target), as the validation policy asks.
+    private void checkRep(L source, L target) {
+        if (validation.checkFull(++mutations)) {
+            checkRep();
+        }
+        else if (validation.checkIncremental()) {
+            assert memory.getLong(H_TOP) == top && memory.getLong(H_EDGE_COUNT) == edgeCount;
+            int s = id(source);
+            int t = id(target);
+            assert s < 0 || labels.get(s).equals(source);
+            assert t < 0 || labels.get(t).equals(target);
+            long e = s < 0 || t < 0 ? -1 : findEdge(s, t);
+            if (e >= 0) {
+                long entry = entry(e);
+                assert memory.getInt(entry + E_WEIGHT) > 0;
+                assert rowGet(record(s) + V_OUT, memory.getInt(entry + E_OUT_POSITION)) == t;
+                assert rowGet(record(t) + V_IN, memory.getInt(entry + E_IN_POSITION)) == s;
+            }
+        }
+    }
+
+    @Override public void validate() {
+        Graph.super.validate();
+        checkRep();
+    }
+
+    /** @return the position of size bytes of new zeroed memory, aligned to 8 bytes */
+    private long allocate(long size) {
+        long position = top;
+        top = (top + size + 7) & ~7L;
+        memory.ensure(top);
+        memory.putLong(H_TOP, top);
+        return position;
+    }
+
+    private long record(int vertex) {
+        return vertices + (long) VERTEX * vertex;
+    }
+
+    private int next(int vertex) {
+        return memory.getInt(record(vertex) + V_NEXT);
+    }
+
+    private long entry(long slot) {
+        return edges + EDGE * slot;
+    }
+
+    /** @return the k-th vertex id of the row whose position is at rowField of a record */
+    private int rowGet(long rowField, int k) {
+        return memory.getInt(memory.getLong(rowField) + 4L * k);
+    }
+
+    private static int home(int hash, int bits) {
+        return (int) ((hash * GOLDEN) >>> (64 - bits));
+    }
+
+    private static long home(int source, int target, int bits) {
+        return ((((long) source << 32) | (target & 0xffffffffL)) * GOLDEN) >>> (64 - bits);
+    }
+
+    /** @return the id of a label, or -1 if it is not a vertex */
+    private int id(Object label) {
+        int mask = (1 << idBits) - 1;
+        for (int slot = home(label.hashCode(), idBits); ; slot = (slot + 1) & mask) {
+            int v = memory.getInt(ids + 4L * slot);
+            if (v == 0) return -1;
+            if (labels.get(v - 1).equals(label)) return v - 1;
+        }
+    }
+
+    /**
+     * @return the slot of the edge source -> target, or -(s + 1) where s is
+     *         the empty slot where it would be inserted
+     */
+    private long findEdge(int source, int target) {
+        long mask = (1L << edgeBits) - 1;
+        for (long slot = home(source, target, edgeBits); ; slot = (slot + 1) & mask) {
+            long entry = entry(slot);
+            if (memory.getInt(entry + E_WEIGHT) == 0) return -(slot + 1);
+            if (memory.getInt(entry + E_SOURCE) == source && memory.getInt(entry + E_TARGET) == target) return slot;
+        }
+    }
+
+    /** @throws UnsupportedOperationException if this graph was opened read-only */
+    @Override public boolean add(L vertex) {
+        checkWritable();
+        if (vertex == null) throw new NullPointerException("vertex");
+        if (id(vertex) >= 0) return false;
+        addVertex(vertex);
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    /** Add a vertex that is not in the graph, and return its id. */
+    private int addVertex(L vertex) {
+        if (2L * (vertexCount + 1) > 1L << idBits) growIds();
+        int v;
+        if (free >= 0) {
+            v = free;
+            free = next(v);
+            labels.set(v, vertex);
+        }
+        else {
+            if (vertexHigh == vertexCapacity) growVertices();
+            v = vertexHigh++;
+            labels.add(vertex);
+        }
+        long record = record(v);
+        memory.putInt(record + V_NEXT, LIVE);
+        if (encoder != null) {
+            byte[] bytes = encoder.apply(vertex);
+            // a recycled id keeps the label space of its last vertex; a new
+            // id has none, even for an empty label
+            int oldCapacity = memory.getInt(record + V_LABEL_CAPACITY);
+            if (oldCapacity == 0 || bytes.length > oldCapacity) {
+                int capacity = (int) Math.min(Integer.MAX_VALUE, Long.highestOneBit(Math.max(8, bytes.length) * 2L - 1));
+                memory.putLong(record + V_LABEL, allocate(capacity));
+                memory.putInt(record + V_LABEL_CAPACITY, capacity);
+            }
+            memory.put(memory.getLong(record + V_LABEL), bytes);
+            memory.putInt(record + V_LABEL_LENGTH, bytes.length);
+        }
+        insertId(v);
+        vertexCount++;
+        writeHeader();
+        return v;
+    }
+
+    private void insertId(int vertex) {
+        int mask = (1 << idBits) - 1;
+        int slot = home(labels.get(vertex).hashCode(), idBits);
+        while (memory.getInt(ids + 4L * slot) != 0) slot = (slot + 1) & mask;
+        memory.putInt(ids + 4L * slot, vertex + 1);
+    }
+
+    private void growVertices() {
+        long old = vertices;
+        int oldCapacity = vertexCapacity;
+        vertexCapacity *= 2;
+        vertices = allocate((long) VERTEX * vertexCapacity);
+        for (long i = 0; i < (long) VERTEX * oldCapacity; i += 8) {
+            memory.putLong(vertices + i, memory.getLong(old + i));
+        }
+    }
+
+    private void growIds() {
+        idBits++;
+        ids = allocate(4L << idBits);
+        for (int v = 0; v < vertexHigh; v++) {
+            if (labels.get(v) != null) insertId(v);
+        }
+    }
+
+    private void growEdges() {
+        long old = edges;
+        long oldCapacity = 1L << edgeBits;
+        edgeBits++;
+        edges = allocate((long) EDGE << edgeBits);
+        for (long slot = 0; slot < oldCapacity; slot++) {
+            long from = old + EDGE * slot;
+            if (memory.getInt(from + E_WEIGHT) == 0) continue;
+            long to = entry(-findEdge(memory.getInt(from + E_SOURCE), memory.getInt(from + E_TARGET)) - 1);
+            for (int i = 0; i < EDGE; i += 4) {
+                memory.putInt(to + i, memory.getInt(from + i));
+            }
+        }
+    }
+
+    /** @throws UnsupportedOperationException if this graph was opened read-only */
+    @Override public int set(L source, L target, int weight) {
+        checkWritable();
+        if (weight < 0) throw new RuntimeException("Weight must be larger than 0");
+        int prev = update(source, target, weight);
+        checkRep(source, target);
+        return prev;
+    }
+
+    /** @throws UnsupportedOperationException if this graph was opened read-only */
+    @Override public int increment(L source, L target, int delta) {
+        checkWritable();
+        int s = id(source);
+        int t = s < 0 ? -1 : id(target);
+        long e = t < 0 ? -1 : findEdge(s, t);
+        int prev = e < 0 ? 0 : memory.getInt(entry(e) + E_WEIGHT);
+        if (prev + delta < 0) throw new RuntimeException("Weight must be larger than 0");
+        update(source, target, prev + delta);
+        checkRep(source, target);
+        return prev;
+    }
+
+    /** Set the weight of an edge, as in set(), and return its previous weight. */
+    private int update(L source, L target, int weight) {
+        int s = id(source);
+        int t = s < 0 ? -1 : id(target);
+        long e = t < 0 ? -1 : findEdge(s, t);
+        int prev = e < 0 ? 0 : memory.getInt(entry(e) + E_WEIGHT);
+        if (weight == 0) {
+            if (e >= 0) removeEdge(e);
+            return prev;
+        }
+        if (e >= 0) {
+            memory.putInt(entry(e) + E_WEIGHT, weight);
+            return prev;
+        }
+        if (s < 0) s = addVertex(source);
+        if (t < 0) t = id(target);
+        if (t < 0) t = addVertex(target);
+        addEdge(s, t, weight);
+        return prev;
+    }
+
+    private void addEdge(int source, int target, int weight) {
+        if (2 * (edgeCount + 1) > 1L << edgeBits) growEdges();
+        long entry = entry(-findEdge(source, target) - 1);
+        memory.putInt(entry + E_SOURCE, source);
+        memory.putInt(entry + E_TARGET, target);
+        memory.putInt(entry + E_WEIGHT, weight);
+        memory.putInt(entry + E_OUT_POSITION, rowAppend(record(source) + V_OUT, V_OUT_LENGTH - V_OUT, target));
+        memory.putInt(entry + E_IN_POSITION, rowAppend(record(target) + V_IN, V_IN_LENGTH - V_IN, source));
+        edgeCount++;
+        writeHeader();
+    }
+
+    /**
+     * Append a vertex id to a row of a record, growing the row if it is full.
+     *
+     * @param rowField position of the V_OUT or V_IN field of the record
+     * @param lengthOffset offset from rowField to the length of the row,
+     *                     which is followed by its capacity
+     * @return the position of the id in the row
+     */
+    private int rowAppend(long rowField, int lengthOffset, int vertex) {
+        int length = memory.getInt(rowField + lengthOffset);
+        int capacity = memory.getInt(rowField + lengthOffset + 4);
+        long row = memory.getLong(rowField);
+        if (length == capacity) {
+            int grown = Math.max(4, capacity * 2);
+            long moved = allocate(4L * grown);
+            for (int k = 0; k < length; k++) {
+                memory.putInt(moved + 4L * k, memory.getInt(row + 4L * k));
+            }
+            row = moved;
+            memory.putLong(rowField, row);
+            memory.putInt(rowField + lengthOffset + 4, grown);
+        }
+        memory.putInt(row + 4L * length, vertex);
+        memory.putInt(rowField + lengthOffset, length + 1);
+        return length;
+    }
+
+    /** Remove the edge in a slot from its rows and from the edge table. */
+    private void removeEdge(long slot) {
+        long entry = entry(slot);
+        int s = memory.getInt(entry + E_SOURCE);
+        int t = memory.getInt(entry + E_TARGET);
+        int moved = rowRemove(record(s) + V_OUT, V_OUT_LENGTH - V_OUT, memory.getInt(entry + E_OUT_POSITION));
+        if (moved >= 0) memory.putInt(entry(findEdge(s, moved)) + E_OUT_POSITION, memory.getInt(entry + E_OUT_POSITION));
+        moved = rowRemove(record(t) + V_IN, V_IN_LENGTH - V_IN, memory.getInt(entry + E_IN_POSITION));
+        if (moved >= 0) memory.putInt(entry(findEdge(moved, t)) + E_IN_POSITION, memory.getInt(entry + E_IN_POSITION));
+        deleteEdgeSlot(slot);
+        edgeCount--;
+        writeHeader();
+    }
+
+    /**
+     * Remove the id at a position of a row, moving the last id of the row there.
+     *
+     * @return the id that was moved, or -1 if the removed id was the last one
+     */
+    private int rowRemove(long rowField, int lengthOffset, int position) {
+        int length = memory.getInt(rowField + lengthOffset) - 1;
+        long row = memory.getLong(rowField);
+        memory.putInt(rowField + lengthOffset, length);
+        if (position == length) return -1;
+        int last = memory.getInt(row + 4L * length);
+        memory.putInt(row + 4L * position, last);
+        return last;
+    }
+
+    /** Empty a slot of the edge table, shifting back the entries probed past it. */
+    private void deleteEdgeSlot(long slot) {
+        long mask = (1L << edgeBits) - 1;
+        long hole = slot;
+        for (long j = (slot + 1) & mask; memory.getInt(entry(j) + E_WEIGHT) != 0; j = (j + 1) & mask) {
+            long k = home(memory.getInt(entry(j) + E_SOURCE), memory.getInt(entry(j) + E_TARGET), edgeBits);
+            // move the entry at j to the hole unless its home lies cyclically in (hole, j]
+            boolean stays = hole <= j ? hole < k && k <= j : hole < k || k <= j;
+            if (stays) continue;
+            for (int i = 0; i < EDGE; i += 4) {
+                memory.putInt(entry(hole) + i, memory.getInt(entry(j) + i));
+            }
+            hole = j;
+        }
+        for (int i = 0; i < EDGE; i += 4) {
+            memory.putInt(entry(hole) + i, 0);
+        }
+    }
+
+    /** Empty the slot of a vertex in the id table, shifting back the ids probed past it. */
+    private void deleteId(int vertex) {
+        int mask = (1 << idBits) - 1;
+        int hole = home(labels.get(vertex).hashCode(), idBits);
+        while (memory.getInt(ids + 4L * hole) != vertex + 1) hole = (hole + 1) & mask;
+        for (int j = (hole + 1) & mask; memory.getInt(ids + 4L * j) != 0; j = (j + 1) & mask) {
+            int k = home(labels.get(memory.getInt(ids + 4L * j) - 1).hashCode(), idBits);
+            boolean stays = hole <= j ? hole < k && k <= j : hole < k || k <= j;
+            if (stays) continue;
+            memory.putInt(ids + 4L * hole, memory.getInt(ids + 4L * j));
+            hole = j;
+        }
+        memory.putInt(ids + 4L * hole, 0);
+    }
+
+    /** @throws UnsupportedOperationException if this graph was opened read-only */
+    @Override public boolean remove(L vertex) {
+        checkWritable();
+        int v = id(vertex);
+        if (v < 0) return false;
+        long record = record(v);
+        while (memory.getInt(record + V_OUT_LENGTH) > 0) {
+            removeEdge(findEdge(v, rowGet(record + V_OUT, memory.getInt(record + V_OUT_LENGTH) - 1)));
+        }
+        while (memory.getInt(record + V_IN_LENGTH) > 0) {
+            removeEdge(findEdge(rowGet(record + V_IN, memory.getInt(record + V_IN_LENGTH) - 1), v));
+        }
+        deleteId(v);
+        // the rows and label space stay with the id, for the next vertex to get it
+        labels.set(v, null);
+        memory.putInt(record + V_NEXT, free);
+        free = v;
+        vertexCount--;
+        writeHeader();
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override public Set<L> vertices() {
+        Set<L> result = new HashSet<>();
+        for (L label : labels) {
+            if (label != null) result.add(label);
+        }
+        return result;
+    }
+
+    @Override public Map<L, Integer> sources(L target) {
+        Map<L, Integer> sources = new HashMap<>();
+        int t = id(target);
+        if (t < 0) return sources;
+        long record = record(t);
+        for (int k = 0; k < memory.getInt(record + V_IN_LENGTH); k++) {
+            int s = rowGet(record + V_IN, k);
+            sources.put(labels.get(s), memory.getInt(entry(findEdge(s, t)) + E_WEIGHT));
+        }
+        return sources;
+    }
+
+    @Override public Map<L, Integer> targets(L source) {
+        Map<L, Integer> targets = new HashMap<>();
+        int s = id(source);
+        if (s < 0) return targets;
+        long record = record(s);
+        for (int k = 0; k < memory.getInt(record + V_OUT_LENGTH); k++) {
+            int t = rowGet(record + V_OUT, k);
+            targets.put(labels.get(t), memory.getInt(entry(findEdge(s, t)) + E_WEIGHT));
+        }
+        return targets;
+    }
+
+    /** @return number of bytes of off-heap memory used by this graph, including space outgrown */
+    public long offHeapBytes() {
+        return top;
+    }
+
+    // toString()
+    @Override public String toString() {
+        if (vertexCount == 0) return "The graph is empty, nothing to print";
+        StringBuilder all = new StringBuilder("Vertices: ");
+        StringBuilder edges = new StringBuilder();
+        for (L v : labels) {
+            if (v == null) continue;
+            all.append(v + " ");
+            for (Map.Entry<L, Integer> e : targets(v).entrySet()) {
+                edges.append(v + " ---> " + e.getKey() + ", weight = " + e.getValue() + "\n");
+            }
+        }
+        all.append("\nEdges: ");
+        if (edges.length() == 0) return all + "empty edges";
+        return all.append(edges).toString();
+    }
+}
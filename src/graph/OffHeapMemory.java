@@ -0,0 +1,246 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A growable block of memory outside the Java heap, addressed by long byte
+ * positions: either direct memory, or a file mapped into memory so that
+ * other processes can map it too.
+ *
+ * <p>The memory is split into chunks of a fixed power-of-two size, each a
+ * direct or mapped ByteBuffer, so that it can grow beyond the 2 GB limit of
+ * a single buffer. The last chunk starts small and is replaced by one twice
+ * as large as needed, up to the chunk size. A file mapped read-only cannot
+ * grow: its last chunk ends where the file does. Ints and longs must be aligned to
+ * their size, so that none straddles two chunks; byte arrays may.
+ * Memory is zero when it is first allocated, and freed when this object is
+ * garbage collected: Java 17 has no way to free it sooner.
+ *
+ * <p>Mutable. Not safe for use by multiple threads.
+ */
+class OffHeapMemory {
+
+    /** log2 of the default size of a chunk: 1 GB. */
+    static final int CHUNK_BITS = 30;
+
+    private static final int INITIAL_SIZE = 1 << 12;
+
+    private final FileChannel file;
+    private final boolean readOnly;
+    private final int chunkBits;
+    private ByteBuffer[] chunks;
+    private long size;
+
+    // Abstraction function:
+    //   Represent the bytes 0 to size - 1, byte p being byte
+    //   p & (2^chunkBits - 1) of chunks[p >>> chunkBits]; if file is not
+    //   null, chunk i is the region of file that starts at i << chunkBits
+    // Representation invariant:
+    //   chunks is not empty; every chunk but the last has capacity
+    //   2^chunkBits, and the last a power of two at most 2^chunkBits, or if
+    //   readOnly any positive capacity at most 2^chunkBits
+    //   readOnly only if file is not null, and then chunks are read-only
+    //   size is the total capacity of the chunks
+    //   chunks are direct buffers if file is null, mapped from file otherwise
+    // Safety from rep exposure:
+    //   All fields are private; chunks are never returned
+
+    /**
+     * @param file file to map, or null to allocate direct memory
+     * @param readOnly true to map file read-only
+     * @param chunkBits log2 of the chunk size, at least 3
+     * @param size initial size in bytes; positive if readOnly
+     */
+    private OffHeapMemory(FileChannel file, boolean readOnly, int chunkBits, long size) throws IOException {
+        this.file = file;
+        this.readOnly = readOnly;
+        this.chunkBits = chunkBits;
+        this.chunks = new ByteBuffer[0];
+        this.size = 0;
+        grow(readOnly ? size : Math.max(size, Math.min(INITIAL_SIZE, 1L << chunkBits)));
+        checkRep();
+    }
+
+    // checkRep
+    private void checkRep() {
+        assert chunks.length > 0;
+        long total = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            int capacity = chunks[i].capacity();
+            assert i == chunks.length - 1
+                    ? (readOnly || Integer.bitCount(capacity) == 1) && capacity > 0 && capacity <= 1L << chunkBits
+                    : capacity == 1L << chunkBits;
+            assert chunks[i].isDirect() && chunks[i].isReadOnly() == readOnly;
+            total += capacity;
+        }
+        assert total == size;
+    }
+
+    /**
+     * Allocate direct memory.
+     *
+     * @param chunkBits log2 of the chunk size, at least 3 and at most CHUNK_BITS
+     * @return new zeroed memory, of at least a small initial size
+     */
+    static OffHeapMemory allocate(int chunkBits) {
+        try {
+            return new OffHeapMemory(null, false, checkChunkBits(chunkBits), 0);
+        }
+        catch (IOException e) {
+            throw new AssertionError("direct memory does not throw IOException", e);
+        }
+    }
+
+    /**
+     * Map a file into memory; the file grows with the memory.
+     *
+     * @param file file open for reading and writing; must stay open while
+     *             the memory is used, and must not be changed otherwise
+     * @param chunkBits log2 of the chunk size, at least 3 and at most CHUNK_BITS
+     * @return memory that holds the bytes of the file, of at least its size
+     * @throws IOException if the file cannot be mapped
+     */
+    static OffHeapMemory map(FileChannel file, int chunkBits) throws IOException {
+        return new OffHeapMemory(file, false, checkChunkBits(chunkBits), file.size());
+    }
+
+    /**
+     * Map a file into memory read-only; the memory cannot grow or be written.
+     *
+     * @param file file open for reading, not empty; must stay open while the
+     *             memory is used, and must not be changed meanwhile
+     * @param chunkBits log2 of the chunk size, at least 3 and at most CHUNK_BITS
+     * @return memory that holds exactly the bytes of the file
+     * @throws IOException if the file cannot be mapped
+     */
+    static OffHeapMemory mapReadOnly(FileChannel file, int chunkBits) throws IOException {
+        if (file.size() == 0) throw new IOException("cannot map an empty file read-only");
+        return new OffHeapMemory(file, true, checkChunkBits(chunkBits), file.size());
+    }
+
+    private static int checkChunkBits(int chunkBits) {
+        if (chunkBits < 3 || chunkBits > CHUNK_BITS) throw new IllegalArgumentException("bad chunk size");
+        return chunkBits;
+    }
+
+    /** @return number of bytes of this memory */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Grow this memory to at least a given size; new bytes are zero.
+     *
+     * @param minSize minimum size in bytes
+     * @throws UncheckedIOException if the file cannot be mapped
+     * @throws UnsupportedOperationException if the memory must grow but is read-only
+     */
+    void ensure(long minSize) {
+        if (minSize <= size) return;
+        if (readOnly) throw new UnsupportedOperationException("read-only memory cannot grow");
+        try {
+            grow(minSize);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        checkRep();
+    }
+
+    private void grow(long minSize) throws IOException {
+        long chunkSize = 1L << chunkBits;
+        // the last chunk may be partial: replace it by a larger one
+        int full = (int) (size >>> chunkBits);
+        long wanted = readOnly ? minSize : Math.max(minSize, size * 2);
+        int count = (int) ((wanted + chunkSize - 1) >>> chunkBits);
+        ByteBuffer[] grown = Arrays.copyOf(chunks, count);
+        for (int i = full; i < count; i++) {
+            long start = (long) i << chunkBits;
+            int capacity = (int) Math.min(chunkSize,
+                    readOnly ? wanted - start : Long.highestOneBit(Math.max(1, wanted - start) * 2 - 1));
+            ByteBuffer old = i < chunks.length ? chunks[i] : null;
+            if (old != null && old.capacity() == capacity) continue;
+            ByteBuffer chunk = file == null ? ByteBuffer.allocateDirect(capacity)
+                    : file.map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, start, capacity);
+            if (old != null && file == null) chunk.put(0, old, 0, old.capacity());
+            grown[i] = chunk;
+        }
+        chunks = grown;
+        long total = 0;
+        for (ByteBuffer chunk : chunks) {
+            total += chunk.capacity();
+        }
+        size = total;
+    }
+
+    private ByteBuffer chunk(long position) {
+        return chunks[(int) (position >>> chunkBits)];
+    }
+
+    private int offset(long position) {
+        return (int) (position & ((1L << chunkBits) - 1));
+    }
+
+    /** @return the int at position, which is a multiple of 4 */
+    int getInt(long position) {
+        return chunk(position).getInt(offset(position));
+    }
+
+    /** Write an int at position, which is a multiple of 4. */
+    void putInt(long position, int value) {
+        chunk(position).putInt(offset(position), value);
+    }
+
+    /** @return the long at position, which is a multiple of 8 */
+    long getLong(long position) {
+        return chunk(position).getLong(offset(position));
+    }
+
+    /** Write a long at position, which is a multiple of 8. */
+    void putLong(long position, long value) {
+        chunk(position).putLong(offset(position), value);
+    }
+
+    /** Read bytes from position into all of dst. */
+    void get(long position, byte[] dst) {
+        for (int done = 0; done < dst.length; ) {
+            long p = position + done;
+            int n = (int) Math.min(dst.length - done, (1L << chunkBits) - offset(p));
+            chunk(p).get(offset(p), dst, done, n);
+            done += n;
+        }
+    }
+
+    /** Write all of src at position. */
+    void put(long position, byte[] src) {
+        for (int done = 0; done < src.length; ) {
+            long p = position + done;
+            int n = (int) Math.min(src.length - done, (1L << chunkBits) - offset(p));
+            chunk(p).put(offset(p), src, done, n);
+            done += n;
+        }
+    }
+
+    /** @return true if this memory is a file mapped read-only */
+    boolean readOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Write the changes to this memory to its file, if it maps one for writing.
+     */
+    void force() {
+        if (file == null || readOnly) return;
+        for (ByteBuffer chunk : chunks) {
+            ((MappedByteBuffer) chunk).force();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * An immutable snapshot of the metrics of one graph operation: the latencies
+ * of its calls, in nanoseconds, and the sizes of the sets or maps they returned.
+ */
+public class OperationStats {
+
+    private final GraphOperation operation;
+    private final HistogramSnapshot latencies;
+    private final HistogramSnapshot resultSizes;
+
+    // Abstraction function:
+    //   Represent the calls of operation, whose latencies are latencies and
+    //   the sizes of whose results are resultSizes
+    // Representation invariant:
+    //   resultSizes is empty if !operation.hasResultSize()
+    // Safety from rep exposure:
+    //   All fields are private, final and immutable
+
+    /**
+     * Create a snapshot of the metrics of an operation.
+     *
+     * @param operation the operation
+     * @param latencies latencies of its calls, in nanoseconds
+     * @param resultSizes sizes of the results of its calls; empty if the
+     *                    operation has no result size
+     */
+    OperationStats(GraphOperation operation, HistogramSnapshot latencies, HistogramSnapshot resultSizes) {
+        this.operation = operation;
+        this.latencies = latencies;
+        this.resultSizes = resultSizes;
+        checkRep();
+    }
+
+    // checkRep
+    private void checkRep() {
+        assert operation.hasResultSize() || resultSizes.count() == 0;
+    }
+
+    /** @return the operation */
+    public GraphOperation operation() {
+        return operation;
+    }
+
+    /** @return number of calls of the operation */
+    public long calls() {
+        return latencies.count();
+    }
+
+    /** @return total time spent in the calls of the operation, in nanoseconds */
+    public long totalNanos() {
+        return latencies.sum();
+    }
+
+    /** @return histogram of the latencies of the calls, in nanoseconds */
+    public HistogramSnapshot latencies() {
+        return latencies;
+    }
+
+    /**
+     * @return histogram of the sizes of the sets or maps returned by the
+     *         calls; empty if the operation has no result size
+     */
+    public HistogramSnapshot resultSizes() {
+        return resultSizes;
+    }
+
+    @Override public String toString() {
+        String s = operation + ": latency ns " + latencies;
+        return operation.hasResultSize() ? s + "; result size " + resultSizes : s;
+    }
+}
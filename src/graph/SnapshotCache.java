@@ -0,0 +1,82 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Unmodifiable snapshots of the vertices and edge rows of a graph, stamped
+ * with the version of the graph they were copied from, for graphs whose rep
+ * cannot be viewed without copying. A snapshot is copied on first use and
+ * then shared until the version changes, at which point every snapshot is
+ * dropped.
+ * Mutable. Safe for use by multiple threads, so that the graph can still be
+ * read from several threads at once, as long as it is not mutated meanwhile.
+ *
+ * @param <L> type of vertex labels
+ */
+class SnapshotCache<L> {
+
+    private long version = -1;
+    private Set<L> vertices = null;
+    private final Map<L, Map<L, Integer>> sources = new HashMap<>();
+    private final Map<L, Map<L, Integer>> targets = new HashMap<>();
+
+    // Abstraction function:
+    //   Represent the snapshots of version `version` of a graph: its vertex
+    //   set if vertices is not null, and the sources and targets of the
+    //   vertices that are keys of sources and targets
+    // Representation invariant:
+    //   vertices and the values of sources and targets are unmodifiable
+    // Safety from rep exposure:
+    //   All fields are private; snapshots are unmodifiable and never changed
+    // Thread safety argument:
+    //   All fields are only accessed by synchronized methods
+
+    /**
+     * @param version version of the graph, which changes after every mutation
+     * @param copy function that copies the vertex set of the graph
+     * @return an unmodifiable copy of the vertex set at that version
+     */
+    synchronized Set<L> vertices(long version, Supplier<Set<L>> copy) {
+        stamp(version);
+        if (vertices == null) vertices = Collections.unmodifiableSet(copy.get());
+        return vertices;
+    }
+
+    /**
+     * @param version version of the graph, which changes after every mutation
+     * @param target a label
+     * @param copy function that copies the sources of a vertex
+     * @return an unmodifiable copy of the sources of target at that version
+     */
+    synchronized Map<L, Integer> sources(long version, L target, Function<L, Map<L, Integer>> copy) {
+        stamp(version);
+        return sources.computeIfAbsent(target, t -> Collections.unmodifiableMap(copy.apply(t)));
+    }
+
+    /**
+     * @param version version of the graph, which changes after every mutation
+     * @param source a label
+     * @param copy function that copies the targets of a vertex
+     * @return an unmodifiable copy of the targets of source at that version
+     */
+    synchronized Map<L, Integer> targets(long version, L source, Function<L, Map<L, Integer>> copy) {
+        stamp(version);
+        return targets.computeIfAbsent(source, s -> Collections.unmodifiableMap(copy.apply(s)));
+    }
+
+    private void stamp(long version) {
+        if (version == this.version) return;
+        this.version = version;
+        vertices = null;
+        sources.clear();
+        targets.clear();
+    }
+}
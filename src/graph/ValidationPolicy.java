@@ -0,0 +1,154 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * How often a mutable Graph implementation checks its rep invariant.
+ * Immutable.
+ *
+ * <p>The checks are assertions, so a policy only has an effect when
+ * assertions are enabled (-ea). The four policies are:
+ * <ul>
+ * <li>{@link #off()}: never check after a mutation;
+ * <li>{@link #full()}: check the whole rep after every mutation, which costs
+ *     time proportional to the size of the graph;
+ * <li>{@link #everyNth(int)}: check the whole rep after every n-th mutation;
+ * <li>{@link #incremental()}: after every mutation, check only the vertices
+ *     and edges that it touched.
+ * </ul>
+ *
+ * <p>Graphs created without an explicit policy use {@link #getDefault()},
+ * which is read from the system property {@code graph.validation}: one of
+ * {@code off}, {@code full}, {@code incremental} or {@code every-N}.
+ * If the property is not set, the default is incremental when assertions are
+ * enabled and off otherwise.
+ *
+ * <p>Independently of the policy, {@link Graph#validate()} checks a graph in
+ * full on demand.
+ */
+public final class ValidationPolicy {
+
+    private static final ValidationPolicy OFF = new ValidationPolicy(0, false);
+    private static final ValidationPolicy FULL = new ValidationPolicy(1, false);
+    private static final ValidationPolicy INCREMENTAL = new ValidationPolicy(0, true);
+
+    private static volatile ValidationPolicy defaultPolicy = fromProperty(System.getProperty("graph.validation"));
+
+    private final int period;
+    private final boolean incremental;
+
+    // Abstraction function:
+    //   Represent the policy that checks the whole rep after every period-th
+    //   mutation (never if period is 0), and checks the touched part of the
+    //   rep after the other mutations if incremental is true
+    // Representation invariant:
+    //   period >= 0
+    //   not both period > 0 and incremental
+    // Safety from rep exposure:
+    //   All fields are private, final and immutable
+
+    private ValidationPolicy(int period, boolean incremental) {
+        this.period = period;
+        this.incremental = incremental;
+        checkRep();
+    }
+
+    // checkRep
+    private void checkRep() {
+        assert period >= 0;
+        assert !(period > 0 && incremental);
+    }
+
+    /** @return the policy that never checks the rep after a mutation */
+    public static ValidationPolicy off() {
+        return OFF;
+    }
+
+    /** @return the policy that checks the whole rep after every mutation */
+    public static ValidationPolicy full() {
+        return FULL;
+    }
+
+    /**
+     * @param n number of mutations between checks; must be positive
+     * @return the policy that checks the whole rep after every n-th mutation
+     */
+    public static ValidationPolicy everyNth(int n) {
+        if (n <= 0) throw new IllegalArgumentException("n must be positive");
+        return n == 1 ? FULL : new ValidationPolicy(n, false);
+    }
+
+    /** @return the policy that checks only the touched vertices and edges after every mutation */
+    public static ValidationPolicy incremental() {
+        return INCREMENTAL;
+    }
+
+    /** @return the policy of graphs created without an explicit policy */
+    public static ValidationPolicy getDefault() {
+        return defaultPolicy;
+    }
+
+    /**
+     * Change the policy of graphs created from now on without an explicit
+     * policy. Graphs that already exist keep their policy.
+     *
+     * @param policy new default policy
+     */
+    public static void setDefault(ValidationPolicy policy) {
+        if (policy == null) throw new NullPointerException("policy");
+        defaultPolicy = policy;
+    }
+
+    /**
+     * Parse a policy.
+     *
+     * @param value "off", "full", "incremental" or "every-N" for a positive N,
+     *              or null for incremental when assertions are enabled and off otherwise
+     * @return the policy described by value
+     * @throws IllegalArgumentException if value is not a valid policy
+     */
+    public static ValidationPolicy fromProperty(String value) {
+        if (value == null) {
+            boolean assertions = false;
+            assert assertions = true;
+            return assertions ? INCREMENTAL : OFF;
+        }
+        switch (value.trim().toLowerCase()) {
+            case "off": return OFF;
+            case "full": return FULL;
+            case "incremental": return INCREMENTAL;
+            default:
+                if (value.trim().toLowerCase().startsWith("every-")) {
+                    try {
+                        return everyNth(Integer.parseInt(value.trim().substring("every-".length())));
+                    }
+                    catch (NumberFormatException e) {
+                        // fall through
+                    }
+                }
+                throw new IllegalArgumentException("not a validation policy: " + value);
+        }
+    }
+
+    /**
+     * @param mutation sequence number of a mutation of a graph, starting at 1
+     * @return true if the whole rep should be checked after that mutation
+     */
+    boolean checkFull(long mutation) {
+        return period > 0 && mutation % period == 0;
+    }
+
+    /** @return true if the touched part of the rep should be checked after a mutation */
+    boolean checkIncremental() {
+        return incremental;
+    }
+
+    // toString()
+    @Override public String toString() {
+        if (incremental) return "incremental";
+        if (period == 0) return "off";
+        if (period == 1) return "full";
+        return "every-" + period;
+    }
+}
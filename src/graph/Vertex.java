@@ -0,0 +1,180 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * specification
+ * Mutable.
+ * This class is internal to the rep of ConcreteVerticesGraph and IndexedVerticesGraph.
+ * 
+ * This mutable data type represents role of vertex in a graph.
+ * Each vertex indicates the vertices that are pointing to that vertex, and the vertices
+ * that vertex is pointing to. 
+ * 
+ * Vertex contains information about the edges: having non-negative weight of type {@code int} and are directed.
+ * Vertices have distinct labels of type {@code String}.
+ * 
+ * @param 
+ */
+class Vertex<L> {
+    
+    // fields
+    private final Map<Vertex<L>, Integer> to = new HashMap<>();
+    private final Map<Vertex<L>, Integer> from = new HashMap<>();
+    private final L label;
+    
+    // Abstraction function:
+    //   Each vertex indicates the vertices that are pointing to that vertex, and the vertices
+    //   that vertex is pointing to. 
+    //   'from' is the reverse of 'to': it maps each vertex that points to this vertex to the
+    //   weight of that edge
+    // Representation invariant:
+    //   A vertex may be a key of its own 'to' and 'from': an edge to itself
+    //   Vertices don't duplicate
+    //   Edge goes from a source to a target vertex, having positive weight
+    //   v.to.get(w) equals w.from.get(v) for every edge v -> w
+    // Safety from rep exposure:
+    //   All fields are private.
+    //   Label is immutable
+    //   Does not return direct references to the mutable fields.
+    
+    // constructor
+    public Vertex(L label) {
+        this.label = label;
+        checkRep();
+    }
+    
+//    public Vertex() {
+//        this.label = new L;
+//    }
+    
+    // checkRep
+    // Called by the graph, as its validation policy asks, rather than after
+    // every change: it takes time proportional to the degree of the vertex.
+    void checkRep() {
+        for (Vertex<L> v : to.keySet()) {
+            assert to.get(v).equals(v.from.get(this));
+        }
+        for (Integer i : to.values()) {
+            assert (i > 0);
+        }
+        for (Vertex<L> v : from.keySet()) {
+            assert from.get(v).equals(v.to.get(this));
+        }
+    }
+    
+    /** Check only the edge from the main vertex to target, if there is one. */
+    void checkEdgeTo(Vertex<L> target) {
+        Integer weight = to.get(target);
+        assert weight == null || weight > 0;
+        assert weight == null ? !target.from.containsKey(this) : weight.equals(target.from.get(this));
+    }
+    // methods
+    
+    /** @return the weight to vertex v from the main vertex. 
+     * Return zero if no weight exists */ 
+    public int getWeightTo(Vertex<L> v) {
+        if (to.containsKey(v)) return to.get(v);
+        return 0;
+    }
+    
+    /** @return the vertices that point to the main vertex */
+    public Set<Vertex<L>> getVerticesFrom() {
+        return to.keySet();
+    }
+    
+    /** @return the weight to the main vertex from vertex v.
+     * Return zero if no weight exists */
+    public int getWeightFrom(Vertex<L> v) {
+        if (from.containsKey(v)) return from.get(v);
+        return 0;
+    }
+    
+    /** @return an unmodifiable view of the vertices that have an edge to the main vertex */
+    public Set<Vertex<L>> getSources() {
+        return Collections.unmodifiableSet(from.keySet());
+    }
+    
+    /** @return an unmodifiable view of the weights of the edges from the main vertex, by target */
+    public Map<Vertex<L>, Integer> getTargetWeights() {
+        return Collections.unmodifiableMap(to);
+    }
+    
+    /** @return an unmodifiable view of the weights of the edges to the main vertex, by source */
+    public Map<Vertex<L>, Integer> getSourceWeights() {
+        return Collections.unmodifiableMap(from);
+    }
+    
+    /** 
+     * Set the (new) weight for a vertex connection (main -> target). 
+     * If the connection didn't exist,
+     * add target vertex to the field. 
+     * If {@code weight} is specified as 0, remove the connection.
+     * 
+     * @param target the target vertex
+     * @param weight the non-negative weight.
+     * @return the previous weight; return 0 if the vertices were not connected
+     */
+    public int addWeightTo(Vertex<L> target, int weight) {
+        if (weight < 0) throw new RuntimeException("Weight must be larger than 0");
+        int prev = 0;
+        if (to.containsKey(target)) {
+            prev = getWeightTo(target);
+            if (weight == 0) {
+                to.remove(target);
+                target.from.remove(this);
+            }
+        }
+        if (weight != 0) {
+            to.put(target, weight);
+            target.from.put(this, weight);
+        }
+        checkEdgeTo(target);
+        return prev;
+    }
+    
+    /**
+     * Remove every edge to and from the main vertex, in time proportional to
+     * its number of edges.
+     */
+    public void unlink() {
+        for (Vertex<L> source : new ArrayList<>(from.keySet())) {
+            source.addWeightTo(this, 0);
+        }
+        for (Vertex<L> target : new ArrayList<>(to.keySet())) {
+            addWeightTo(target, 0);
+        }
+    }
+    
+    /**
+     * Get label of the main vertex
+     * 
+     * @return label of the main vertex
+     */
+    public L getLabel() {
+        return label;
+    }
+    
+    /**
+     * Check if the vertices are equal
+     * 
+     * @return true if the two vertices are equal, false otherwise
+     */
+    
+    // toString()
+    @Override public String toString() {
+        StringBuilder rep = new StringBuilder("From vertex: " + getLabel());
+        Set<Vertex<L>> target = getVerticesFrom();
+        for (Vertex<L> v : target) {
+            rep.append(getLabel() + " ---> " + v.getLabel() + ", weight = " + getWeightTo(v) + "\n");
+        }
+        return rep.toString();
+    }
+}
@@ -0,0 +1,156 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+
+/**
+ * A bounded cache of bridge words, keyed by pairs of lower-case words, with
+ * least-recently-used eviction. Pairs without a bridge word are cached too.
+ *
+ * <p>The cache is split into segments by hash of the key, each an
+ * access-ordered LinkedHashMap with its own lock and an equal share of the
+ * capacity, so concurrent lookups of different pairs rarely contend.
+ * Eviction is least-recently-used within each segment.
+ *
+ * <p>Safe for use by multiple threads.
+ */
+class BridgeCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    /** Cached value of a pair that has no bridge word; compared by identity. */
+    private static final String NO_BRIDGE = new String("");
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Abstraction function:
+    //   Represent the cache whose entries are the union of the entries of the
+    //   segments; the key "w1 w2" maps to the bridge word from w1 to w2, or to
+    //   NO_BRIDGE if there is none
+    // Representation invariant:
+    //   segments.length is a power of two, and every key is in the segment
+    //   selected by its hash
+    //   Each segment holds at most its capacity entries
+    // Safety from rep exposure:
+    //   All fields are private and final; only immutable Strings are returned
+    // Thread safety argument:
+    //   Each segment is only accessed while holding its lock
+    //   Counters are thread-safe LongAdders
+
+    /**
+     * Create an empty cache.
+     *
+     * @param capacity maximum number of entries; must be positive
+     */
+    BridgeCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        int n = Math.min(MAX_SEGMENTS, Integer.highestOneBit(capacity));
+        segments = new Segment[n];
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment(capacity / n + (i < capacity % n ? 1 : 0));
+        }
+    }
+
+    /**
+     * Look up the bridge word between two words, computing and caching it if
+     * it is not cached.
+     *
+     * @param source first word, in lower case
+     * @param target second word, in lower case
+     * @param compute function that finds the bridge word from source to
+     *                target, or null if there is none
+     * @return the bridge word from source to target, or null if there is none
+     */
+    String get(String source, String target, BinaryOperator<String> compute) {
+        String key = source + " " + target;
+        Segment segment = segmentOf(key);
+        String bridge;
+        synchronized (segment) {
+            bridge = segment.get(key);
+        }
+        if (bridge != null) {
+            hits.increment();
+        }
+        else {
+            misses.increment();
+            bridge = compute.apply(source, target);
+            if (bridge == null) bridge = NO_BRIDGE;
+            synchronized (segment) {
+                segment.put(key, bridge);
+            }
+        }
+        return bridge == NO_BRIDGE ? null : bridge;
+    }
+
+    /**
+     * Forget the bridge word between two words, if it is cached.
+     *
+     * @param source first word, in lower case
+     * @param target second word, in lower case
+     */
+    void invalidate(String source, String target) {
+        String key = source + " " + target;
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    /** Forget every cached bridge word, keeping the counters. */
+    void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /** @return a snapshot of the counters of this cache */
+    CacheStats stats() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private Segment segmentOf(String key) {
+        return segments[spread(key.hashCode()) & (segments.length - 1)];
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * One segment of the cache, evicting its least recently used entry when
+     * it grows beyond its capacity.
+     */
+    private class Segment extends LinkedHashMap<String, String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            if (size() <= capacity) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+}
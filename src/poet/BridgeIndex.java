@@ -0,0 +1,106 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import graph.Graph;
+
+/**
+ * An index from pairs of words (w1, w2) to the best bridge word between them
+ * in an affinity graph, as defined by GraphPoet: the b of maximum weight
+ * w1 -> b -> w2 two-edge-long path. Ties are broken by choosing the bridge
+ * word that comes first in String order.
+ *
+ * <p>The bridges from a source word are computed together, by walking every
+ * two-edge-long path from it, either all up front or lazily the first time
+ * that source word is looked up. Afterwards each lookup is a pair of hash
+ * lookups.
+ *
+ * <p>Safe for use by multiple threads, as long as the graph is not mutated
+ * while the index is used; after a mutation, the bridges from the source
+ * words it may affect must be invalidated.
+ */
+class BridgeIndex {
+
+    private final Graph<String> graph;
+    private final ConcurrentMap<String, Map<String, String>> bridges = new ConcurrentHashMap<>();
+
+    // Abstraction function:
+    //   Represent the best bridges of graph; for every key w1 of bridges,
+    //   bridges.get(w1).get(w2) is the best bridge word from w1 to w2, or
+    //   null if there is none. Bridges from other words are not computed yet.
+    // Representation invariant:
+    //   Every value of bridges is exactly the best bridges of its key in graph
+    //   (not checked: it would cost as much as computing them)
+    // Safety from rep exposure:
+    //   All fields are private and final; only immutable Strings are returned
+    // Thread safety argument:
+    //   bridges is a thread-safe map whose values are never mutated after
+    //   they are computed; graph is only read
+
+    /**
+     * Create a bridge index.
+     *
+     * @param graph affinity graph; must not be mutated while this index is used,
+     *              and mutations must be followed by {@link #invalidate(String)}
+     * @param precompute true to compute the bridges of every source word now,
+     *                   false to compute each source word's bridges when it is first looked up
+     */
+    BridgeIndex(Graph<String> graph, boolean precompute) {
+        this.graph = graph;
+        if (precompute) {
+            graph.vertexView().parallelStream().forEach(source -> bridges.put(source, compute(source)));
+        }
+    }
+
+    /**
+     * Look up the best bridge word.
+     *
+     * @param source first word, in lower case
+     * @param target second word, in lower case
+     * @return the best bridge word from source to target, or null if there
+     *         is no two-edge-long path from source to target
+     */
+    String bridge(String source, String target) {
+        return bridges.computeIfAbsent(source, this::compute).get(target);
+    }
+
+    /**
+     * Forget the bridges from a source word, so that they are computed again
+     * from the graph when the word is next looked up.
+     *
+     * @param source first word, in lower case
+     */
+    void invalidate(String source) {
+        bridges.remove(source);
+    }
+
+    /**
+     * Compute the best bridge word from a source word to every word that can
+     * be reached from it by a two-edge-long path.
+     */
+    private Map<String, String> compute(String source) {
+        Map<String, String> best = new HashMap<>();
+        Map<String, Long> bestWeight = new HashMap<>();
+        for (Map.Entry<String, Integer> bridge : graph.targetsView(source).entrySet()) {
+            String b = bridge.getKey();
+            for (Map.Entry<String, Integer> target : graph.targetsView(b).entrySet()) {
+                String t = target.getKey();
+                long weight = (long) bridge.getValue() + target.getValue();
+                Long current = bestWeight.get(t);
+                if (current == null || weight > current
+                        || (weight == current && b.compareTo(best.get(t)) < 0)) {
+                    best.put(t, b);
+                    bestWeight.put(t, weight);
+                }
+            }
+        }
+        return best.isEmpty() ? Collections.emptyMap() : best;
+    }
+}
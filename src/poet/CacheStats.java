@@ -0,0 +1,74 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+/**
+ * An immutable snapshot of the counters of a bridge-word cache.
+ */
+public class CacheStats {
+    
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+    
+    // Abstraction function:
+    //   Represent a cache that answered hits lookups from its entries, missed
+    //   misses lookups, evicted evictions entries, and holds size entries
+    // Representation invariant:
+    //   all fields are nonnegative
+    // Safety from rep exposure:
+    //   All fields are private, final and immutable
+    
+    /**
+     * Create a snapshot of cache counters.
+     * 
+     * @param hits number of lookups answered from the cache, nonnegative
+     * @param misses number of lookups that were computed, nonnegative
+     * @param evictions number of entries evicted, nonnegative
+     * @param size number of entries in the cache, nonnegative
+     */
+    public CacheStats(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        checkRep();
+    }
+    
+    // checkRep
+    private void checkRep() {
+        assert hits >= 0 && misses >= 0 && evictions >= 0 && size >= 0;
+    }
+    
+    /** @return number of lookups answered from the cache */
+    public long hits() {
+        return hits;
+    }
+    
+    /** @return number of lookups that were not in the cache */
+    public long misses() {
+        return misses;
+    }
+    
+    /** @return number of entries evicted to keep the cache within its capacity */
+    public long evictions() {
+        return evictions;
+    }
+    
+    /** @return number of entries in the cache */
+    public int size() {
+        return size;
+    }
+    
+    /** @return fraction of lookups answered from the cache, or 0 if there were none */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+    
+    @Override public String toString() {
+        return "hits = " + hits + ", misses = " + misses + ", evictions = " + evictions + ", size = " + size;
+    }
+}
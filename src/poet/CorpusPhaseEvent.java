@@ -0,0 +1,82 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for one phase of reading a corpus into a
+ * GraphPoet:
+ * <ul><li> "sketch", the first pass over the corpus of
+ *          {@link GraphPoet#GraphPoet(java.io.File, int)}, which counts
+ *          adjacencies into a count-min sketch;
+ *     <li> "tokenize", the pass that reads the corpus, splits it into words
+ *          and counts their adjacencies into a mutable graph, or that appends
+ *          text to the graph; the corpus is mapped or streamed, so reading
+ *          it is part of this phase rather than a phase of its own;
+ *     <li> "build", freezing the counts into an immutable graph;
+ *     <li> "checkRep", checking the words of the new graph. </ul>
+ * 
+ * <p>While no recording enables the event, creating and committing it costs
+ * next to nothing.
+ */
+@Name("poet.CorpusPhase")
+@Label("Corpus Phase")
+@Category("GraphPoet")
+@Description("One phase of reading a corpus into a GraphPoet")
+@StackTrace(false)
+class CorpusPhaseEvent extends Event {
+    
+    @Label("Phase")
+    @Description("sketch, tokenize, build or checkRep")
+    String phase;
+    
+    @Label("Bytes")
+    @Description("Bytes of the corpus file read, or 0 if the corpus was read as text")
+    @DataAmount
+    long bytes;
+    
+    @Label("Words")
+    @Description("Words read from the corpus")
+    long words;
+    
+    @Label("Vertices")
+    @Description("Vertices of the graph built, or 0 before it is built")
+    long vertices;
+    
+    @Label("Edges")
+    @Description("Edges of the graph built, or 0 before it is built")
+    long edges;
+    
+    /**
+     * Create an event; the caller calls begin() when the phase starts.
+     * 
+     * @param phase name of the phase, as described above
+     */
+    CorpusPhaseEvent(String phase) {
+        this.phase = phase;
+    }
+    
+    /**
+     * End the phase and commit this event, if it is enabled.
+     * 
+     * @param bytes bytes of the corpus file read, or 0 if it was read as text
+     * @param words words read, or 0 if the phase reads no words
+     * @param vertices vertices of the graph built, or 0 before it is built
+     * @param edges edges of the graph built, or 0 before it is built
+     */
+    void finish(long bytes, long words, long vertices, long edges) {
+        this.bytes = bytes;
+        this.words = words;
+        this.vertices = vertices;
+        this.edges = edges;
+        commit();
+    }
+}
@@ -0,0 +1,83 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+/**
+ * A count-min sketch of the number of times each pair of words occurs, in
+ * fixed memory. Estimates never undercount: the estimate of a pair is at
+ * least its true count, and exceeds it only when the pair collides with
+ * other pairs in every row.
+ *
+ * <p>Not safe for use by multiple threads.
+ */
+class CountMinSketch {
+
+    private static final int[] SEEDS = { 0x9e3779b9, 0x85ebca6b, 0xc2b2ae35, 0x27d4eb2f, 0x165667b1, 0xd3a2646d };
+
+    private final int[][] counts;
+    private final int mask;
+
+    // Abstraction function:
+    //   Represent the multiset of pairs added so far, as far as counts can
+    //   tell them apart: the pair (a, b) was added at most
+    //   min over rows r of counts[r][index(r, h)] times, where h is the hash of (a, b)
+    // Representation invariant:
+    //   counts has between 1 and SEEDS.length rows, all of length mask + 1
+    //   mask + 1 is a power of two
+    //   All counts are nonnegative
+    // Safety from rep exposure:
+    //   All fields are private and final, and never returned
+
+    /**
+     * Create an empty sketch.
+     *
+     * @param depth number of rows, between 1 and 6; more rows make collisions in
+     *              every row less likely
+     * @param width number of counters per row; must be a positive power of two
+     */
+    CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length) throw new IllegalArgumentException("depth must be between 1 and " + SEEDS.length);
+        if (width <= 0 || Integer.bitCount(width) != 1) throw new IllegalArgumentException("width must be a positive power of two");
+        counts = new int[depth][width];
+        mask = width - 1;
+        checkRep();
+    }
+
+    // checkRep
+    private void checkRep() {
+        assert counts.length >= 1 && counts.length <= SEEDS.length;
+        assert Integer.bitCount(mask + 1) == 1;
+        for (int[] row : counts) {
+            assert row.length == mask + 1;
+        }
+    }
+
+    /** Count one occurrence of the pair (a, b). */
+    void add(String a, String b) {
+        int h = a.hashCode() * 31 + b.hashCode();
+        for (int r = 0; r < counts.length; r++) {
+            int i = index(r, h);
+            if (counts[r][i] != Integer.MAX_VALUE) counts[r][i]++;
+        }
+    }
+
+    /** @return an estimate of the number of occurrences of the pair (a, b), never less than the true number */
+    int estimate(String a, String b) {
+        int h = a.hashCode() * 31 + b.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int r = 0; r < counts.length; r++) {
+            min = Math.min(min, counts[r][index(r, h)]);
+        }
+        return min;
+    }
+
+    /** @return the counter of row r for a pair of hash h */
+    private int index(int r, int h) {
+        h *= SEEDS[r];
+        h ^= h >>> 16;
+        h *= 0x7feb352d;
+        h ^= h >>> 15;
+        return h & mask;
+    }
+}
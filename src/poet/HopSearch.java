@@ -0,0 +1,242 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import graph.Graph;
+
+/**
+ * A search for bridge paths of several words in an affinity graph, for the
+ * pairs of words (w1, w2) that have no single bridge word.
+ *
+ * <p>The bridge path from w1 to w2 is the path w1 -> b1 -> ... -> bj -> w2
+ * with the fewest bridge words, at least 2 and at most maxWords, and among
+ * those the one of maximum total weight; ties are broken by comparing the
+ * words of the paths in order, in String order. Paths may repeat words.
+ *
+ * <p>The search is bidirectional: it walks forward from w1 along targets()
+ * and backward from w2 along sources(), about half of the path each, and
+ * joins the two where they meet. Only the fanOut heaviest edges from (or to)
+ * each word are followed, so a search expands at most about
+ * fanOut^ceil((maxWords + 1) / 2) words, and may miss a path that uses a
+ * lighter edge. The heaviest edges of each word are memoized across
+ * searches.
+ *
+ * <p>Safe for use by multiple threads, as long as the graph is not mutated
+ * while the search is used; after a mutation, the words whose edges changed
+ * must be invalidated.
+ */
+class HopSearch {
+
+    private final Graph<String> graph;
+    private final int maxWords;
+    private final int fanOut;
+    private final ConcurrentMap<String, Neighbors> forward = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Neighbors> backward = new ConcurrentHashMap<>();
+
+    // Abstraction function:
+    //   Represent the bridge paths of graph of at most maxWords words, found
+    //   by following the fanOut heaviest edges of each word; forward.get(w)
+    //   (resp. backward.get(w)) is the fanOut heaviest edges from (resp. to) w
+    // Representation invariant:
+    //   maxWords >= 2, fanOut >= 1
+    //   Every value of forward and backward is exactly the heaviest edges of
+    //   its key in graph, heaviest first (not checked: it would cost as much
+    //   as computing them)
+    // Safety from rep exposure:
+    //   All fields are private and final; only immutable Strings are returned
+    // Thread safety argument:
+    //   forward and backward are thread-safe maps whose values are immutable;
+    //   graph is only read; searches use only local state otherwise
+
+    /**
+     * Create a bridge path search.
+     *
+     * @param graph affinity graph; must not be mutated while this search is used,
+     *              and mutations must be followed by {@link #invalidate(String)}
+     * @param maxWords maximum number of bridge words in a path; at least 2
+     * @param fanOut number of heaviest edges followed from or to each word; positive
+     */
+    HopSearch(Graph<String> graph, int maxWords, int fanOut) {
+        if (maxWords < 2) throw new IllegalArgumentException("maxWords must be at least 2");
+        if (fanOut < 1) throw new IllegalArgumentException("fanOut must be positive");
+        this.graph = graph;
+        this.maxWords = maxWords;
+        this.fanOut = fanOut;
+    }
+
+    /** @return maximum number of bridge words in a path */
+    int maxWords() {
+        return maxWords;
+    }
+
+    /** @return number of heaviest edges followed from or to each word */
+    int fanOut() {
+        return fanOut;
+    }
+
+    /**
+     * Forget the memoized edges from and to a word, so that they are read
+     * again from the graph when next needed.
+     *
+     * @param word a word, in lower case
+     */
+    void invalidate(String word) {
+        forward.remove(word);
+        backward.remove(word);
+    }
+
+    /**
+     * Find the bridge path between two words.
+     *
+     * @param source first word, in lower case
+     * @param target second word, in lower case
+     * @return the bridge words of the bridge path from source to target,
+     *         separated by single spaces, or null if none was found
+     */
+    String path(String source, String target) {
+        List<Map<String, Step>> forwardLayers = new ArrayList<>();
+        List<Map<String, Step>> backwardLayers = new ArrayList<>();
+        forwardLayers.add(Collections.singletonMap(source, new Step(0, null)));
+        backwardLayers.add(Collections.singletonMap(target, new Step(0, null)));
+
+        for (int edges = 3; edges <= maxWords + 1; edges++) {
+            int a = (edges + 1) / 2;
+            int b = edges - a;
+            while (forwardLayers.size() <= a) forwardLayers.add(expand(forwardLayers, forward, true));
+            while (backwardLayers.size() <= b) backwardLayers.add(expand(backwardLayers, backward, false));
+            Map<String, Step> front = forwardLayers.get(a);
+            Map<String, Step> back = backwardLayers.get(b);
+            if (front.isEmpty() || back.isEmpty()) return null;
+
+            long bestWeight = -1;
+            String[] best = null;
+            for (Map.Entry<String, Step> meet : front.entrySet()) {
+                Step after = back.get(meet.getKey());
+                if (after == null) continue;
+                long weight = meet.getValue().weight + after.weight;
+                if (weight < bestWeight) continue;
+                String[] path = join(words(forwardLayers, a, meet.getKey(), true),
+                        words(backwardLayers, b, meet.getKey(), false));
+                if (weight > bestWeight || compare(path, best) < 0) {
+                    bestWeight = weight;
+                    best = path;
+                }
+            }
+            if (best != null) return String.join(" ", Arrays.copyOfRange(best, 1, best.length - 1));
+        }
+        return null;
+    }
+
+    /** The best way found to reach a word in a layer of a search. */
+    private static class Step {
+
+        final long weight;
+        final String previous;
+
+        /**
+         * @param weight total weight of the best path to the word
+         * @param previous word of the path in the layer before, or null in the first layer
+         */
+        Step(long weight, String previous) {
+            this.weight = weight;
+            this.previous = previous;
+        }
+    }
+
+    /** The heaviest edges from or to a word, heaviest first; immutable. */
+    private static class Neighbors {
+
+        final String[] words;
+        final int[] weights;
+
+        Neighbors(String[] words, int[] weights) {
+            this.words = words;
+            this.weights = weights;
+        }
+    }
+
+    /**
+     * Compute the next layer of a search: the best path to every word one
+     * edge further, following the heaviest edges of each word in the last layer.
+     *
+     * @param forward true to follow edges from words, false edges to words
+     */
+    private Map<String, Step> expand(List<Map<String, Step>> layers, ConcurrentMap<String, Neighbors> memo,
+            boolean forward) {
+        int depth = layers.size() - 1;
+        Map<String, Step> next = new HashMap<>();
+        for (Map.Entry<String, Step> entry : layers.get(depth).entrySet()) {
+            String word = entry.getKey();
+            Neighbors neighbors = memo.computeIfAbsent(word,
+                    w -> heaviest(forward ? graph.targetsView(w) : graph.sourcesView(w)));
+            for (int i = 0; i < neighbors.words.length; i++) {
+                long weight = entry.getValue().weight + neighbors.weights[i];
+                Step current = next.get(neighbors.words[i]);
+                if (current == null || weight > current.weight
+                        || (weight == current.weight && compare(words(layers, depth, word, forward),
+                                words(layers, depth, current.previous, forward)) < 0)) {
+                    next.put(neighbors.words[i], new Step(weight, word));
+                }
+            }
+        }
+        return next;
+    }
+
+    /** @return the fanOut heaviest of edges, heaviest first, ties in String order */
+    private Neighbors heaviest(Map<String, Integer> edges) {
+        List<Map.Entry<String, Integer>> sorted = new ArrayList<>(edges.entrySet());
+        sorted.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        int n = Math.min(fanOut, sorted.size());
+        String[] words = new String[n];
+        int[] weights = new int[n];
+        for (int i = 0; i < n; i++) {
+            words[i] = sorted.get(i).getKey();
+            weights[i] = sorted.get(i).getValue();
+        }
+        return new Neighbors(words, weights);
+    }
+
+    /**
+     * Reconstruct the best path to a word of a layer.
+     *
+     * @param forward true if the layers walk forward from the source, so
+     *                that the path is returned from the source to word;
+     *                false if they walk backward from the target, so that
+     *                it is returned from word to the target
+     */
+    private static String[] words(List<Map<String, Step>> layers, int depth, String word, boolean forward) {
+        String[] path = new String[depth + 1];
+        for (int d = depth; d >= 0; d--) {
+            path[forward ? d : depth - d] = word;
+            word = layers.get(d).get(word).previous;
+        }
+        return path;
+    }
+
+    /** @return the path made of front followed by back, which both contain the word where they meet */
+    private static String[] join(String[] front, String[] back) {
+        String[] path = Arrays.copyOf(front, front.length + back.length - 1);
+        System.arraycopy(back, 1, path, front.length, back.length - 1);
+        return path;
+    }
+
+    /** Compare paths of the same length word by word. */
+    private static int compare(String[] a, String[] b) {
+        for (int i = 0; i < a.length; i++) {
+            int c = a[i].compareTo(b[i]);
+            if (c != 0) return c;
+        }
+        return 0;
+    }
+}
@@ -4,7 +4,10 @@
 package poet;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Example program using GraphPoet.
@@ -16,11 +19,25 @@ public class Main {
     /**
      * Generate example poetry.
      * 
-     * @param args unused
+     * @param args optional corpus to read instead of the example corpus: a file,
+     *             a gzip-compressed file ending in ".gz", or "-" for standard input
      * @throws IOException if a poet corpus file cannot be found or read
      */
     public static void main(String[] args) throws IOException {
-        final GraphPoet nimoy = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
+        final GraphPoet nimoy;
+        if (args.length == 0) {
+            nimoy = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
+        }
+        else if (args[0].equals("-")) {
+            nimoy = new GraphPoet(System.in);
+        }
+        else {
+            try (InputStream in = args[0].endsWith(".gz")
+                    ? new GZIPInputStream(new FileInputStream(args[0]))
+                    : new FileInputStream(args[0])) {
+                nimoy = new GraphPoet(in);
+            }
+        }
         final String input = "Test the system.";
         System.out.println(input + "\n>>>\n" + nimoy.poem(input));
     }
@@ -0,0 +1,182 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the words of a UTF-8 corpus file by memory-mapping it.
+ *
+ * <p>Delimiters are found by scanning the mapped bytes, and each word is
+ * case-folded into a reusable scratch array and looked up in an intern table
+ * keyed by its bytes. Only a word whose folded bytes have not been seen before
+ * is decoded into a new String; every later occurrence returns the same
+ * String instance without allocating.
+ *
+ * <p>ASCII letters are folded byte by byte; a word containing other
+ * characters is lower-cased with {@link String#toLowerCase()} when it is
+ * first decoded, so spellings that differ only in the case of non-ASCII
+ * letters are interned separately but still read as equal words.
+ *
+ * <p>Mutable. Maps at most one window of the file at a time.
+ */
+class MappedWordReader implements WordSource {
+
+    /** Default size in bytes of the mapped window. */
+    static final int DEFAULT_WINDOW = 1 << 30;
+
+    private final FileChannel channel;
+    private final long end;
+    private final int window;
+    private MappedByteBuffer buffer = null;
+    private long bufferStart;
+
+    private byte[] scratch = new byte[64];
+    private byte[][] keys = new byte[1024][];
+    private String[] words = new String[1024];
+    private int[] hashes = new int[1024];
+    private int size = 0;
+
+    // Abstraction function:
+    //   Represent the words of the file in channel from byte position
+    //   bufferStart + buffer.position() (or bufferStart, if buffer is null) up
+    //   to byte position end; a word whose folded bytes are keys[i] reads as words[i]
+    // Representation invariant:
+    //   buffer maps [bufferStart, bufferStart + buffer.limit()) of the file,
+    //   which lies within [bufferStart, end)
+    //   keys, words and hashes have the same power-of-two length, which is
+    //   more than twice size; keys[i] is null iff words[i] is null
+    //   hashes[i] is the hash of keys[i], and keys[i] is at or after the first
+    //   free slot following index hashes[i] & (length - 1)
+    // Safety from rep exposure:
+    //   All fields are private; next() returns immutable Strings
+
+    /**
+     * Create a reader of the byte range [start, end) of a file.
+     *
+     * @param channel channel of a UTF-8 corpus file; not closed by this reader
+     * @param start position of the first byte to read; must be at the start
+     *              of a word or at a delimiter
+     * @param end position after the last byte to read; must be at the end of
+     *            a word or at a delimiter
+     * @param window maximum number of bytes to map at once; must be positive
+     */
+    MappedWordReader(FileChannel channel, long start, long end, int window) {
+        this.channel = channel;
+        this.bufferStart = start;
+        this.end = end;
+        this.window = window;
+        checkRep();
+    }
+
+    /**
+     * Create a reader of a whole file.
+     *
+     * @param channel channel of a UTF-8 corpus file; not closed by this reader
+     * @throws IOException if the size of the file cannot be read
+     */
+    MappedWordReader(FileChannel channel) throws IOException {
+        this(channel, 0, channel.size(), DEFAULT_WINDOW);
+    }
+
+    // checkRep
+    private void checkRep() {
+        assert window > 0;
+        assert keys.length == words.length && keys.length == hashes.length;
+        assert Integer.bitCount(keys.length) == 1 && size * 2 < keys.length;
+        assert buffer == null || bufferStart + buffer.limit() <= end;
+    }
+
+    /**
+     * Map the window of the file that starts at the given position.
+     */
+    private void map(long from) throws IOException {
+        bufferStart = from;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(window, end - from));
+    }
+
+    @Override public String next() throws IOException {
+        if (buffer == null) {
+            if (bufferStart >= end) return null;
+            map(bufferStart);
+        }
+        while (true) {
+            // skip delimiters
+            while (buffer.hasRemaining() && WordReader.isDelimiter(buffer.get(buffer.position()))) {
+                buffer.position(buffer.position() + 1);
+            }
+            if (!buffer.hasRemaining()) {
+                long next = bufferStart + buffer.limit();
+                if (next >= end) return null;
+                map(next);
+                continue;
+            }
+            // scan one word, folding it into scratch; it may continue into the next window
+            int length = 0;
+            int hash = 0;
+            while (true) {
+                int pos = buffer.position();
+                int limit = buffer.limit();
+                while (pos < limit) {
+                    byte b = buffer.get(pos);
+                    if (WordReader.isDelimiter(b)) break;
+                    if (b >= 'A' && b <= 'Z') b += 'a' - 'A';
+                    if (length == scratch.length) scratch = Arrays.copyOf(scratch, length * 2);
+                    scratch[length++] = b;
+                    hash = 31 * hash + b;
+                    pos++;
+                }
+                buffer.position(pos);
+                long next = bufferStart + limit;
+                if (pos < limit || next >= end) break;
+                map(next);
+            }
+            return intern(length, hash);
+        }
+    }
+
+    /**
+     * Find or create the word whose folded bytes are scratch[0..length).
+     */
+    private String intern(int length, int hash) {
+        int mask = keys.length - 1;
+        int i = hash & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == hash && Arrays.equals(keys[i], 0, keys[i].length, scratch, 0, length)) {
+                return words[i];
+            }
+            i = (i + 1) & mask;
+        }
+        byte[] key = Arrays.copyOf(scratch, length);
+        String word = new String(key, StandardCharsets.UTF_8).toLowerCase();
+        keys[i] = key;
+        words[i] = word;
+        hashes[i] = hash;
+        if (++size * 2 >= keys.length) grow();
+        return word;
+    }
+
+    private void grow() {
+        byte[][] oldKeys = keys;
+        String[] oldWords = words;
+        int[] oldHashes = hashes;
+        keys = new byte[oldKeys.length * 2][];
+        words = new String[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == null) continue;
+            int i = oldHashes[j] & mask;
+            while (keys[i] != null) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            words[i] = oldWords[j];
+            hashes[i] = oldHashes[j];
+        }
+        checkRep();
+    }
+}
@@ -0,0 +1,251 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import graph.Graph;
+import graph.GraphBuilder;
+
+/**
+ * Builds the affinity graph of a corpus file (as described in GraphPoet) in
+ * parallel.
+ *
+ * <p>The file is split recursively into byte ranges that start at a space or
+ * newline byte, so no word spans two ranges. Each range counts its own word
+ * pairs on a ForkJoinPool; neighboring partial counts are merged, adding the
+ * pair made of the last word of the left range and the first word of the
+ * right range. Each range is tokenized from memory-mapped bytes by its own
+ * MappedWordReader. The resulting graph is identical to the one built by
+ * reading the file sequentially.
+ *
+ * <p>The corpus must be UTF-8 encoded: in UTF-8 the space and newline bytes
+ * never occur inside a multi-byte character, so splitting on them is safe.
+ */
+class ParallelCorpusReader {
+
+    /** Default size in bytes below which a range is counted sequentially. */
+    static final long DEFAULT_THRESHOLD = 1 << 23;
+
+    private final FileChannel channel;
+    private final long threshold;
+
+    // Abstraction function:
+    //   Represent a reader of the corpus in channel that counts ranges of at
+    //   most threshold bytes sequentially
+    // Representation invariant:
+    //   threshold > 0
+    // Safety from rep exposure:
+    //   All fields are private and final; the channel is only read with
+    //   positional reads, which are safe to use from many threads
+
+    private ParallelCorpusReader(FileChannel channel, long threshold) {
+        this.channel = channel;
+        this.threshold = threshold;
+        checkRep();
+    }
+
+    // checkRep
+    private void checkRep() {
+        assert threshold > 0;
+    }
+
+    /**
+     * Build the affinity graph of a corpus file in parallel.
+     *
+     * @param corpus UTF-8 corpus file
+     * @param pool pool on which to count ranges of the file
+     * @param threshold size in bytes below which a range is not split further; must be positive
+     * @return a new graph whose vertices are the words of corpus and whose
+     *         edges count their adjacencies
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    static Graph<String> read(Path corpus, ForkJoinPool pool, long threshold) throws IOException {
+        return count(corpus, pool, threshold).toGraph();
+    }
+
+    /**
+     * Count the adjacencies of a corpus file in parallel.
+     *
+     * @param corpus UTF-8 corpus file
+     * @param pool pool on which to count ranges of the file
+     * @param threshold size in bytes below which a range is not split further; must be positive
+     * @return the counts of the whole corpus
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    static Counts count(Path corpus, ForkJoinPool pool, long threshold) throws IOException {
+        try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+            ParallelCorpusReader reader = new ParallelCorpusReader(channel, threshold);
+            return pool.invoke(reader.new CountTask(0, channel.size()));
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Find the first delimiter byte in [from, end) of the file.
+     *
+     * @return its position, or -1 if there is none
+     */
+    private long findDelimiter(long from, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long pos = from;
+        while (pos < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - pos));
+            int n = channel.read(buffer, pos);
+            if (n <= 0) return -1;
+            for (int i = 0; i < n; i++) {
+                if (WordReader.isDelimiter(buffer.get(i))) return pos + i;
+            }
+            pos += n;
+        }
+        return -1;
+    }
+
+    /**
+     * Count the words of one byte range sequentially.
+     */
+    private Counts count(long start, long end) throws IOException {
+        Counts counts = new Counts();
+        WordSource words = new MappedWordReader(channel, start, end, MappedWordReader.DEFAULT_WINDOW);
+        for (String word = words.next(); word != null; word = words.next()) {
+            counts.addWord(word);
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the words of the byte range [start, end) of the file, splitting
+     * it in two at a delimiter while it is larger than the threshold.
+     */
+    private class CountTask extends RecursiveTask<Counts> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long start;
+        private final long end;
+
+        CountTask(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override protected Counts compute() {
+            try {
+                long mid = end - start > threshold ? findDelimiter(start + (end - start) / 2, end) : -1;
+                if (mid < 0) return count(start, end);
+                CountTask left = new CountTask(start, mid);
+                left.fork();
+                Counts right = new CountTask(mid, end).compute();
+                return left.join().merge(right);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Word-pair counts of a contiguous part of the corpus.
+     * Mutable; two neighboring Counts merge into the counts of their concatenation.
+     */
+    static class Counts {
+
+        private final Map<String, Map<String, Integer>> adjacency = new HashMap<>();
+        private String first = null;
+        private String last = null;
+        private long words = 0;
+
+        // Abstraction function:
+        //   Represent the counts of a part of the corpus whose first and last
+        //   words are first and last (both null if the part has no words), and
+        //   in which w1 is followed by w2 adjacency.get(w1).get(w2) times, and
+        //   which has words words
+        // Representation invariant:
+        //   Every word of the part is a key of adjacency
+        //   All counts are positive
+        // Safety from rep exposure:
+        //   All fields are private; toGraph() returns a new graph
+
+        /** Append a word to the end of this part. */
+        void addWord(String word) {
+            if (first == null) first = word;
+            adjacency.computeIfAbsent(word, w -> new HashMap<>());
+            if (last != null) adjacency.get(last).merge(word, 1, Integer::sum);
+            last = word;
+            words++;
+        }
+
+        /**
+         * Append the counts of the part that follows this one.
+         *
+         * @param right counts of the part right after this one; must not be used afterwards
+         * @return the counts of the two parts concatenated
+         */
+        Counts merge(Counts right) {
+            if (right.first == null) return this;
+            if (first == null) return right;
+            String boundaryFrom = last;
+            String boundaryTo = right.first;
+            Counts into = this;
+            Counts from = right;
+            if (adjacency.size() < right.adjacency.size()) {
+                into = right;
+                from = this;
+            }
+            for (Map.Entry<String, Map<String, Integer>> entry : from.adjacency.entrySet()) {
+                Map<String, Integer> targets = into.adjacency.get(entry.getKey());
+                if (targets == null) {
+                    into.adjacency.put(entry.getKey(), entry.getValue());
+                    continue;
+                }
+                for (Map.Entry<String, Integer> e : entry.getValue().entrySet()) {
+                    targets.merge(e.getKey(), e.getValue(), Integer::sum);
+                }
+            }
+            into.adjacency.get(boundaryFrom).merge(boundaryTo, 1, Integer::sum);
+            into.first = first;
+            into.last = right.last;
+            into.words = words + right.words;
+            return into;
+        }
+
+        /** @return number of words of this part */
+        long words() {
+            return words;
+        }
+
+        /** @return the last word of this part, or null if it has no words */
+        String last() {
+            return last;
+        }
+
+        /** @return a new graph with the words and adjacency counts of this part */
+        Graph<String> toGraph() {
+            int edges = 0;
+            for (Map<String, Integer> row : adjacency.values()) {
+                edges += row.size();
+            }
+            GraphBuilder<String> builder = new GraphBuilder<>(adjacency.size(), edges);
+            for (Map.Entry<String, Map<String, Integer>> entry : adjacency.entrySet()) {
+                builder.addVertex(entry.getKey());
+                for (Map.Entry<String, Integer> e : entry.getValue().entrySet()) {
+                    builder.addEdge(entry.getKey(), e.getKey(), e.getValue());
+                }
+            }
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event for one poem generated by
+ * {@link GraphPoet#poem(String)} or
+ * {@link GraphPoet#poem(CharSequence, Appendable)}: its duration is the time
+ * to generate the poem, holding the read lock.
+ * 
+ * <p>While no recording enables the event, no event is allocated and the
+ * time spent looking up bridges is not measured: JFR events are not reliably
+ * scalar-replaced, and {@link GraphPoet#poem(CharSequence, Appendable)} must
+ * not allocate.
+ */
+@Name("poet.Poem")
+@Label("Poem")
+@Category("GraphPoet")
+@Description("One poem generated by a GraphPoet")
+@StackTrace(false)
+class PoemEvent extends Event {
+    
+    @Label("Input Words")
+    @Description("Words of the input, split at single spaces")
+    int inputWords;
+    
+    @Label("Bridges")
+    @Description("Pairs of adjacent input words between which a bridge word or path was inserted")
+    int bridges;
+    
+    @Label("Bridge Lookup Time")
+    @Description("Time spent looking up bridges between pairs of input words")
+    @Timespan(Timespan.NANOSECONDS)
+    long bridgeTime;
+    
+    /** Returned by start() while no recording enables the event; never begun nor committed. */
+    private static final PoemEvent INERT = new PoemEvent();
+    
+    /** Type of this event, looked up once the Flight Recorder is initialized, or null. */
+    private static volatile EventType type = null;
+    
+    /**
+     * Start the event of a poem.
+     * 
+     * @return a new event that has begun, or, while no recording enables the
+     *         event, a shared event that is never committed
+     */
+    static PoemEvent start() {
+        // checked first so that poems never initialize the Flight Recorder themselves
+        if (!FlightRecorder.isInitialized()) return INERT;
+        EventType t = type;
+        if (t == null) type = t = EventType.getEventType(PoemEvent.class);
+        if (!t.isEnabled()) return INERT;
+        PoemEvent event = new PoemEvent();
+        event.begin();
+        return event;
+    }
+    
+    /** @return true iff this event was started while a recording enabled it */
+    boolean recording() {
+        return this != INERT;
+    }
+    
+    /**
+     * End the poem and commit this event, if it is enabled.
+     * 
+     * @param inputWords words of the input
+     * @param bridges pairs of words between which a bridge was inserted
+     * @param bridgeTime nanoseconds spent looking up bridges
+     */
+    void finish(int inputWords, int bridges, long bridgeTime) {
+        if (this == INERT) return;
+        this.inputWords = inputWords;
+        this.bridges = bridges;
+        this.bridgeTime = bridgeTime;
+        commit();
+    }
+}
@@ -0,0 +1,158 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A subscription to a stream of poems, one for each of a sequence of inputs,
+ * generated only as the subscriber requests them.
+ *
+ * <p>Poems are generated and delivered by a task on an executor that runs
+ * while there is unmet demand and then returns, rather than waiting for the
+ * subscriber: subscribing and each request schedule the task if it is not
+ * already scheduled. The stream completes as soon as the inputs run out,
+ * whether or not more poems have been requested.
+ * No task ever blocks, so any executor works, even one of a single thread
+ * shared with the subscriber.
+ *
+ * <p>Safe for use by multiple threads: request() and cancel() may be called
+ * from any thread, and the subscriber is signalled by one task at a time.
+ */
+class PoemSubscription implements Flow.Subscription, Runnable {
+
+    private final Iterable<String> inputs;
+    private final Function<String, String> poem;
+    private final Flow.Subscriber<? super String> subscriber;
+    private final Executor executor;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger scheduled = new AtomicInteger();
+    private volatile boolean cancelled = false;
+    private volatile boolean badRequest = false;
+    private Iterator<String> remaining = null;
+    private boolean done = false;
+
+    // Abstraction function:
+    //   Represent the subscription of subscriber to poem(input) for every
+    //   input of inputs, of which the inputs before remaining have been
+    //   delivered (none if remaining is null); demand more poems have been
+    //   requested and not yet delivered; the stream has been completed or
+    //   failed if done, cancelled by the subscriber if cancelled, and must
+    //   fail if badRequest, a non-positive number of poems having been requested
+    // Representation invariant:
+    //   demand >= 0, Long.MAX_VALUE standing for unbounded demand
+    //   scheduled > 0 iff the task is on executor or running; it counts the
+    //   requests since the task last checked for demand
+    // Safety from rep exposure:
+    //   All fields are private; only poems, immutable Strings, are returned
+    // Thread safety argument:
+    //   demand, scheduled, cancelled and badRequest are atomic or volatile
+    //   remaining and done are only accessed by the task, which runs once at
+    //   a time: it is executed only when scheduled goes from 0 to 1, and
+    //   scheduled only returns to 0 at the end of a run; the updates of
+    //   scheduled order each run after the previous one
+
+    private PoemSubscription(Iterable<String> inputs, Function<String, String> poem,
+            Flow.Subscriber<? super String> subscriber, Executor executor) {
+        this.inputs = inputs;
+        this.poem = poem;
+        this.subscriber = subscriber;
+        this.executor = executor;
+    }
+
+    /**
+     * Subscribe a subscriber to a stream of poems.
+     *
+     * @param inputs strings from which to create the poems
+     * @param poem function that creates a poem from an input
+     * @param subscriber subscriber to the poem(input) of each input, in order
+     * @param executor executor to generate and deliver the poems on
+     */
+    static void subscribe(Iterable<String> inputs, Function<String, String> poem,
+            Flow.Subscriber<? super String> subscriber, Executor executor) {
+        PoemSubscription subscription = new PoemSubscription(inputs, poem, subscriber, executor);
+        subscriber.onSubscribe(subscription);
+        subscription.schedule();
+    }
+
+    @Override public void request(long n) {
+        if (n <= 0) {
+            badRequest = true;
+        }
+        else {
+            demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+        }
+        schedule();
+    }
+
+    @Override public void cancel() {
+        cancelled = true;
+    }
+
+    private void schedule() {
+        if (scheduled.getAndIncrement() != 0) return;
+        try {
+            executor.execute(this);
+        }
+        catch (RejectedExecutionException e) {
+            cancelled = true;
+            subscriber.onError(e);
+        }
+    }
+
+    /**
+     * Generate and deliver poems while there is demand, until the stream
+     * ends or the subscription is cancelled.
+     */
+    @Override public void run() {
+        int missed = 1;
+        do {
+            drain();
+            missed = scheduled.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drain() {
+        while (!done && !cancelled) {
+            if (badRequest) {
+                done = true;
+                subscriber.onError(new IllegalArgumentException("number of poems requested must be positive"));
+                return;
+            }
+            boolean more;
+            try {
+                if (remaining == null) remaining = inputs.iterator();
+                more = remaining.hasNext();
+            }
+            catch (RuntimeException e) {
+                done = true;
+                subscriber.onError(e);
+                return;
+            }
+            if (!more) {
+                done = true;
+                subscriber.onComplete();
+                return;
+            }
+            if (demand.get() == 0) return;
+            String next;
+            try {
+                next = poem.apply(remaining.next());
+            }
+            catch (RuntimeException e) {
+                done = true;
+                subscriber.onError(e);
+                return;
+            }
+            if (demand.get() != Long.MAX_VALUE) demand.decrementAndGet();
+            subscriber.onNext(next);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import graph.FrozenGraph;
+
+/**
+ * An index from the words of a frozen affinity graph to their ids, which
+ * looks up a range of characters in lower case without copying it into a
+ * String.
+ *
+ * <p>Characters are lowered one code point at a time with
+ * {@link Character#toLowerCase(int)}, which agrees with
+ * {@link String#toLowerCase()} except for the cases that
+ * {@link #lowersPerChar(CharSequence, int, int)} rules out.
+ *
+ * <p>Immutable, so safe for use by multiple threads.
+ */
+class WordIndex {
+
+    private final FrozenGraph<String> graph;
+    private final int[] table;
+    private final int mask;
+
+    // Abstraction function:
+    //   Represent the map from every vertex label w of graph to graph.id(w)
+    // Representation invariant:
+    //   table.length is a power of two, at least twice the number of vertices
+    //   every vertex id v is stored as v + 1 in table, in the first free slot
+    //   probing linearly from graph.label(v).hashCode() & mask; other slots are 0
+    // Safety from rep exposure:
+    //   All fields are private and final; table is never returned, and graph is immutable
+
+    /**
+     * Index the words of a graph.
+     *
+     * @param graph affinity graph, whose vertices are words in lower case
+     */
+    WordIndex(FrozenGraph<String> graph) {
+        this.graph = graph;
+        int n = graph.vertexCount();
+        this.table = new int[Integer.highestOneBit(Math.max(1, n) * 2 - 1) * 2];
+        this.mask = table.length - 1;
+        for (int v = 0; v < n; v++) {
+            int slot = graph.label(v).hashCode() & mask;
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = v + 1;
+        }
+        checkRep();
+    }
+
+    // checkRep
+    private void checkRep() {
+        assert Integer.bitCount(table.length) == 1;
+        assert table.length >= 2 * graph.vertexCount();
+    }
+
+    /** @return true iff this index is of the given graph */
+    boolean indexes(FrozenGraph<String> graph) {
+        return this.graph == graph;
+    }
+
+    /**
+     * Look up a word in lower case.
+     *
+     * @param text text containing the word
+     * @param start index of the first character of the word
+     * @param end index after the last character of the word
+     * @return the id in the graph of text[start..end) in lower case, or -1 if
+     *         it is not a word of the graph
+     */
+    int find(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; ) {
+            int cp = Character.codePointAt(text, i);
+            i += Character.charCount(cp);
+            int c = Character.toLowerCase(cp);
+            if (Character.isBmpCodePoint(c)) {
+                hash = 31 * hash + c;
+            }
+            else {
+                hash = 31 * hash + Character.highSurrogate(c);
+                hash = 31 * hash + Character.lowSurrogate(c);
+            }
+        }
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            String word = graph.label(table[slot] - 1);
+            if (word.hashCode() == hash && equalsLowerCase(word, text, start, end)) return table[slot] - 1;
+        }
+        return -1;
+    }
+
+    /** @return true iff word is text[start..end) lowered one code point at a time */
+    private static boolean equalsLowerCase(String word, CharSequence text, int start, int end) {
+        int j = 0;
+        for (int i = start; i < end; ) {
+            int cp = Character.codePointAt(text, i);
+            i += Character.charCount(cp);
+            int c = Character.toLowerCase(cp);
+            if (j >= word.length() || word.codePointAt(j) != c) return false;
+            j += Character.charCount(c);
+        }
+        return j == word.length();
+    }
+
+    /**
+     * Append a word in lower case, lowered one code point at a time.
+     *
+     * @param text text containing the word
+     * @param start index of the first character of the word
+     * @param end index after the last character of the word
+     * @param out destination of text[start..end) in lower case
+     * @throws IOException if out does
+     */
+    static void appendLowerCase(CharSequence text, int start, int end, Appendable out) throws IOException {
+        for (int i = start; i < end; ) {
+            int cp = Character.codePointAt(text, i);
+            i += Character.charCount(cp);
+            int c = Character.toLowerCase(cp);
+            if (Character.isBmpCodePoint(c)) {
+                out.append((char) c);
+            }
+            else {
+                out.append(Character.highSurrogate(c)).append(Character.lowSurrogate(c));
+            }
+        }
+    }
+
+    /**
+     * Check whether lowering a word one code point at a time gives the same
+     * word as {@link String#toLowerCase()}. It does not for the dotted
+     * capital I (U+0130), which lowers to two chars, for the capital sigma
+     * (U+03A3), which lowers to a final sigma at the end of a word, and for
+     * the languages whose lower-case rules depend on the default locale.
+     *
+     * @param text text containing the word
+     * @param start index of the first character of the word
+     * @param end index after the last character of the word
+     * @return true if text[start..end) can be lowered one code point at a time
+     */
+    static boolean lowersPerChar(CharSequence text, int start, int end) {
+        String language = Locale.getDefault().getLanguage();
+        if (language.equals("tr") || language.equals("az") || language.equals("lt")) return false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '\u0130' || c == '\u03a3') return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,74 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads the words of a corpus from a character stream.
+ *
+ * <p>Mutable. Only the word being read is buffered, so a corpus of any size
+ * is read in constant memory.
+ */
+class WordReader implements WordSource {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder word = new StringBuilder();
+    private int pos = 0;
+    private int limit = 0;
+
+    // Abstraction function:
+    //   Represent the words of in that are not yet returned, which are
+    //   buffer[pos..limit) followed by the rest of in
+    // Representation invariant:
+    //   0 <= pos <= limit <= buffer.length
+    //   word is empty between calls to next()
+    // Safety from rep exposure:
+    //   All fields are private; next() returns immutable Strings
+
+    /**
+     * Create a word reader.
+     *
+     * @param in source of the corpus text; read to its end but not closed
+     */
+    public WordReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Check whether a character delimits words.
+     *
+     * @param c a character
+     * @return true iff c is a space or a newline character
+     */
+    public static boolean isDelimiter(int c) {
+        return c == ' ' || c == '\n' || c == '\r';
+    }
+
+    @Override public String next() throws IOException {
+        while (true) {
+            if (pos == limit) {
+                limit = in.read(buffer);
+                pos = 0;
+                if (limit == -1) {
+                    limit = 0;
+                    return word.length() > 0 ? take() : null;
+                }
+            }
+            char c = buffer[pos++];
+            if (!isDelimiter(c)) word.append(c);
+            else if (word.length() > 0) return take();
+        }
+    }
+
+    private String take() {
+        String w = word.toString().toLowerCase();
+        word.setLength(0);
+        return w;
+    }
+}
@@ -0,0 +1,24 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.IOException;
+
+/**
+ * A corpus whose words, as defined by GraphPoet, are read one at a time:
+ * non-empty strings of non-space non-newline characters, delimited by spaces,
+ * newlines, or the end of the corpus.
+ */
+interface WordSource {
+    
+    /**
+     * Read the next word.
+     * 
+     * @return the next word of the corpus in lower case, or null at the end
+     *         of the corpus
+     * @throws IOException if the corpus cannot be read
+     */
+    public String next() throws IOException;
+    
+}
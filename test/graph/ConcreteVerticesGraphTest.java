@@ -34,6 +34,54 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
     
     // TODO tests for ConcreteVerticesGraph.toString()
     
+    // Testing strategy for ConcreteVerticesGraph.remove()
+    //   vertex with incoming and outgoing edges, then re-added with the same label
+    //   soak: millions of add/set/remove cycles over a small window of labels;
+    //         heap usage stays flat and no removed vertex is reachable
+    
+    @Test public void testRemoveThenReAdd() {
+        Graph<String> graph = emptyInstance();
+        graph.set("Pig", "Dog", 1);
+        graph.set("Dog", "Cat", 2);
+        assertTrue(graph.remove("Dog"));
+        assertTrue(graph.targets("Pig").isEmpty());
+        assertTrue(graph.sources("Cat").isEmpty());
+        graph.add("Dog");
+        assertTrue(graph.targets("Pig").isEmpty());
+        assertTrue(graph.sources("Dog").isEmpty());
+        assertTrue(graph.targets("Dog").isEmpty());
+    }
+    
+    @Test public void testRemoveSoak() {
+        final int window = 16;
+        final int cycles = 2_000_000;
+        Graph<String> graph = emptyInstance();
+        String[] labels = new String[window];
+        for (int i = 0; i < window; i++) labels[i] = "w" + i;
+        long baseline = 0;
+        for (int i = 0; i < cycles; i++) {
+            String v = labels[i % window];
+            graph.set(labels[(i + 1) % window], v, 1 + i % 3);
+            graph.set(v, labels[(i + 5) % window], 1);
+            graph.remove(v);
+            if (i == cycles / 4) baseline = usedHeap();
+        }
+        long growth = usedHeap() - baseline;
+        assertTrue("heap grew by " + growth + " bytes", growth < 8 << 20);
+        assertTrue(graph.vertices().size() <= window);
+        for (String v : graph.vertices()) {
+            assertTrue(graph.vertices().containsAll(graph.targets(v).keySet()));
+            assertTrue(graph.vertices().containsAll(graph.sources(v).keySet()));
+        }
+    }
+    
+    /** @return bytes of heap in use after a full collection */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+    
     /*
      * Testing Vertex...
      */
@@ -41,6 +89,8 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
     // Testing strategy for Vertex
     //   to: 0, 1, 2 vertices
     //   edge: 1, > 1
+    //   from: 0, 1, 2 vertices; kept in step with the other vertex's to
+    //   unlink(): vertex with no edges, incoming and outgoing edges
     
     // tests for operations of Vertex
     @Test public void testAddWeightToOneVertex() {
@@ -191,4 +241,41 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
         v2.addWeightTo(v3, 5);
         assertEquals(v2.getWeightTo(v3), 5);
     }
+    
+    @Test public void testGetSourcesZeroVertex() {
+        Vertex<String> v1 = new Vertex<>("Chicken");
+        assertTrue(v1.getSources().isEmpty());
+        assertEquals(0, v1.getWeightFrom(new Vertex<>("Dog")));
+    }
+    
+    @Test public void testGetSourcesFollowsAddWeightTo() {
+        Vertex<String> v1 = new Vertex<>("Chicken");
+        Vertex<String> v2 = new Vertex<>("Dog");
+        Vertex<String> v3 = new Vertex<>("Cat");
+        v2.addWeightTo(v1, 4);
+        v3.addWeightTo(v1, 5);
+        assertEquals(new HashSet<>(Arrays.asList(v2, v3)), v1.getSources());
+        assertEquals(4, v1.getWeightFrom(v2));
+        v2.addWeightTo(v1, 7);
+        assertEquals(7, v1.getWeightFrom(v2));
+        v2.addWeightTo(v1, 0);
+        assertEquals(Collections.singleton(v3), v1.getSources());
+        assertEquals(0, v1.getWeightFrom(v2));
+    }
+    
+    @Test public void testUnlink() {
+        Vertex<String> v1 = new Vertex<>("Chicken");
+        Vertex<String> v2 = new Vertex<>("Dog");
+        Vertex<String> v3 = new Vertex<>("Cat");
+        v1.addWeightTo(v2, 1);
+        v2.addWeightTo(v1, 2);
+        v3.addWeightTo(v1, 3);
+        v2.addWeightTo(v3, 4);
+        v1.unlink();
+        assertTrue(v1.getVerticesFrom().isEmpty());
+        assertTrue(v1.getSources().isEmpty());
+        assertEquals(Collections.singleton(v3), v2.getVerticesFrom());
+        assertTrue(v2.getSources().isEmpty());
+        assertTrue(v3.getVerticesFrom().isEmpty());
+    }
 }
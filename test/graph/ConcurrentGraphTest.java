@@ -0,0 +1,222 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * Tests for ConcurrentGraph.
+ *
+ * This class runs the GraphInstanceTest tests against ConcurrentGraph, as
+ * well as stress tests that use one graph from many threads at once.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class ConcurrentGraphTest extends GraphInstanceTest {
+
+    private static final int THREADS = 8;
+
+    /*
+     * Provide a ConcurrentGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new ConcurrentGraph<String>();
+    }
+
+    /*
+     * Testing ConcurrentGraph...
+     */
+
+    // Testing strategy for ConcurrentGraph
+    //   constructor: stripes 1, > 1, not a power of two
+    //   writers: increment() on shared and disjoint edges, set(), remove()
+    //            concurrently with increment()
+    //   readers: targets() and sources() concurrently with writers
+    //   stripes: 1 (everything contends), default
+
+    /** Run tasks on THREADS threads at once and rethrow the first failure. */
+    private static void runConcurrently(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<Void> f : pool.invokeAll(tasks)) {
+                f.get();
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Check that sources() and targets() agree on every edge. */
+    private static void assertConsistent(Graph<String> graph) {
+        for (String v : graph.vertices()) {
+            for (Map.Entry<String, Integer> e : graph.targets(v).entrySet()) {
+                assertTrue(e.getValue() > 0);
+                assertEquals(e.getValue(), graph.sources(e.getKey()).get(v));
+            }
+            for (Map.Entry<String, Integer> e : graph.sources(v).entrySet()) {
+                assertEquals(e.getValue(), graph.targets(e.getKey()).get(v));
+            }
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testStripesNotPowerOfTwo() {
+        new ConcurrentGraph<String>(3);
+    }
+
+    @Test public void testToStringEmptyGraph() {
+        assertEquals("The graph is empty, nothing to print", emptyInstance().toString());
+    }
+
+    @Test public void testConcurrentIncrementSharedEdges() throws Exception {
+        for (Graph<String> graph : Arrays.<Graph<String>>asList(new ConcurrentGraph<>(1), emptyInstance())) {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                tasks.add(() -> {
+                    for (int j = 0; j < 10000; j++) {
+                        graph.increment("w" + (j % 10), "w" + ((j + 1) % 10), 1);
+                    }
+                    return null;
+                });
+            }
+            runConcurrently(tasks);
+            for (int j = 0; j < 10; j++) {
+                assertEquals(Collections.singletonMap("w" + ((j + 1) % 10), THREADS * 1000),
+                        graph.targets("w" + j));
+            }
+            assertConsistent(graph);
+        }
+    }
+
+    @Test public void testConcurrentIncrementRandomEdges() throws Exception {
+        Graph<String> graph = emptyInstance();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final int seed = i;
+            tasks.add(() -> {
+                Random random = new Random(seed);
+                for (int j = 0; j < 20000; j++) {
+                    graph.increment("w" + random.nextInt(200), "w" + random.nextInt(200), 1);
+                }
+                return null;
+            });
+        }
+        runConcurrently(tasks);
+        int total = 0;
+        for (String v : graph.vertices()) {
+            for (int w : graph.targets(v).values()) total += w;
+        }
+        assertEquals(THREADS * 20000, total);
+        assertConsistent(graph);
+    }
+
+    @Test public void testConcurrentAddReturnsTrueOnce() throws Exception {
+        Graph<String> graph = emptyInstance();
+        ConcurrentMap<String, Integer> added = new ConcurrentHashMap<>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tasks.add(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    if (graph.add("v" + j)) added.merge("v" + j, 1, Integer::sum);
+                }
+                return null;
+            });
+        }
+        runConcurrently(tasks);
+        assertEquals(1000, graph.vertices().size());
+        assertEquals(1000, added.size());
+        assertEquals(Collections.singleton(1), new HashSet<>(added.values()));
+    }
+
+    @Test public void testConcurrentRemoveAndIncrement() throws Exception {
+        Graph<String> graph = emptyInstance();
+        AtomicBoolean done = new AtomicBoolean(false);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS - 1; i++) {
+            final int seed = i;
+            tasks.add(() -> {
+                Random random = new Random(seed);
+                for (int j = 0; j < 20000; j++) {
+                    graph.increment("w" + random.nextInt(50), "w" + random.nextInt(50), 1);
+                }
+                return null;
+            });
+        }
+        tasks.add(() -> {
+            Random random = new Random();
+            while (!done.get()) {
+                graph.remove("w" + random.nextInt(50));
+                if (graph.vertices().size() < 5) done.set(true);
+                Thread.yield();
+            }
+            return null;
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks) futures.add(pool.submit(task));
+            for (int i = 0; i < THREADS - 1; i++) futures.get(i).get();
+            done.set(true);
+            futures.get(THREADS - 1).get();
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        assertConsistent(graph);
+    }
+
+    @Test public void testSnapshotsDuringWrites() throws Exception {
+        Graph<String> graph = emptyInstance();
+        AtomicBoolean done = new AtomicBoolean(false);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        // each writer keeps its own row at the same weight for every target,
+        // updating all of it before moving to the next weight
+        for (int i = 0; i < THREADS / 2; i++) {
+            final String source = "s" + i;
+            tasks.add(() -> {
+                for (int w = 1; w <= 2000; w++) {
+                    for (int t = 0; t < 5; t++) {
+                        graph.set(source, "t" + t, w);
+                    }
+                }
+                done.set(true);
+                return null;
+            });
+        }
+        for (int i = 0; i < THREADS / 2; i++) {
+            final String source = "s" + i;
+            tasks.add(() -> {
+                while (!done.get()) {
+                    Map<String, Integer> row = graph.targets(source);
+                    int min = Integer.MAX_VALUE;
+                    int max = 0;
+                    for (int w : row.values()) {
+                        assertTrue(w > 0);
+                        min = Math.min(min, w);
+                        max = Math.max(max, w);
+                    }
+                    // a snapshot sees a row that is at most one round of updates apart
+                    assertTrue(row.isEmpty() || max - min <= 1);
+                    for (Map.Entry<String, Integer> e : graph.sources("t0").entrySet()) {
+                        assertTrue(e.getValue() > 0);
+                    }
+                }
+                return null;
+            });
+        }
+        runConcurrently(tasks);
+        for (int i = 0; i < THREADS / 2; i++) {
+            assertEquals(5, graph.targets("s" + i).size());
+            assertEquals(Integer.valueOf(2000), graph.targets("s" + i).get("t4"));
+        }
+        assertConsistent(graph);
+    }
+}
@@ -0,0 +1,270 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for FrozenGraph.
+ *
+ * FrozenGraph is immutable, so it cannot run the GraphInstanceTest tests;
+ * instead each test freezes a mutable graph and compares the observers.
+ */
+public class FrozenGraphTest {
+
+    // Testing strategy
+    //   freeze(): empty graph, vertices without edges, edges, self-loop,
+    //             already frozen graph
+    //   observers: vertices(), sources(), targets() on present and missing labels
+    //   mutators: add(), set(), increment(), remove() all throw
+    //   compact(): maxOutDegree 0, 1, >= degree, ties at the cut-off;
+    //              minWeight 1, > 1; vertices left isolated, isolated before;
+    //              invalid arguments
+    //   CompactionReport: counts and bytes reclaimed, nothing removed,
+    //                     size before measured
+    //   id access: id of a vertex, of a missing vertex; label; out and in rows
+    //              of a vertex with no edges, one edge, several edges, a self-loop;
+    //              weight of an edge, of a missing edge; index out of range
+    //   views: same as the copies, lookups of labels in and not in the row,
+    //          iteration, unmodifiable
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static Graph<String> sample() {
+        Graph<String> graph = Graph.empty();
+        graph.add("Cat");
+        graph.set("Pig", "Dog", 999);
+        graph.set("Pig", "Chicken", 1);
+        graph.set("Dog", "Pig", 3);
+        graph.set("Dog", "Dog", 7);
+        return graph;
+    }
+
+    @Test public void testFreezeEmpty() {
+        Graph<String> frozen = FrozenGraph.freeze(Graph.<String>empty());
+        assertEquals(Collections.emptySet(), frozen.vertices());
+        assertTrue(frozen.targets("Pig").isEmpty());
+        assertTrue(frozen.sources("Pig").isEmpty());
+        assertEquals("The graph is empty, nothing to print", frozen.toString());
+    }
+
+    @Test public void testFreezeMatchesSource() {
+        Graph<String> graph = sample();
+        Graph<String> frozen = FrozenGraph.freeze(graph);
+        assertEquals(graph.vertices(), frozen.vertices());
+        for (String v : graph.vertices()) {
+            assertEquals(graph.targets(v), frozen.targets(v));
+            assertEquals(graph.sources(v), frozen.sources(v));
+        }
+    }
+
+    @Test public void testFreezeMissingLabel() {
+        Graph<String> frozen = FrozenGraph.freeze(sample());
+        assertTrue(frozen.targets("pig").isEmpty());
+        assertTrue(frozen.sources("pig").isEmpty());
+        assertTrue(frozen.targets("Cat").isEmpty());
+    }
+
+    @Test public void testFreezeIsIndependentCopy() {
+        Graph<String> graph = sample();
+        Graph<String> frozen = FrozenGraph.freeze(graph);
+        graph.set("Pig", "Dog", 0);
+        graph.remove("Cat");
+        assertEquals(Integer.valueOf(999), frozen.targets("Pig").get("Dog"));
+        assertTrue(frozen.vertices().contains("Cat"));
+    }
+
+    @Test public void testFreezeAlreadyFrozen() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(sample());
+        assertSame(frozen, FrozenGraph.freeze(frozen));
+    }
+
+    @Test public void testReturnedMapsAreCopies() {
+        Graph<String> frozen = FrozenGraph.freeze(sample());
+        frozen.targets("Pig").clear();
+        frozen.vertices().clear();
+        assertEquals(2, frozen.targets("Pig").size());
+        assertEquals(4, frozen.vertices().size());
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testAddThrows() {
+        FrozenGraph.freeze(sample()).add("Horse");
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testSetThrows() {
+        FrozenGraph.freeze(sample()).set("Pig", "Dog", 1);
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testIncrementThrows() {
+        FrozenGraph.freeze(sample()).increment("Pig", "Dog", 1);
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testRemoveThrows() {
+        FrozenGraph.freeze(sample()).remove("Pig");
+    }
+
+    private static Graph<String> expected(String... edges) {
+        Graph<String> graph = Graph.empty();
+        for (int i = 0; i < edges.length; i += 3) {
+            graph.set(edges[i], edges[i + 1], Integer.parseInt(edges[i + 2]));
+        }
+        return graph;
+    }
+
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        for (String v : expected.vertices()) {
+            assertEquals(expected.targets(v), actual.targets(v));
+            assertEquals(expected.sources(v), actual.sources(v));
+        }
+    }
+
+    @Test public void testCompactKeepAll() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(sample());
+        FrozenGraph<String> compacted = frozen.compact(Integer.MAX_VALUE, 1);
+        // Cat has no edges, so it is dropped
+        assertSameGraph(expected("Pig", "Dog", "999", "Pig", "Chicken", "1", "Dog", "Pig", "3", "Dog", "Dog", "7"),
+                compacted);
+        CompactionReport report = new CompactionReport(frozen, compacted);
+        assertEquals(1, report.verticesRemoved());
+        assertEquals(0, report.edgesRemoved());
+        assertEquals(4, report.edgesKept());
+        assertTrue(report.bytesReclaimed() > 0);
+        assertFalse(report.estimatedBefore());
+        assertFalse(report.toString().contains("estimate"));
+    }
+
+    @Test public void testCompactTopOne() {
+        FrozenGraph<String> compacted = FrozenGraph.freeze(sample()).compact(1, 1);
+        assertSameGraph(expected("Pig", "Dog", "999", "Dog", "Dog", "7"), compacted);
+        assertEquals(2, compacted.edgeCount());
+        assertEquals(2, compacted.vertexCount());
+    }
+
+    @Test public void testCompactMinWeight() {
+        FrozenGraph<String> compacted = FrozenGraph.freeze(sample()).compact(Integer.MAX_VALUE, 3);
+        assertSameGraph(expected("Pig", "Dog", "999", "Dog", "Pig", "3", "Dog", "Dog", "7"), compacted);
+    }
+
+    @Test public void testCompactKeepsTies() {
+        FrozenGraph<String> compacted = FrozenGraph.freeze(expected(
+                "a", "b", "5", "a", "c", "5", "a", "d", "2", "a", "e", "5", "b", "a", "1")).compact(2, 1);
+        assertSameGraph(expected("a", "b", "5", "a", "c", "5", "a", "e", "5", "b", "a", "1"), compacted);
+    }
+
+    @Test public void testCompactZeroDegree() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(sample());
+        FrozenGraph<String> compacted = frozen.compact(0, 1);
+        assertEquals(Collections.emptySet(), compacted.vertices());
+        CompactionReport report = new CompactionReport(frozen, compacted);
+        assertEquals(4, report.verticesRemoved());
+        assertEquals(4, report.edgesRemoved());
+        assertTrue(report.toString().contains("edges = 4 -> 0"));
+    }
+
+    @Test public void testCompactDoesNotModify() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(sample());
+        frozen.compact(1, 100);
+        assertSameGraph(sample(), frozen);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCompactNegativeDegree() {
+        FrozenGraph.freeze(sample()).compact(-1, 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCompactZeroMinWeight() {
+        FrozenGraph.freeze(sample()).compact(1, 0);
+    }
+
+    @Test public void testIdAccess() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(sample());
+        assertEquals(-1, frozen.id("Horse"));
+        int cat = frozen.id("Cat");
+        int pig = frozen.id("Pig");
+        int dog = frozen.id("Dog");
+        int chicken = frozen.id("Chicken");
+        for (String v : sample().vertices()) {
+            assertEquals(v, frozen.label(frozen.id(v)));
+        }
+        assertEquals(0, frozen.outDegree(cat));
+        assertEquals(0, frozen.inDegree(cat));
+        assertEquals(1, frozen.inDegree(chicken));
+        assertEquals(pig, frozen.source(chicken, 0));
+        assertEquals(1, frozen.sourceWeight(chicken, 0));
+        assertEquals(2, frozen.outDegree(pig));
+        Map<String, Integer> targets = new HashMap<>();
+        for (int k = 0; k < frozen.outDegree(pig); k++) {
+            assertTrue(k == 0 || frozen.target(pig, k - 1) < frozen.target(pig, k));
+            targets.put(frozen.label(frozen.target(pig, k)), frozen.targetWeight(pig, k));
+        }
+        assertEquals(sample().targets("Pig"), targets);
+        Map<String, Integer> sources = new HashMap<>();
+        for (int k = 0; k < frozen.inDegree(dog); k++) {
+            sources.put(frozen.label(frozen.source(dog, k)), frozen.sourceWeight(dog, k));
+        }
+        assertEquals(sample().sources("Dog"), sources);
+        assertEquals(999, frozen.weight(pig, dog));
+        assertEquals(7, frozen.weight(dog, dog));
+        assertEquals(0, frozen.weight(dog, chicken));
+        assertEquals(0, frozen.weight(cat, dog));
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testTargetOutOfRange() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(sample());
+        int pig = frozen.id("Pig");
+        frozen.target(pig, frozen.outDegree(pig));
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testSourceOutOfRange() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(sample());
+        frozen.source(frozen.id("Cat"), 0);
+    }
+
+    @Test public void testViews() {
+        Graph<String> graph = sample();
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        assertEquals(graph.vertices(), frozen.vertexView());
+        for (String v : Arrays.asList("Cat", "Pig", "Dog", "Chicken", "Horse")) {
+            assertEquals(graph.sources(v), frozen.sourcesView(v));
+            assertEquals(graph.targets(v), frozen.targetsView(v));
+            assertEquals(frozen.targetsView(v), graph.targets(v));
+        }
+        Map<String, Integer> targets = frozen.targetsView("Pig");
+        assertEquals(2, targets.size());
+        assertEquals(Integer.valueOf(999), targets.get("Dog"));
+        assertNull(targets.get("Cat"));
+        assertNull(targets.get("Horse"));
+        assertFalse(targets.containsKey("Pig"));
+        assertTrue(frozen.sourcesView("Dog").containsKey("Dog"));
+        Iterator<Map.Entry<String, Integer>> entries = targets.entrySet().iterator();
+        entries.next();
+        entries.next();
+        assertFalse(entries.hasNext());
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testRowViewUnmodifiable() {
+        FrozenGraph.freeze(sample()).targetsView("Pig").remove("Dog");
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testVertexViewUnmodifiable() {
+        FrozenGraph.freeze(sample()).vertexView().add("Horse");
+    }
+}
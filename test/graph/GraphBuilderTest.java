@@ -0,0 +1,142 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for GraphBuilder.
+ *
+ * Each test builds a graph and compares its observers with those of a graph
+ * built one set() at a time.
+ */
+public class GraphBuilderTest {
+
+    // Testing strategy
+    //   constructor: default, presized exactly, presized too small, negative size
+    //   addVertex(): new, repeated, vertex without edges
+    //   addEdge(): new edge, repeated edge (weights add up), self-loop, weight 0,
+    //              weights that overflow when added
+    //   addEdges(): 0, > 1 edges in unsorted order; lengths differ; a bad weight
+    //   build(): empty builder, built twice with additions in between
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        for (String v : expected.vertices()) {
+            assertEquals(expected.targets(v), actual.targets(v));
+            assertEquals(expected.sources(v), actual.sources(v));
+        }
+    }
+
+    @Test public void testBuildEmpty() {
+        Graph<String> graph = new GraphBuilder<String>().build();
+        assertEquals(Collections.emptySet(), graph.vertices());
+        assertTrue(graph.targets("Pig").isEmpty());
+    }
+
+    @Test public void testAddVertex() {
+        Graph<String> graph = new GraphBuilder<String>().addVertex("Pig").addVertex("Pig").addVertex("Dog").build();
+        assertEquals(new HashSet<>(Arrays.asList("Pig", "Dog")), graph.vertices());
+        assertTrue(graph.targets("Pig").isEmpty());
+    }
+
+    @Test public void testAddEdgeRepeatedAddsWeights() {
+        Graph<String> graph = new GraphBuilder<String>()
+                .addEdge("Pig", "Dog", 2)
+                .addEdge("Dog", "Dog", 5)
+                .addEdge("Pig", "Dog", 3)
+                .build();
+        Graph<String> expected = Graph.empty();
+        expected.set("Pig", "Dog", 5);
+        expected.set("Dog", "Dog", 5);
+        assertSameGraph(expected, graph);
+    }
+
+    @Test(expected=RuntimeException.class)
+    public void testAddEdgeZeroWeight() {
+        new GraphBuilder<String>().addEdge("Pig", "Dog", 0);
+    }
+
+    @Test(expected=ArithmeticException.class)
+    public void testBuildWeightOverflow() {
+        new GraphBuilder<String>()
+                .addEdge("Pig", "Dog", Integer.MAX_VALUE)
+                .addEdge("Pig", "Dog", 1)
+                .build();
+    }
+
+    @Test public void testAddEdgesUnsorted() {
+        String[] sources = { "c", "a", "b", "a", "c", "a" };
+        String[] targets = { "a", "c", "c", "b", "b", "c" };
+        int[] weights = { 1, 2, 3, 4, 5, 6 };
+        Graph<String> graph = new GraphBuilder<String>(1, 2).addVertex("d").addEdges(sources, targets, weights).build();
+        Graph<String> expected = Graph.empty();
+        expected.add("d");
+        for (int i = 0; i < sources.length; i++) {
+            expected.increment(sources[i], targets[i], weights[i]);
+        }
+        assertSameGraph(expected, graph);
+    }
+
+    @Test public void testAddEdgesNone() {
+        Graph<String> graph = new GraphBuilder<String>().addEdges(new String[0], new String[0], new int[0]).build();
+        assertEquals(Collections.emptySet(), graph.vertices());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testAddEdgesLengthsDiffer() {
+        new GraphBuilder<String>().addEdges(new String[] { "a" }, new String[] { "b" }, new int[0]);
+    }
+
+    @Test public void testAddEdgesBadWeightAddsNothing() {
+        GraphBuilder<String> builder = new GraphBuilder<>();
+        try {
+            builder.addEdges(new String[] { "a", "b" }, new String[] { "b", "c" }, new int[] { 1, 0 });
+            fail("expected exception");
+        }
+        catch (RuntimeException e) {
+            // expected
+        }
+        assertEquals(Collections.emptySet(), builder.build().vertices());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeExpectedSize() {
+        new GraphBuilder<String>(-1, 0);
+    }
+
+    @Test public void testBuildTwice() {
+        GraphBuilder<String> builder = new GraphBuilder<String>().addEdge("Pig", "Dog", 1);
+        Graph<String> first = builder.build();
+        builder.addEdge("Pig", "Dog", 1).addEdge("Dog", "Cat", 2);
+        Graph<String> second = builder.build();
+        assertEquals(new HashSet<>(Arrays.asList("Pig", "Dog")), first.vertices());
+        assertEquals(Collections.singletonMap("Dog", 1), first.targets("Pig"));
+        assertEquals(Collections.singletonMap("Dog", 2), second.targets("Pig"));
+        assertEquals(Collections.singletonMap("Dog", 2), second.sources("Cat"));
+    }
+
+    @Test public void testRandomMatchesIncrement() {
+        Random random = new Random(0);
+        GraphBuilder<String> builder = new GraphBuilder<>(100, 5000);
+        Graph<String> expected = Graph.empty();
+        for (int i = 0; i < 5000; i++) {
+            String source = "w" + random.nextInt(100);
+            String target = "w" + random.nextInt(100);
+            int weight = 1 + random.nextInt(10);
+            builder.addEdge(source, target, weight);
+            expected.increment(source, target, weight);
+        }
+        assertSameGraph(expected, builder.build());
+    }
+}
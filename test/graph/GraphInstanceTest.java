@@ -143,9 +143,75 @@ public abstract class GraphInstanceTest {
         assertEquals(prevWeight, 0);
     }
     
+    @Test
+    public void testSetSelfLoop() {
+        Graph<String> graph = emptyInstance();
+        assertEquals(0, graph.set("a", "a", 1));
+        assertEquals(Collections.singleton("a"), graph.vertices());
+        assertEquals(Collections.singletonMap("a", 1), graph.targets("a"));
+        assertEquals(Collections.singletonMap("a", 1), graph.sources("a"));
+        graph.set("a", "b", 2);
+        assertEquals(1, graph.increment("a", "a", 4));
+        assertEquals(5, graph.set("a", "a", 0));
+        assertEquals(Collections.singletonMap("b", 2), graph.targets("a"));
+        assertTrue(graph.sources("a").isEmpty());
+        graph.set("a", "a", 3);
+        assertTrue(graph.remove("a"));
+        assertEquals(Collections.singleton("b"), graph.vertices());
+        assertTrue(graph.sources("b").isEmpty());
+    }
+    
+    // increment():
+    //    edge: exists, does not exist
+    //    vertices: exist, do not exist
+    //    delta: negative, 0, > 0
+    //    new weight: 0, > 0, < 0
+    
+    @Test
+    public void testIncrementNewEdgeAddsVertices() {
+        Graph<String> graph = emptyInstance();
+        assertEquals(0, graph.increment("one", "two", 1));
+        assertEquals(new HashSet<>(Arrays.asList("one", "two")), graph.vertices());
+        assertEquals(Collections.singletonMap("two", 1), graph.targets("one"));
+    }
+    
+    @Test
+    public void testIncrementExistingEdge() {
+        Graph<String> graph = emptyInstance();
+        graph.set("one", "two", 3);
+        assertEquals(3, graph.increment("one", "two", 2));
+        assertEquals(5, graph.increment("one", "two", 1));
+        assertEquals(Collections.singletonMap("one", 6), graph.sources("two"));
+    }
+    
+    @Test
+    public void testIncrementToZeroRemovesEdge() {
+        Graph<String> graph = emptyInstance();
+        graph.set("one", "two", 3);
+        assertEquals(3, graph.increment("one", "two", -3));
+        assertTrue(graph.targets("one").isEmpty());
+        assertEquals(new HashSet<>(Arrays.asList("one", "two")), graph.vertices());
+    }
+    
+    @Test
+    public void testIncrementZeroDeltaMissingEdge() {
+        Graph<String> graph = emptyInstance();
+        graph.add("one");
+        graph.add("two");
+        assertEquals(0, graph.increment("one", "two", 0));
+        assertTrue(graph.targets("one").isEmpty());
+    }
+    
+    @Test(expected=RuntimeException.class)
+    public void testIncrementBelowZero() {
+        Graph<String> graph = emptyInstance();
+        graph.set("one", "two", 1);
+        graph.increment("one", "two", -2);
+    }
+    
     // remove(): 
     //    existing vertices: 0, 1, 2
-    //    existing edges: 0, > 0
+    //    existing edges: 0, > 0, self-loop
     
     @Test
     public void testRemoveWhenThereIsZeroVertice() {
@@ -533,5 +599,98 @@ public abstract class GraphInstanceTest {
         assertTrue(targetTest1.equals(targetGraph1));
         assertTrue(targetTest2.equals(targetGraph2));
     }
+    
+    // validate():
+    //   graph: empty, after add/set/increment/remove of vertices with edges
+    @Test
+    public void testValidateEmpty() {
+        emptyInstance().validate();
+    }
+    
+    @Test
+    public void testValidateAfterMutations() {
+        Graph<String> graph = emptyInstance();
+        graph.add("Pig");
+        graph.set("Pig", "Dog", 2);
+        graph.set("Dog", "Chicken", 3);
+        graph.increment("Chicken", "Pig", 4);
+        graph.increment("Pig", "Dog", -2);
+        graph.remove("Chicken");
+        graph.validate();
+        assertEquals(new HashSet<>(Arrays.asList("Pig", "Dog")), graph.vertices());
+    }
+    
+    // vertexView(), sourcesView(), targetsView():
+    //   graph: empty, with edges; vertex: in graph, not in graph
+    //   views: same as the copies, unmodifiable, read again after a mutation
+    @Test
+    public void testViewsEmpty() {
+        Graph<String> graph = emptyInstance();
+        assertEquals(Collections.emptySet(), graph.vertexView());
+        assertEquals(Collections.emptyMap(), graph.sourcesView("Pig"));
+        assertEquals(Collections.emptyMap(), graph.targetsView("Pig"));
+    }
+    
+    @Test
+    public void testViewsSameAsCopies() {
+        Graph<String> graph = emptyInstance();
+        graph.add("Cat");
+        graph.set("Pig", "Dog", 2);
+        graph.set("Pig", "Chicken", 5);
+        graph.set("Dog", "Chicken", 3);
+        assertEquals(graph.vertices(), graph.vertexView());
+        for (String v : Arrays.asList("Cat", "Pig", "Dog", "Chicken", "Horse")) {
+            assertEquals(graph.sources(v), graph.sourcesView(v));
+            assertEquals(graph.targets(v), graph.targetsView(v));
+            assertEquals(graph.targets(v).size(), graph.targetsView(v).size());
+        }
+        assertEquals(Integer.valueOf(5), graph.targetsView("Pig").get("Chicken"));
+        assertTrue(graph.sourcesView("Chicken").containsKey("Dog"));
+        assertFalse(graph.sourcesView("Chicken").containsKey("Horse"));
+        assertNull(graph.targetsView("Pig").get("Horse"));
+    }
+    
+    @Test
+    public void testViewsUnmodifiable() {
+        Graph<String> graph = emptyInstance();
+        graph.set("Pig", "Dog", 2);
+        List<Runnable> mutations = Arrays.asList(
+                () -> graph.vertexView().add("Cat"),
+                () -> graph.vertexView().remove("Pig"),
+                () -> graph.targetsView("Pig").put("Cat", 1),
+                () -> graph.targetsView("Pig").remove("Dog"),
+                () -> graph.sourcesView("Dog").clear(),
+                () -> graph.sourcesView("Dog").entrySet().iterator().next().setValue(7));
+        for (Runnable mutation : mutations) {
+            try {
+                mutation.run();
+                fail("expected view to be unmodifiable");
+            }
+            catch (UnsupportedOperationException e) {
+                // expected
+            }
+        }
+        assertEquals(new HashSet<>(Arrays.asList("Pig", "Dog")), graph.vertices());
+        assertEquals(Collections.singletonMap("Dog", 2), graph.targets("Pig"));
+    }
+    
+    @Test
+    public void testViewsAfterMutation() {
+        Graph<String> graph = emptyInstance();
+        graph.set("Pig", "Dog", 2);
+        assertEquals(Collections.singletonMap("Dog", 2), graph.targetsView("Pig"));
+        assertEquals(Collections.singletonMap("Pig", 2), graph.sourcesView("Dog"));
+        graph.set("Pig", "Dog", 4);
+        graph.set("Pig", "Cat", 1);
+        Map<String, Integer> targets = new HashMap<>();
+        targets.put("Dog", 4);
+        targets.put("Cat", 1);
+        assertEquals(targets, graph.targetsView("Pig"));
+        assertEquals(Collections.singletonMap("Pig", 4), graph.sourcesView("Dog"));
+        assertEquals(new HashSet<>(Arrays.asList("Pig", "Dog", "Cat")), graph.vertexView());
+        graph.remove("Dog");
+        assertEquals(Collections.singletonMap("Cat", 1), graph.targetsView("Pig"));
+        assertEquals(Collections.emptyMap(), graph.sourcesView("Dog"));
+        assertEquals(new HashSet<>(Arrays.asList("Pig", "Cat")), graph.vertexView());
+    }
 }
-
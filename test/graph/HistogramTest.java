@@ -0,0 +1,130 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for Histogram and HistogramSnapshot.
+ */
+public class HistogramTest {
+
+    // Testing strategy
+    //   buckets: values below 16, at powers of two, at the ends of buckets,
+    //            MAX_VALUE, above MAX_VALUE, negative
+    //   snapshot: empty; one value; many values; percentiles 0, 50, 100,
+    //             out of range; count, sum, mean, max
+    //   record(): from several threads at once
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    @Test public void testBucketsCoverEveryValue() {
+        long expected = 0;
+        for (int b = 0; b < Histogram.BUCKETS; b++) {
+            assertEquals("lowest of bucket " + b, expected, Histogram.lowest(b));
+            assertTrue(Histogram.highest(b) >= Histogram.lowest(b));
+            assertEquals(b, Histogram.bucket(Histogram.lowest(b)));
+            assertEquals(b, Histogram.bucket(Histogram.highest(b)));
+            expected = Histogram.highest(b) + 1;
+        }
+        assertEquals(Histogram.MAX_VALUE + 1, expected);
+    }
+
+    @Test public void testBucketPrecision() {
+        for (int b = 0; b < Histogram.BUCKETS; b++) {
+            long width = Histogram.highest(b) - Histogram.lowest(b) + 1;
+            assertTrue("width of bucket " + b, width * 8 <= Math.max(8, Histogram.lowest(b)));
+        }
+        assertEquals(15, Histogram.bucket(15));
+        assertEquals(Histogram.bucket(16), Histogram.bucket(17));
+        assertNotEquals(Histogram.bucket(1023), Histogram.bucket(1024));
+    }
+
+    @Test public void testEmpty() {
+        HistogramSnapshot snapshot = new Histogram().snapshot();
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.sum());
+        assertEquals(0, snapshot.max());
+        assertEquals(0, snapshot.mean(), 0);
+        assertEquals(0, snapshot.valueAtPercentile(50));
+    }
+
+    @Test public void testOneValue() {
+        Histogram histogram = new Histogram();
+        histogram.record(1000);
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.count());
+        assertEquals(1000, snapshot.sum());
+        assertEquals(1000, snapshot.max());
+        assertEquals(1000, snapshot.valueAtPercentile(0));
+        assertEquals(1000, snapshot.valueAtPercentile(100));
+    }
+
+    @Test public void testPercentiles() {
+        Histogram histogram = new Histogram();
+        for (int v = 1; v <= 1000; v++) {
+            histogram.record(v);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count());
+        assertEquals(500500, snapshot.sum());
+        assertEquals(500.5, snapshot.mean(), 1e-9);
+        assertEquals(1, snapshot.valueAtPercentile(0));
+        long median = snapshot.valueAtPercentile(50);
+        assertTrue("median " + median, median >= 500 && median <= 500 * 9 / 8);
+        long p99 = snapshot.valueAtPercentile(99);
+        assertTrue("p99 " + p99, p99 >= 990 && p99 <= 1000);
+        assertEquals(1000, snapshot.valueAtPercentile(100));
+    }
+
+    @Test public void testOutOfRangeValues() {
+        Histogram histogram = new Histogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE / 2);
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.count());
+        assertEquals(Long.MAX_VALUE / 2, snapshot.max());
+        assertEquals(0, snapshot.valueAtPercentile(50));
+        assertEquals(Histogram.MAX_VALUE, snapshot.valueAtPercentile(100));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testPercentileOutOfRange() {
+        new Histogram().snapshot().valueAtPercentile(100.5);
+    }
+
+    @Test public void testConcurrentRecords() throws Exception {
+        Histogram histogram = new Histogram();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                tasks.add(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(i % 100);
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> f : pool.invokeAll(tasks)) {
+                f.get();
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(40000, snapshot.count());
+        assertEquals(4 * 100 * 4950, snapshot.sum());
+        assertEquals(99, snapshot.max());
+    }
+}
@@ -0,0 +1,96 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for IndexedEdgesGraph.
+ *
+ * This class runs the GraphInstanceTest tests against IndexedEdgesGraph, as
+ * well as tests for that particular implementation.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class IndexedEdgesGraphTest extends GraphInstanceTest {
+
+    /*
+     * Provide an IndexedEdgesGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new IndexedEdgesGraph<String>();
+    }
+
+    /*
+     * Testing IndexedEdgesGraph...
+     */
+
+    // Testing strategy for IndexedEdgesGraph
+    //   toString(): vertices 0, 1, >1; edges 0, 1
+    //   set(), increment(): weight 0 on missing vertices, self-loop
+    //   remove(): vertex with incoming and outgoing edges, self-loop
+
+    @Test public void testToStringEmptyGraph() {
+        Graph<String> graph = emptyInstance();
+        assertEquals("The graph is empty, nothing to print", graph.toString());
+    }
+
+    @Test public void testToStringGraphOneVertice() {
+        Graph<String> graph = emptyInstance();
+        graph.add("Chicken");
+        assertEquals("Vertices: Chicken \nEdges: empty edges", graph.toString());
+    }
+
+    @Test public void testToStringGraphOneEdge() {
+        Graph<String> graph = emptyInstance();
+        graph.set("Chicken", "Chicken", 2);
+        assertEquals("Vertices: Chicken \nEdges: Chicken ---> Chicken, weight = 2\n", graph.toString());
+    }
+
+    @Test public void testSetZeroWeightDoesNotAddVertices() {
+        Graph<String> graph = emptyInstance();
+        assertEquals(0, graph.set("Pig", "Dog", 0));
+        assertTrue(graph.vertices().isEmpty());
+    }
+
+    @Test public void testRemoveUnlinksNeighbors() {
+        Graph<String> graph = emptyInstance();
+        graph.set("Pig", "Dog", 1);
+        graph.set("Dog", "Cat", 2);
+        graph.set("Cat", "Dog", 3);
+        assertTrue(graph.remove("Dog"));
+        assertEquals(new HashSet<>(Arrays.asList("Pig", "Cat")), graph.vertices());
+        assertTrue(graph.targets("Pig").isEmpty());
+        assertTrue(graph.sources("Cat").isEmpty());
+        assertTrue(graph.targets("Cat").isEmpty());
+    }
+
+    @Test public void testRemoveSelfLoop() {
+        Graph<String> graph = emptyInstance();
+        graph.set("Pig", "Pig", 4);
+        graph.set("Pig", "Dog", 1);
+        assertTrue(graph.remove("Pig"));
+        assertEquals(Collections.singleton("Dog"), graph.vertices());
+        assertTrue(graph.sources("Dog").isEmpty());
+    }
+
+    @Test public void testIncrementSelfLoop() {
+        Graph<String> graph = emptyInstance();
+        assertEquals(0, graph.increment("one", "one", 4));
+        assertEquals(4, graph.increment("one", "one", 4));
+        assertEquals(Collections.singleton("one"), graph.vertices());
+        assertEquals(Collections.singletonMap("one", 8), graph.targets("one"));
+        assertEquals(Collections.singletonMap("one", 8), graph.sources("one"));
+    }
+
+    @Test public void testIncrementZeroDoesNotAddVertices() {
+        Graph<String> graph = emptyInstance();
+        assertEquals(0, graph.increment("Pig", "Dog", 0));
+        assertTrue(graph.vertices().isEmpty());
+    }
+}
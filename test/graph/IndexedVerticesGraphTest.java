@@ -0,0 +1,68 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for IndexedVerticesGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against IndexedVerticesGraph, as
+ * well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class IndexedVerticesGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Provide an IndexedVerticesGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new IndexedVerticesGraph<String>();
+    }
+    
+    /*
+     * Testing IndexedVerticesGraph...
+     */
+    
+    // Testing strategy for IndexedVerticesGraph
+    //   toString(): vertices 0, 2 in insertion order
+    //   set(), increment(): weight 0 on missing vertices
+    //   remove(): vertex with incoming and outgoing edges
+    
+    @Test public void testToStringEmptyGraph() {
+        assertEquals("", emptyInstance().toString());
+    }
+    
+    @Test public void testToStringInsertionOrder() {
+        Graph<String> graph = emptyInstance();
+        graph.add("Pig");
+        graph.set("Dog", "Pig", 2);
+        assertEquals("From vertex: Pig\nFrom vertex: DogDog ---> Pig, weight = 2\n\n", graph.toString());
+    }
+    
+    @Test public void testSetZeroWeightDoesNotAddVertices() {
+        Graph<String> graph = emptyInstance();
+        assertEquals(0, graph.set("Pig", "Dog", 0));
+        assertEquals(0, graph.increment("Pig", "Dog", 0));
+        assertTrue(graph.vertices().isEmpty());
+    }
+    
+    @Test public void testRemoveUnlinksNeighbors() {
+        Graph<String> graph = emptyInstance();
+        graph.set("Pig", "Dog", 1);
+        graph.set("Dog", "Cat", 2);
+        graph.set("Cat", "Dog", 3);
+        assertTrue(graph.remove("Dog"));
+        assertEquals(new HashSet<>(Arrays.asList("Pig", "Cat")), graph.vertices());
+        assertTrue(graph.targets("Pig").isEmpty());
+        assertTrue(graph.sources("Cat").isEmpty());
+        assertTrue(graph.targets("Cat").isEmpty());
+        assertEquals(0, graph.set("Cat", "Dog", 1));
+    }
+}
@@ -0,0 +1,179 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for InstrumentedGraph.
+ *
+ * This class runs the GraphInstanceTest tests against an InstrumentedGraph
+ * wrapping the default graph, as well as tests of the metrics it records.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class InstrumentedGraphTest extends GraphInstanceTest {
+
+    /*
+     * Provide an InstrumentedGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new InstrumentedGraph<String>(Graph.empty());
+    }
+
+    /*
+     * Testing InstrumentedGraph...
+     */
+
+    // Testing strategy for InstrumentedGraph
+    //   operations: every GraphOperation called 0, 1, > 1 times
+    //   result sizes: empty and non-empty results; operations without result size
+    //   metrics: new per graph, shared by two graphs; calls to the wrapped
+    //            graph directly; calls that throw
+    //   constructor: null graph, null metrics
+    //   snapshot(): every operation present, unmodifiable, unchanged by later calls
+    //   toString(): forwarded; metrics with and without calls
+
+    @Test public void testNewMetricsEmpty() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(Graph.empty());
+        Map<GraphOperation, OperationStats> snapshot = graph.metrics().snapshot();
+        assertEquals(EnumSet.allOf(GraphOperation.class), snapshot.keySet());
+        for (OperationStats stats : snapshot.values()) {
+            assertEquals(0, stats.calls());
+            assertEquals(0, stats.totalNanos());
+            assertEquals(0, stats.resultSizes().count());
+        }
+        assertEquals("no calls recorded", graph.metrics().toString());
+    }
+
+    @Test public void testCountsEveryOperation() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(Graph.empty());
+        graph.add("a");
+        graph.add("a");
+        graph.set("a", "b", 2);
+        graph.increment("a", "b", 3);
+        graph.increment("b", "c", 1);
+        graph.increment("c", "a", 1);
+        graph.remove("c");
+        graph.vertices();
+        graph.sources("b");
+        graph.targets("a");
+        graph.targets("b");
+        graph.vertexView();
+        graph.sourcesView("a");
+        graph.targetsView("a");
+
+        GraphMetrics metrics = graph.metrics();
+        assertEquals(2, metrics.stats(GraphOperation.ADD).calls());
+        assertEquals(1, metrics.stats(GraphOperation.SET).calls());
+        assertEquals(3, metrics.stats(GraphOperation.INCREMENT).calls());
+        assertEquals(1, metrics.stats(GraphOperation.REMOVE).calls());
+        assertEquals(1, metrics.stats(GraphOperation.VERTICES).calls());
+        assertEquals(1, metrics.stats(GraphOperation.SOURCES).calls());
+        assertEquals(2, metrics.stats(GraphOperation.TARGETS).calls());
+        assertEquals(1, metrics.stats(GraphOperation.VERTEX_VIEW).calls());
+        assertEquals(1, metrics.stats(GraphOperation.SOURCES_VIEW).calls());
+        assertEquals(1, metrics.stats(GraphOperation.TARGETS_VIEW).calls());
+        for (OperationStats stats : metrics.snapshot().values()) {
+            HistogramSnapshot latencies = stats.latencies();
+            assertEquals(latencies.sum(), stats.totalNanos());
+            assertTrue(latencies.max() <= latencies.sum());
+            assertTrue(latencies.valueAtPercentile(100) <= latencies.max());
+        }
+    }
+
+    @Test public void testResultSizes() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(Graph.empty());
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 1);
+        graph.set("a", "d", 1);
+        graph.targets("a");
+        graph.targets("b");
+        graph.targetsView("a");
+        graph.vertices();
+        graph.sourcesView("missing");
+
+        GraphMetrics metrics = graph.metrics();
+        HistogramSnapshot targets = metrics.stats(GraphOperation.TARGETS).resultSizes();
+        assertEquals(2, targets.count());
+        assertEquals(3, targets.sum());
+        assertEquals(3, targets.max());
+        assertEquals(0, targets.valueAtPercentile(50));
+        assertEquals(3, targets.valueAtPercentile(100));
+        assertEquals(3, metrics.stats(GraphOperation.TARGETS_VIEW).resultSizes().sum());
+        assertEquals(4, metrics.stats(GraphOperation.VERTICES).resultSizes().max());
+        HistogramSnapshot sources = metrics.stats(GraphOperation.SOURCES_VIEW).resultSizes();
+        assertEquals(1, sources.count());
+        assertEquals(0, sources.max());
+        assertEquals(0, metrics.stats(GraphOperation.SET).resultSizes().count());
+    }
+
+    @Test public void testSharedMetrics() {
+        GraphMetrics metrics = new GraphMetrics();
+        Graph<String> inner = Graph.empty();
+        Graph<String> first = new InstrumentedGraph<>(inner, metrics);
+        Graph<String> second = new InstrumentedGraph<>(new ConcurrentGraph<String>(), metrics);
+        first.add("a");
+        second.add("b");
+        inner.add("c");
+        assertEquals(2, metrics.stats(GraphOperation.ADD).calls());
+        assertEquals(Set.of("a", "c"), first.vertices());
+        assertSame(inner, ((InstrumentedGraph<String>) first).delegate());
+        assertSame(metrics, ((InstrumentedGraph<String>) second).metrics());
+    }
+
+    @Test public void testCallThatThrowsNotRecorded() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(Graph.empty());
+        try {
+            graph.increment("a", "b", -1);
+            fail("expected an exception");
+        }
+        catch (RuntimeException e) {
+            // expected
+        }
+        assertEquals(0, graph.metrics().stats(GraphOperation.INCREMENT).calls());
+    }
+
+    @Test public void testSnapshotUnchangedByLaterCalls() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(Graph.empty());
+        graph.add("a");
+        Map<GraphOperation, OperationStats> before = graph.metrics().snapshot();
+        graph.add("b");
+        assertEquals(1, before.get(GraphOperation.ADD).calls());
+        assertEquals(2, graph.metrics().stats(GraphOperation.ADD).calls());
+        try {
+            before.clear();
+            fail("expected UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test public void testToString() {
+        Graph<String> inner = Graph.empty();
+        inner.set("a", "b", 1);
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(inner);
+        assertEquals(inner.toString(), graph.toString());
+        graph.targets("a");
+        String metrics = graph.metrics().toString();
+        assertTrue(metrics, metrics.startsWith("TARGETS: latency ns count = 1"));
+        assertTrue(metrics, metrics.contains("result size count = 1, mean = "));
+        assertFalse(metrics, metrics.contains("ADD"));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testNullGraph() {
+        new InstrumentedGraph<String>(null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testNullMetrics() {
+        new InstrumentedGraph<String>(Graph.empty(), null);
+    }
+}
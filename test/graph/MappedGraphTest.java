@@ -0,0 +1,172 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for MappedGraph.
+ *
+ * MappedGraph is immutable, so it cannot run the GraphInstanceTest tests;
+ * instead each test writes a snapshot of a mutable graph, opens it and
+ * compares the observers.
+ */
+public class MappedGraphTest {
+
+    // Testing strategy
+    //   write(), open(): empty graph, vertices without edges, edges, self-loop,
+    //                    non-ASCII labels, labels that are prefixes of others,
+    //                    large weights and ids (multi-byte varints),
+    //                    replacing an existing snapshot
+    //   open(): not a snapshot, corrupt byte, truncated file
+    //   observers: vertices(), sources(), targets(), toString() on present
+    //              and missing labels
+    //   mutators: add(), set(), increment(), remove() all throw
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private Path snapshot;
+
+    @Before public void setUp() throws IOException {
+        snapshot = Files.createTempFile("graph", ".snapshot");
+    }
+
+    @After public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+    }
+
+    private static Graph<String> sample() {
+        Graph<String> graph = Graph.empty();
+        graph.add("Cat");
+        graph.set("Pig", "Dog", 999);
+        graph.set("Pig", "Chicken", 1);
+        graph.set("Dog", "Pig", 3);
+        graph.set("Dog", "Dog", 7);
+        graph.set("Pi", "Pig", 2);
+        graph.set("caf\u00e9", "\u732b", Integer.MAX_VALUE);
+        return graph;
+    }
+
+    private MappedGraph roundTrip(Graph<String> graph) throws IOException {
+        MappedGraph.write(graph, snapshot);
+        return MappedGraph.open(snapshot);
+    }
+
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        for (String v : expected.vertices()) {
+            assertEquals(expected.targets(v), actual.targets(v));
+            assertEquals(expected.sources(v), actual.sources(v));
+        }
+    }
+
+    @Test public void testEmpty() throws IOException {
+        MappedGraph mapped = roundTrip(Graph.<String>empty());
+        assertEquals(Collections.emptySet(), mapped.vertices());
+        assertTrue(mapped.targets("Pig").isEmpty());
+        assertEquals("The graph is empty, nothing to print", mapped.toString());
+    }
+
+    @Test public void testVerticesWithoutEdges() throws IOException {
+        Graph<String> graph = Graph.empty();
+        graph.add("Pig");
+        graph.add("Dog");
+        MappedGraph mapped = roundTrip(graph);
+        assertSameGraph(graph, mapped);
+        assertEquals(0, mapped.edgeCount());
+        assertTrue(mapped.toString().endsWith("empty edges"));
+    }
+
+    @Test public void testMatchesSource() throws IOException {
+        Graph<String> graph = sample();
+        MappedGraph mapped = roundTrip(graph);
+        assertSameGraph(graph, mapped);
+        assertEquals(6, mapped.edgeCount());
+        assertTrue(mapped.toString().contains("Pig ---> Dog, weight = 999\n"));
+    }
+
+    @Test public void testMissingLabel() throws IOException {
+        MappedGraph mapped = roundTrip(sample());
+        assertTrue(mapped.targets("Pigs").isEmpty());
+        assertTrue(mapped.sources("P").isEmpty());
+        assertTrue(mapped.targets("").isEmpty());
+        assertTrue(mapped.targets("\uffff").isEmpty());
+    }
+
+    @Test public void testManyVertices() throws IOException {
+        Graph<String> graph = Graph.empty();
+        Random random = new Random(0);
+        for (int i = 0; i < 3000; i++) {
+            graph.increment("w" + random.nextInt(1000), "w" + random.nextInt(1000), 1 + random.nextInt(100000));
+        }
+        assertSameGraph(graph, roundTrip(graph));
+    }
+
+    @Test public void testReplaceExisting() throws IOException {
+        roundTrip(sample());
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 1);
+        assertSameGraph(graph, roundTrip(graph));
+    }
+
+    @Test(expected=IOException.class)
+    public void testOpenNotSnapshot() throws IOException {
+        Files.write(snapshot, "Pig Dog".getBytes());
+        MappedGraph.open(snapshot);
+    }
+
+    @Test public void testOpenCorruptByte() throws IOException {
+        MappedGraph.write(sample(), snapshot);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot, bytes);
+        try {
+            MappedGraph.open(snapshot);
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage().contains("corrupt"));
+        }
+    }
+
+    @Test(expected=IOException.class)
+    public void testOpenTruncated() throws IOException {
+        MappedGraph.write(sample(), snapshot);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length - 5));
+        MappedGraph.open(snapshot);
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testAddThrows() throws IOException {
+        roundTrip(sample()).add("Cow");
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testSetThrows() throws IOException {
+        roundTrip(sample()).set("Pig", "Dog", 1);
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testIncrementThrows() throws IOException {
+        roundTrip(sample()).increment("Pig", "Dog", 1);
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testRemoveThrows() throws IOException {
+        roundTrip(sample()).remove("Pig");
+    }
+}
@@ -0,0 +1,353 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for OffHeapGraph.
+ *
+ * This class runs the GraphInstanceTest tests against an OffHeapGraph in
+ * direct memory split into small chunks, as well as tests of graphs that
+ * grow, reuse ids, and are stored in files.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class OffHeapGraphTest extends GraphInstanceTest {
+
+    /*
+     * Provide an OffHeapGraph for tests in GraphInstanceTest, in chunks of
+     * 64 bytes so that tables and rows straddle chunks.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new OffHeapGraph<String>(6);
+    }
+
+    /*
+     * Testing OffHeapGraph...
+     */
+
+    // Testing strategy for OffHeapGraph
+    //   memory: direct, one chunk or many; mapped file
+    //   growth: vertex, id and edge tables and rows grown once, many times
+    //   remove(): vertex with no edges, out-edges, in-edges, self-loop;
+    //             id reused by the next vertex added, with the rows and, in
+    //             a file, the label space of the removed vertex
+    //   set(), increment(): edge whose removal moves another edge in its rows
+    //   create(), open(): empty graph, edges, empty and non-ASCII labels,
+    //                     removed vertices, mutations after open
+    //   open(): not a graph, wrong version, truncated file
+    //   openReadOnly(): edges, non-ASCII labels; mutators throw
+    //   locking: open(), openReadOnly() or create() while the file is open
+    //            by a graph that may mutate it, open() or openReadOnly()
+    //            while it is open read-only; after the other graph is closed;
+    //            by another process after a refused open in this process,
+    //            by the same path or another path to the file
+    //   toString(): empty graph, vertices without edges, edges
+
+    private Path file;
+
+    @Before public void setUp() throws IOException {
+        file = Files.createTempFile("graph", ".offheap");
+    }
+
+    @After public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        for (String v : expected.vertices()) {
+            assertEquals(expected.targets(v), actual.targets(v));
+            assertEquals(expected.sources(v), actual.sources(v));
+        }
+    }
+
+    /*
+     * Apply the same pseudo-random mutations to both graphs.
+     */
+    private static void mutate(Graph<String> expected, Graph<String> actual, int vertices, int mutations) {
+        Random random = new Random(42);
+        for (int i = 0; i < mutations; i++) {
+            String source = "v" + random.nextInt(vertices);
+            String target = "v" + random.nextInt(vertices);
+            int op = random.nextInt(10);
+            if (op == 0) {
+                assertEquals(expected.remove(source), actual.remove(source));
+            }
+            else if (op < 3) {
+                assertEquals(expected.set(source, target, 0), actual.set(source, target, 0));
+            }
+            else {
+                int delta = 1 + random.nextInt(3);
+                assertEquals(expected.increment(source, target, delta), actual.increment(source, target, delta));
+            }
+        }
+    }
+
+    @Test public void testGrowsAcrossChunks() {
+        OffHeapGraph<String> graph = new OffHeapGraph<>(6);
+        Graph<String> expected = Graph.empty();
+        for (int i = 0; i < 500; i++) {
+            assertEquals(0, graph.set("v" + i, "v" + (i * 7 % 500), i + 1));
+            expected.set("v" + i, "v" + (i * 7 % 500), i + 1);
+            graph.set("hub", "v" + i, 1);
+            expected.set("hub", "v" + i, 1);
+        }
+        graph.validate();
+        assertSameGraph(expected, graph);
+        assertEquals(500, graph.targets("hub").size());
+        assertTrue(graph.offHeapBytes() > 1 << 6);
+    }
+
+    @Test public void testRandomMutations() {
+        Graph<String> expected = Graph.empty();
+        OffHeapGraph<String> graph = new OffHeapGraph<>(8);
+        mutate(expected, graph, 40, 3000);
+        graph.validate();
+        assertSameGraph(expected, graph);
+    }
+
+    @Test public void testRemoveReusesId() {
+        OffHeapGraph<String> graph = new OffHeapGraph<>();
+        graph.set("a", "b", 1);
+        graph.set("b", "a", 2);
+        graph.set("b", "b", 3);
+        graph.set("c", "b", 4);
+        long bytes = graph.offHeapBytes();
+        assertTrue(graph.remove("b"));
+        assertEquals(Set.of("a", "c"), graph.vertices());
+        assertTrue(graph.targets("a").isEmpty());
+        assertTrue(graph.targets("c").isEmpty());
+        assertTrue(graph.sources("a").isEmpty());
+        assertTrue(graph.add("d"));
+        assertEquals(0, graph.set("d", "d", 5));
+        assertEquals(0, graph.set("a", "d", 6));
+        assertEquals(bytes, graph.offHeapBytes());
+        assertEquals(Map.of("d", 5, "a", 6), graph.sources("d"));
+        assertFalse(graph.remove("b"));
+        graph.validate();
+    }
+
+    @Test public void testRemoveEdgeMovesOthers() {
+        OffHeapGraph<String> graph = new OffHeapGraph<>();
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 2);
+        graph.set("a", "d", 3);
+        graph.set("c", "d", 4);
+        assertEquals(1, graph.set("a", "b", 0));
+        assertEquals(3, graph.increment("a", "d", -3));
+        assertEquals(2, graph.increment("a", "c", 5));
+        assertEquals(Map.of("c", 7), graph.targets("a"));
+        assertEquals(Map.of("c", 4), graph.sources("d"));
+        graph.validate();
+    }
+
+    @Test public void testCreateOpen() throws IOException {
+        Graph<String> expected = Graph.empty();
+        try (OffHeapGraph<String> graph = OffHeapGraph.create(file)) {
+            graph.set("", "caf\u00e9", 4);
+            expected.set("", "caf\u00e9", 4);
+            mutate(expected, graph, 30, 1000);
+            graph.set("caf\u00e9", "\u732b", Integer.MAX_VALUE);
+            expected.set("caf\u00e9", "\u732b", Integer.MAX_VALUE);
+        }
+        try (OffHeapGraph<String> graph = OffHeapGraph.open(file)) {
+            graph.validate();
+            assertSameGraph(expected, graph);
+            graph.remove("v1");
+            expected.remove("v1");
+            graph.set("new", "caf\u00e9", 2);
+            expected.set("new", "caf\u00e9", 2);
+        }
+        try (OffHeapGraph<String> graph = OffHeapGraph.open(file)) {
+            assertSameGraph(expected, graph);
+            assertEquals(expected.toString().length(), graph.toString().length());
+        }
+    }
+
+    @Test public void testChurnInFileStaysBounded() throws IOException {
+        try (OffHeapGraph<String> graph = OffHeapGraph.create(file)) {
+            graph.add("hub");
+            long bytes = 0;
+            for (int i = 0; i < 20000; i++) {
+                String label = i % 3 == 0 ? "w" + i : "a much longer label " + i;
+                graph.set(label, "hub", 1 + i % 5);
+                graph.set("hub", label, 1);
+                assertTrue(graph.remove(label));
+                if (i == 100) bytes = graph.offHeapBytes();
+            }
+            assertEquals(bytes, graph.offHeapBytes());
+            assertEquals(Collections.singleton("hub"), graph.vertices());
+            graph.add("caf\u00e9");
+            graph.validate();
+        }
+        try (OffHeapGraph<String> graph = OffHeapGraph.open(file)) {
+            assertEquals(new HashSet<>(Arrays.asList("hub", "caf\u00e9")), graph.vertices());
+        }
+    }
+
+    @Test public void testCreateEmpty() throws IOException {
+        try (OffHeapGraph<String> graph = OffHeapGraph.create(file)) {
+            assertEquals("The graph is empty, nothing to print", graph.toString());
+        }
+        try (OffHeapGraph<String> graph = OffHeapGraph.open(file)) {
+            assertEquals(Collections.emptySet(), graph.vertices());
+            assertTrue(graph.add("Pig"));
+            assertEquals("Vertices: Pig \nEdges: empty edges", graph.toString());
+        }
+    }
+
+    @Test(expected=IOException.class)
+    public void testOpenNotGraph() throws IOException {
+        Files.write(file, "Pig Dog".getBytes());
+        OffHeapGraph.open(file);
+    }
+
+    @Test(expected=IOException.class)
+    public void testOpenWrongVersion() throws IOException {
+        OffHeapGraph.create(file).close();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[7]++;
+        Files.write(file, bytes);
+        OffHeapGraph.open(file);
+    }
+
+    @Test(expected=IOException.class)
+    public void testOpenTruncated() throws IOException {
+        try (OffHeapGraph<String> graph = OffHeapGraph.create(file)) {
+            graph.set("Pig", "Dog", 1);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, 100));
+        OffHeapGraph.open(file);
+    }
+
+    @Test public void testOpenReadOnly() throws IOException {
+        Graph<String> expected = Graph.empty();
+        try (OffHeapGraph<String> graph = OffHeapGraph.create(file)) {
+            mutate(expected, graph, 30, 1000);
+            graph.set("caf\u00e9", "\u732b", 7);
+            expected.set("caf\u00e9", "\u732b", 7);
+        }
+        try (OffHeapGraph<String> graph = OffHeapGraph.openReadOnly(file)) {
+            graph.validate();
+            assertSameGraph(expected, graph);
+            assertEquals(Map.of("caf\u00e9", 7), graph.sources("\u732b"));
+            List<Runnable> mutations = Arrays.asList(
+                    () -> graph.add("new"),
+                    () -> graph.set("caf\u00e9", "\u732b", 1),
+                    () -> graph.increment("caf\u00e9", "\u732b", 1),
+                    () -> graph.remove("caf\u00e9"));
+            for (Runnable mutation : mutations) {
+                try {
+                    mutation.run();
+                    fail("expected graph to be read-only");
+                }
+                catch (UnsupportedOperationException e) {
+                    // expected
+                }
+            }
+            assertSameGraph(expected, graph);
+        }
+    }
+
+    @Test public void testOpenWhileOpen() throws IOException {
+        try (OffHeapGraph<String> graph = OffHeapGraph.create(file)) {
+            graph.set("Pig", "Dog", 1);
+            for (boolean readOnly : new boolean[] { false, true }) {
+                try {
+                    (readOnly ? OffHeapGraph.openReadOnly(file) : OffHeapGraph.open(file)).close();
+                    fail("expected IOException");
+                }
+                catch (IOException e) {
+                    // expected
+                }
+            }
+            try {
+                OffHeapGraph.create(file).close();
+                fail("expected IOException");
+            }
+            catch (IOException e) {
+                // expected
+            }
+            assertEquals(Map.of("Pig", 1), graph.sources("Dog"));
+        }
+        try (OffHeapGraph<String> graph = OffHeapGraph.openReadOnly(file)) {
+            assertEquals(Map.of("Dog", 1), graph.targets("Pig"));
+            for (boolean readOnly : new boolean[] { false, true }) {
+                try {
+                    (readOnly ? OffHeapGraph.openReadOnly(file) : OffHeapGraph.open(file)).close();
+                    fail("expected IOException");
+                }
+                catch (IOException e) {
+                    // expected
+                }
+            }
+        }
+        try (OffHeapGraph<String> graph = OffHeapGraph.open(file)) {
+            assertEquals(Map.of("Dog", 1), graph.targets("Pig"));
+        }
+    }
+
+    /*
+     * Open the file named by args[0] read-write, for tests of the locks held
+     * by another process; exit with status 0 if it could be opened, else 1.
+     */
+    public static class OpenInOtherProcess {
+        public static void main(String[] args) {
+            try {
+                OffHeapGraph.open(Paths.get(args[0])).close();
+                System.exit(0);
+            }
+            catch (IOException e) {
+                System.exit(1);
+            }
+        }
+    }
+
+    private static boolean opensInOtherProcess(Path file) throws Exception {
+        Process process = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), OpenInOtherProcess.class.getName(), file.toString())
+                .inheritIO().start();
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+        return process.exitValue() == 0;
+    }
+
+    @Test public void testLockSurvivesRefusedOpen() throws Exception {
+        try (OffHeapGraph<String> graph = OffHeapGraph.create(file)) {
+            graph.set("Pig", "Dog", 1);
+            Path other = file.getParent().resolve(".").resolve(file.getFileName());
+            for (Path path : Arrays.asList(file, other)) {
+                try {
+                    OffHeapGraph.open(path).close();
+                    fail("expected IOException");
+                }
+                catch (IOException e) {
+                    // expected
+                }
+            }
+            assertFalse(opensInOtherProcess(file));
+            assertEquals(Map.of("Pig", 1), graph.sources("Dog"));
+        }
+        assertTrue(opensInOtherProcess(file));
+    }
+
+    @Test public void testToStringEdges() {
+        OffHeapGraph<String> graph = new OffHeapGraph<>();
+        graph.set("Pig", "Dog", 3);
+        assertEquals("Vertices: Pig Dog \nEdges: Pig ---> Dog, weight = 3\n", graph.toString());
+    }
+}
@@ -0,0 +1,107 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+/**
+ * Tests for ValidationPolicy, and for mutable Graph implementations under
+ * each policy.
+ */
+public class ValidationPolicyTest {
+    
+    // Testing strategy
+    //   fromProperty(): null, off, full, incremental, every-N, mixed case,
+    //                   every-0, every-x, unknown
+    //   everyNth(): n = 1, > 1, 0
+    //   graphs: ConcreteEdgesGraph, ConcreteVerticesGraph, IndexedEdgesGraph,
+    //           IndexedVerticesGraph; under each policy
+    //   validate(): consistent graph, sources and targets disagree
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test public void testFromPropertyUnsetWithAssertions() {
+        assertEquals("incremental", ValidationPolicy.fromProperty(null).toString());
+    }
+    
+    @Test public void testFromProperty() {
+        assertSame(ValidationPolicy.off(), ValidationPolicy.fromProperty("off"));
+        assertSame(ValidationPolicy.full(), ValidationPolicy.fromProperty("FULL"));
+        assertSame(ValidationPolicy.incremental(), ValidationPolicy.fromProperty(" incremental "));
+        assertEquals("every-100", ValidationPolicy.fromProperty("every-100").toString());
+        assertSame(ValidationPolicy.full(), ValidationPolicy.fromProperty("every-1"));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testFromPropertyEveryZero() {
+        ValidationPolicy.fromProperty("every-0");
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testFromPropertyEveryNotNumber() {
+        ValidationPolicy.fromProperty("every-x");
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testFromPropertyUnknown() {
+        ValidationPolicy.fromProperty("sometimes");
+    }
+    
+    @Test public void testEveryNth() {
+        ValidationPolicy policy = ValidationPolicy.everyNth(3);
+        assertFalse(policy.checkFull(1));
+        assertFalse(policy.checkFull(2));
+        assertTrue(policy.checkFull(3));
+        assertFalse(policy.checkIncremental());
+        assertFalse(ValidationPolicy.off().checkFull(1));
+        assertFalse(ValidationPolicy.off().checkIncremental());
+        assertTrue(ValidationPolicy.full().checkFull(1));
+        assertTrue(ValidationPolicy.incremental().checkIncremental());
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testEveryNthZero() {
+        ValidationPolicy.everyNth(0);
+    }
+    
+    @Test public void testGraphsUnderEachPolicy() {
+        List<Function<ValidationPolicy, Graph<String>>> graphs = Arrays.asList(
+                ConcreteEdgesGraph::new, ConcreteVerticesGraph::new,
+                IndexedEdgesGraph::new, IndexedVerticesGraph::new);
+        List<ValidationPolicy> policies = Arrays.asList(ValidationPolicy.off(), ValidationPolicy.full(),
+                ValidationPolicy.everyNth(7), ValidationPolicy.incremental());
+        for (Function<ValidationPolicy, Graph<String>> create : graphs) {
+            for (ValidationPolicy policy : policies) {
+                Graph<String> graph = create.apply(policy);
+                Random random = new Random(0);
+                for (int i = 0; i < 500; i++) {
+                    String source = "w" + random.nextInt(20);
+                    String target = "w" + random.nextInt(20);
+                    if (i % 50 == 49) graph.remove(source);
+                    else if (!source.equals(target)) graph.increment(source, target, 1);
+                }
+                graph.validate();
+            }
+        }
+    }
+    
+    @Test(expected=IllegalStateException.class)
+    public void testValidateSourcesDisagree() {
+        Graph<String> graph = new ConcreteEdgesGraph<String>() {
+            @Override public Map<String, Integer> sources(String target) {
+                return Collections.emptyMap();
+            }
+        };
+        graph.set("Pig", "Dog", 1);
+        graph.validate();
+    }
+}
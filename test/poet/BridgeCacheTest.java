@@ -0,0 +1,115 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests for BridgeCache.
+ */
+public class BridgeCacheTest {
+    
+    // Testing strategy
+    //   capacity: 0, 1, > number of segments
+    //   lookup: miss, hit, hit of a cached "no bridge"
+    //   eviction: none, least recently used entry, from many threads
+    //   invalidate(): cached pair, cached "no bridge", pair not cached
+    //   clear(): empty cache, nonempty cache
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new BridgeCache(0);
+    }
+    
+    @Test public void testMissThenHit() {
+        BridgeCache cache = new BridgeCache(100);
+        AtomicInteger computed = new AtomicInteger();
+        assertEquals("b", cache.get("a", "c", (s, t) -> { computed.incrementAndGet(); return "b"; }));
+        assertEquals("b", cache.get("a", "c", (s, t) -> { computed.incrementAndGet(); return "x"; }));
+        assertEquals(1, computed.get());
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0, stats.evictions());
+        assertEquals(1, stats.size());
+        assertEquals(0.5, stats.hitRate(), 0);
+    }
+    
+    @Test public void testCachesNoBridge() {
+        BridgeCache cache = new BridgeCache(100);
+        assertNull(cache.get("a", "c", (s, t) -> null));
+        assertNull(cache.get("a", "c", (s, t) -> "b"));
+        assertEquals(1, cache.stats().hits());
+    }
+    
+    @Test public void testInvalidate() {
+        BridgeCache cache = new BridgeCache(100);
+        cache.get("a", "c", (s, t) -> "b");
+        cache.get("a", "d", (s, t) -> null);
+        cache.get("b", "c", (s, t) -> "x");
+        cache.invalidate("a", "c");
+        cache.invalidate("a", "d");
+        cache.invalidate("c", "a");
+        assertEquals(1, cache.stats().size());
+        assertEquals("y", cache.get("a", "c", (s, t) -> "y"));
+        assertEquals("z", cache.get("a", "d", (s, t) -> "z"));
+        assertEquals("x", cache.get("b", "c", (s, t) -> "w"));
+        assertEquals(0, cache.stats().evictions());
+    }
+    
+    @Test public void testClear() {
+        BridgeCache cache = new BridgeCache(100);
+        cache.clear();
+        assertEquals(0, cache.stats().size());
+        cache.get("a", "c", (s, t) -> "b");
+        cache.get("a", "c", (s, t) -> "b");
+        cache.clear();
+        assertEquals(0, cache.stats().size());
+        assertEquals(1, cache.stats().hits());
+        assertEquals("y", cache.get("a", "c", (s, t) -> "y"));
+    }
+    
+    @Test public void testEvictsLeastRecentlyUsed() {
+        BridgeCache cache = new BridgeCache(1);
+        cache.get("a", "b", (s, t) -> "x");
+        cache.get("c", "d", (s, t) -> "y");
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(1, cache.stats().size());
+        assertEquals("z", cache.get("a", "b", (s, t) -> "z"));
+    }
+    
+    @Test public void testBoundedUnderConcurrentUse() throws InterruptedException {
+        BridgeCache cache = new BridgeCache(64);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final int seed = i;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                for (int j = 0; j < 10000; j++) {
+                    String source = "w" + random.nextInt(100);
+                    String target = "w" + random.nextInt(100);
+                    assertEquals(source + target, cache.get(source, target, (s, t) -> s + t));
+                }
+            }));
+        }
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        CacheStats stats = cache.stats();
+        assertEquals(80000, stats.hits() + stats.misses());
+        assertTrue(stats.size() <= 64);
+        // two threads that miss the same pair at once both put it, evicting nothing
+        assertTrue(stats.evictions() <= stats.misses() - stats.size());
+        assertTrue(stats.evictions() > 0);
+    }
+}
@@ -0,0 +1,70 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for CountMinSketch.
+ */
+public class CountMinSketchTest {
+    
+    // Testing strategy
+    //   constructor: depth 1, 6, 0, 7; width power of two, not a power of two
+    //   estimate(): pair never added, added once, many times;
+    //               width much larger than, much smaller than the number of pairs
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test public void testExactWhenWide() {
+        CountMinSketch sketch = new CountMinSketch(4, 1 << 16);
+        assertEquals(0, sketch.estimate("a", "b"));
+        sketch.add("a", "b");
+        sketch.add("a", "b");
+        sketch.add("b", "a");
+        assertEquals(2, sketch.estimate("a", "b"));
+        assertEquals(1, sketch.estimate("b", "a"));
+        assertEquals(0, sketch.estimate("a", "a"));
+    }
+    
+    @Test public void testNeverUndercounts() {
+        for (int depth : new int[] { 1, 6 }) {
+            CountMinSketch sketch = new CountMinSketch(depth, 64);
+            Map<String, Integer> counts = new HashMap<>();
+            Random random = new Random(depth);
+            for (int i = 0; i < 10000; i++) {
+                String a = "w" + random.nextInt(100);
+                String b = "w" + random.nextInt(100);
+                sketch.add(a, b);
+                counts.merge(a + " " + b, 1, Integer::sum);
+            }
+            for (Map.Entry<String, Integer> e : counts.entrySet()) {
+                String[] pair = e.getKey().split(" ");
+                assertTrue(sketch.estimate(pair[0], pair[1]) >= e.getValue());
+            }
+        }
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testZeroDepth() {
+        new CountMinSketch(0, 64);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testTooDeep() {
+        new CountMinSketch(7, 64);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testWidthNotPowerOfTwo() {
+        new CountMinSketch(4, 100);
+    }
+}
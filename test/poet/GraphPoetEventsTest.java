@@ -0,0 +1,188 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+/**
+ * Tests for the Flight Recorder events of GraphPoet: CorpusPhaseEvent and PoemEvent.
+ */
+public class GraphPoetEventsTest {
+    
+    // Testing strategy
+    //   corpus phases: file, stream, parallel, minimum weight, append; empty corpus
+    //   poems: poem(String), poem(CharSequence, Appendable); pairs with and
+    //          without bridges; one word; fallback of the Appendable path
+    //   recording: events enabled, events disabled
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static final File MUGAR = new File("test/poet/mugar-omni-theater.txt");
+    
+    /**
+     * Run an action during a recording that enables or disables the GraphPoet
+     * events, and return the events recorded, in order.
+     */
+    private static List<RecordedEvent> record(boolean enabled, Action action) throws IOException {
+        Path dump = Files.createTempFile("graphpoet", ".jfr");
+        try (Recording recording = new Recording()) {
+            if (enabled) {
+                recording.enable("poet.CorpusPhase").withThreshold(Duration.ZERO);
+                recording.enable("poet.Poem").withThreshold(Duration.ZERO);
+            }
+            else {
+                recording.disable("poet.CorpusPhase");
+                recording.disable("poet.Poem");
+            }
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(dump);
+            List<RecordedEvent> events = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+                if (event.getEventType().getName().startsWith("poet.")) events.add(event);
+            }
+            events.sort(Comparator.comparing(RecordedEvent::getStartTime));
+            return events;
+        }
+        finally {
+            Files.delete(dump);
+        }
+    }
+    
+    private interface Action {
+        void run() throws IOException;
+    }
+    
+    private static List<String> phases(List<RecordedEvent> events) {
+        List<String> phases = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals("poet.CorpusPhase")) phases.add(event.getString("phase"));
+        }
+        return phases;
+    }
+    
+    private static RecordedEvent phase(List<RecordedEvent> events, String phase) {
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals("poet.CorpusPhase") && event.getString("phase").equals(phase)) {
+                return event;
+            }
+        }
+        throw new AssertionError("no " + phase + " event");
+    }
+    
+    private static List<RecordedEvent> poems(List<RecordedEvent> events) {
+        List<RecordedEvent> poems = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals("poet.Poem")) poems.add(event);
+        }
+        return poems;
+    }
+    
+    @Test public void testCorpusPhasesFile() throws IOException {
+        List<RecordedEvent> events = record(true, () -> new GraphPoet(MUGAR));
+        assertEquals(Arrays.asList("tokenize", "build", "checkRep"), phases(events));
+        RecordedEvent tokenize = phase(events, "tokenize");
+        assertEquals(MUGAR.length(), tokenize.getLong("bytes"));
+        assertEquals(11, tokenize.getLong("words"));
+        assertEquals(0, tokenize.getLong("vertices"));
+        RecordedEvent build = phase(events, "build");
+        assertEquals(11, build.getLong("vertices"));
+        assertEquals(10, build.getLong("edges"));
+        assertEquals(11, phase(events, "checkRep").getLong("vertices"));
+    }
+    
+    @Test public void testCorpusPhasesStream() throws IOException {
+        byte[] corpus = "a b a c".getBytes(StandardCharsets.UTF_8);
+        List<RecordedEvent> events = record(true, () -> new GraphPoet(new ByteArrayInputStream(corpus)));
+        RecordedEvent tokenize = phase(events, "tokenize");
+        assertEquals(0, tokenize.getLong("bytes"));
+        assertEquals(4, tokenize.getLong("words"));
+        assertEquals(3, phase(events, "build").getLong("edges"));
+    }
+    
+    @Test public void testCorpusPhasesParallel() throws IOException {
+        List<RecordedEvent> events = record(true, () -> new GraphPoet(MUGAR, ForkJoinPool.commonPool()));
+        assertEquals(Arrays.asList("tokenize", "build", "checkRep"), phases(events));
+        assertEquals(MUGAR.length(), phase(events, "tokenize").getLong("bytes"));
+        assertEquals(11, phase(events, "tokenize").getLong("words"));
+        assertEquals(10, phase(events, "build").getLong("edges"));
+    }
+    
+    @Test public void testCorpusPhasesMinWeight() throws IOException {
+        List<RecordedEvent> events = record(true, () -> new GraphPoet(MUGAR, 2));
+        assertEquals(Arrays.asList("sketch", "tokenize", "build", "checkRep"), phases(events));
+        assertEquals(11, phase(events, "sketch").getLong("words"));
+        assertEquals(0, phase(events, "build").getLong("edges"));
+    }
+    
+    @Test public void testCorpusPhasesAppendAndEmpty() throws IOException {
+        GraphPoet gp = new GraphPoet(new ByteArrayInputStream(new byte[0]));
+        List<RecordedEvent> events = record(true, () -> gp.append(new StringReader("x y z")));
+        assertEquals(Arrays.asList("tokenize"), phases(events));
+        assertEquals(3, phase(events, "tokenize").getLong("words"));
+    }
+    
+    @Test public void testPoemEvents() throws IOException {
+        GraphPoet gp = new GraphPoet(MUGAR);
+        List<RecordedEvent> events = record(true, () -> {
+            gp.poem("Test the system.");
+            gp.poem("Test the system.", new StringBuilder());
+            gp.poem("Theater", new StringBuilder());
+        });
+        List<RecordedEvent> poems = poems(events);
+        assertEquals(3, poems.size());
+        for (RecordedEvent poem : poems.subList(0, 2)) {
+            // "of" between test and the, nothing between the and system.
+            assertEquals(3, poem.getInt("inputWords"));
+            assertEquals(1, poem.getInt("bridges"));
+            assertTrue(poem.getLong("bridgeTime") > 0);
+            assertTrue(poem.getLong("bridgeTime") <= poem.getDuration().toNanos());
+        }
+        assertEquals(1, poems.get(2).getInt("inputWords"));
+        assertEquals(0, poems.get(2).getInt("bridges"));
+        assertEquals(0, poems.get(2).getLong("bridgeTime"));
+    }
+    
+    @Test public void testPoemEventAppendableFallback() throws IOException {
+        GraphPoet gp = new GraphPoet(MUGAR);
+        gp.append(new StringReader("the mugar"));
+        List<RecordedEvent> events = record(true, () -> gp.poem("Test the mugar", new StringBuilder()));
+        List<RecordedEvent> poems = poems(events);
+        assertEquals(1, poems.size());
+        assertEquals(3, poems.get(0).getInt("inputWords"));
+        assertEquals(1, poems.get(0).getInt("bridges"));
+    }
+    
+    @Test public void testEventsDisabled() throws IOException {
+        GraphPoet gp = new GraphPoet(MUGAR);
+        List<RecordedEvent> events = record(false, () -> {
+            new GraphPoet(MUGAR);
+            gp.poem("Test the system.");
+            gp.poem("Test the system.", new StringBuilder());
+        });
+        assertEquals(Collections.emptyList(), events);
+        assertEquals("test of the system.", gp.poem("Test the system."));
+    }
+}
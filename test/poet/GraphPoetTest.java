@@ -6,8 +6,31 @@ package poet;
 import static org.junit.Assert.*;
 import java.util.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import graph.CompactionReport;
+import graph.Graph;
+import graph.GraphMetrics;
+import graph.GraphOperation;
+import graph.MappedGraph;
 
 import org.junit.Test;
 
@@ -19,6 +42,37 @@ public class GraphPoetTest {
     // Testing strategy
     //   file content: words duplicate, non duplicate
     //                 lower-case, upper-case
+    //   source: file, stream, gzip stream, channel
+    //   delimiters: single space, repeated spaces, newlines, CRLF, end of input
+    //   bridge index: none, lazy, precomputed; tied bridge weights; weights
+    //                 whose sum overflows int
+    //   bridge cache: none, enabled, disabled again
+    //   snapshot: save then load, with and without bridge index; empty corpus
+    //   append(): Reader, File; to empty corpus, loaded snapshot; empty text;
+    //             with no bridges cached, with bridge index (lazy, precomputed)
+    //             and cache warmed up before appending; several appends
+    //   compact(): top-K, minimum weight; with bridge index and cache; then append;
+    //              after append, with the size before estimated
+    //   minimum weight constructor: 1, > 1; same as compact()
+    //   poem(CharSequence, Appendable): same as poem(String) for single, repeated,
+    //             leading and trailing spaces, mixed case, unknown words, empty
+    //             input, characters whose lower case needs String.toLowerCase,
+    //             supplementary characters, tied bridges; frozen, thawed, loaded
+    //             and compacted graph; allocation once warmed up
+    //   poems(): empty batch, one input, repeated inputs and pairs; batch below,
+    //            above the parallel threshold; plain, indexed, cached, thawed graph
+    //   poemAsync(): default executor, given executor; many at once, concurrently
+    //                with append(); poem throws
+    //   poemPublisher(): no inputs, several; requested one at a time, all at once,
+    //                    exactly as many as the inputs, none;
+    //                    cancelled part way; two subscribers; poem throws;
+    //                    non-positive request; single-thread executor with
+    //                    more inputs than the default buffer size
+    //   bridgePaths(): maxWords 1, > 1; pair with a bridge word, a bridge path,
+    //                  neither; through poem(String), the Appendable path and
+    //                  poems(); with bridge index and cache; then append, compact
+    //   instrumentGraph(): poems unchanged; calls counted by operation; append,
+    //                      compact, save while instrumented; stopped with null
     
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
@@ -77,4 +131,707 @@ public class GraphPoetTest {
         assertEquals(gp.poem("a nEws"), "a good news");
         assertEquals(gp.poem("haVe old"), "have old");
     }
+    
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    // tests read corpus stream
+    @Test public void testReadStreamSameAsFile() throws IOException {
+        GraphPoet fromFile = new GraphPoet(new File("test/poet/duplicate-pairs.txt"));
+        GraphPoet fromStream = new GraphPoet(stream("I have a good news\nno longer good news\ngood old no\n"));
+        assertEquals(fromFile.vertices(), fromStream.vertices());
+        assertEquals(fromFile.poem("Good no"), fromStream.poem("Good no"));
+        assertEquals(fromFile.poem("a nEws"), fromStream.poem("a nEws"));
+    }
+    
+    @Test public void testReadStreamRepeatedDelimiters() throws IOException {
+        GraphPoet gp = new GraphPoet(stream("  Mugar   Omni\r\n\n Theater  "));
+        assertEquals(new HashSet<>(Arrays.asList("mugar", "omni", "theater")), gp.vertices());
+        assertEquals("mugar omni theater", gp.poem("Mugar Theater"));
+    }
+    
+    @Test public void testReadStreamOneWord() throws IOException {
+        GraphPoet gp = new GraphPoet(stream("Hello"));
+        assertEquals(Collections.singleton("hello"), gp.vertices());
+    }
+    
+    @Test public void testReadStreamEmpty() throws IOException {
+        GraphPoet gp = new GraphPoet(stream(""));
+        assertTrue(gp.vertices().isEmpty());
+    }
+    
+    @Test public void testReadGzipStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write("This is a test of the Mugar Omni Theater sound system.".getBytes(StandardCharsets.UTF_8));
+        }
+        GraphPoet gp = new GraphPoet(new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals("test of the system.", gp.poem("Test the system."));
+    }
+    
+    @Test public void testReadChannel() throws IOException {
+        GraphPoet gp = new GraphPoet(Channels.newChannel(stream("Hello HELLO hello goodbye!")));
+        assertEquals(new HashSet<>(Arrays.asList("hello", "goodbye!")), gp.vertices());
+    }
+    
+    // tests bridge index
+    @Test public void testIndexBridgesSamePoems() throws IOException {
+        File f = new File("test/poet/duplicate-pairs.txt");
+        GraphPoet plain = new GraphPoet(f);
+        GraphPoet lazy = new GraphPoet(f);
+        GraphPoet precomputed = new GraphPoet(f);
+        lazy.indexBridges(false);
+        precomputed.indexBridges(true);
+        for (String input : Arrays.asList("Good no", "a nEws", "haVe old", "I a news no good", "unknown words")) {
+            assertEquals(plain.poem(input), lazy.poem(input));
+            assertEquals(plain.poem(input), precomputed.poem(input));
+        }
+    }
+    
+    @Test public void testIndexBridgesTieBreak() throws IOException {
+        GraphPoet plain = new GraphPoet(stream("a z b a y b a x b"));
+        GraphPoet indexed = new GraphPoet(stream("a z b a y b a x b"));
+        indexed.indexBridges(true);
+        assertEquals("a x b", plain.poem("a b"));
+        assertEquals("a x b", indexed.poem("a b"));
+    }
+    
+    // tests bridge cache
+    @Test public void testCacheBridgesSamePoems() throws IOException {
+        File f = new File("test/poet/duplicate-pairs.txt");
+        GraphPoet plain = new GraphPoet(f);
+        GraphPoet cached = new GraphPoet(f);
+        cached.cacheBridges(2);
+        for (String input : Arrays.asList("Good no", "a nEws", "good no", "haVe old", "Good NO")) {
+            assertEquals(plain.poem(input), cached.poem(input));
+        }
+        CacheStats stats = cached.bridgeCacheStats();
+        assertEquals(5, stats.hits() + stats.misses());
+        assertTrue(stats.hits() >= 1);
+        assertTrue(stats.size() <= 2);
+    }
+    
+    @Test public void testCacheBridgesDisabled() throws IOException {
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        assertEquals(0, gp.bridgeCacheStats().misses());
+        gp.cacheBridges(10);
+        gp.poem("Test the system.");
+        assertEquals(2, gp.bridgeCacheStats().misses());
+        gp.cacheBridges(0);
+        assertEquals("test of the system.", gp.poem("Test the system."));
+        assertEquals(0, gp.bridgeCacheStats().misses());
+    }
+    
+    // tests snapshots
+    @Test public void testSaveLoadSamePoems() throws IOException {
+        GraphPoet original = new GraphPoet(new File("test/poet/duplicate-pairs.txt"));
+        Path snapshot = Files.createTempFile("poet", ".snapshot");
+        try {
+            original.save(snapshot);
+            GraphPoet loaded = GraphPoet.load(snapshot);
+            GraphPoet indexed = GraphPoet.load(snapshot);
+            indexed.indexBridges(true);
+            assertEquals(original.vertices(), loaded.vertices());
+            for (String input : Arrays.asList("Good no", "a nEws", "haVe old", "I a news no good", "unknown words")) {
+                assertEquals(original.poem(input), loaded.poem(input));
+                assertEquals(original.poem(input), indexed.poem(input));
+            }
+        }
+        finally {
+            Files.delete(snapshot);
+        }
+    }
+    
+    @Test public void testHeavyBridgeWeightsDoNotOverflow() throws IOException {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "x", Integer.MAX_VALUE - 1);
+        graph.set("x", "b", Integer.MAX_VALUE - 1);
+        graph.set("a", "y", 1);
+        graph.set("y", "b", 1);
+        Path snapshot = Files.createTempFile("poet", ".snapshot");
+        try {
+            MappedGraph.write(graph, snapshot);
+            GraphPoet loaded = GraphPoet.load(snapshot);
+            assertEquals("a x b", loaded.poem("a b"));
+            loaded.indexBridges(false);
+            assertEquals("a x b", loaded.poem("a b"));
+            GraphPoet frozen = GraphPoet.load(snapshot);
+            frozen.compact(Integer.MAX_VALUE, 1);
+            StringBuilder out = new StringBuilder();
+            frozen.poem("a b", out);
+            assertEquals("a x b", out.toString());
+            assertEquals("a x b", frozen.poem("a b"));
+        }
+        finally {
+            Files.delete(snapshot);
+        }
+    }
+    
+    @Test public void testSaveLoadEmpty() throws IOException {
+        Path snapshot = Files.createTempFile("poet", ".snapshot");
+        try {
+            new GraphPoet(stream("")).save(snapshot);
+            GraphPoet loaded = GraphPoet.load(snapshot);
+            assertTrue(loaded.vertices().isEmpty());
+            assertEquals("hello world", loaded.poem("Hello world"));
+        }
+        finally {
+            Files.delete(snapshot);
+        }
+    }
+    
+    // tests append
+    private static final List<String> APPEND_INPUTS = Arrays.asList(
+            "Good no", "a nEws", "haVe old", "I a news no good", "old news", "news good", "unknown words");
+    
+    @Test public void testAppendSameAsWholeCorpus() throws IOException {
+        String first = "I have a good news\nno longer ";
+        String second = "good news\ngood old no\n";
+        GraphPoet whole = new GraphPoet(stream(first + second));
+        GraphPoet appended = new GraphPoet(stream(first));
+        appended.append(new StringReader(second));
+        assertEquals(whole.vertices(), appended.vertices());
+        for (String input : APPEND_INPUTS) {
+            assertEquals(whole.poem(input), appended.poem(input));
+        }
+    }
+    
+    @Test public void testAppendCarriesLastWord() throws IOException {
+        GraphPoet gp = new GraphPoet(stream("a b"));
+        assertEquals("a c", gp.poem("a c"));
+        gp.append(new StringReader("c"));
+        assertEquals("a b c", gp.poem("a c"));
+        gp.append(new StringReader(""));
+        gp.append(new StringReader(" d "));
+        assertEquals("b c d", gp.poem("b d"));
+    }
+    
+    @Test public void testAppendToEmpty() throws IOException {
+        GraphPoet gp = new GraphPoet(stream(""));
+        gp.append(new StringReader("Mugar Omni"));
+        gp.append(new StringReader("Theater"));
+        assertEquals("mugar omni theater", gp.poem("Mugar Theater"));
+    }
+    
+    @Test public void testAppendFile() throws IOException {
+        GraphPoet gp = new GraphPoet(stream("This is a test of the"));
+        gp.append(new File("test/poet/mugar-omni-theater.txt"));
+        assertEquals("test of the system.", gp.poem("Test the system."));
+    }
+    
+    @Test public void testAppendInvalidatesIndexAndCache() throws IOException {
+        String first = "a z b a y b x q";
+        String second = " a x b a x b y q";
+        GraphPoet whole = new GraphPoet(stream(first + second));
+        List<GraphPoet> poets = new ArrayList<>();
+        for (int mode = 0; mode < 4; mode++) {
+            GraphPoet gp = new GraphPoet(stream(first));
+            if (mode == 1) gp.indexBridges(false);
+            if (mode == 2) gp.indexBridges(true);
+            if (mode >= 1) gp.cacheBridges(100);
+            assertEquals("a y b", gp.poem("a b"));
+            if (mode == 3) gp.indexBridges(true);
+            poets.add(gp);
+        }
+        List<String> inputs = Arrays.asList("a b", "b x", "a q", "y q", "x b", "z a");
+        for (GraphPoet gp : poets) {
+            for (String input : inputs) gp.poem(input);
+            gp.append(new StringReader(second));
+            for (String input : inputs) {
+                assertEquals(input, whole.poem(input), gp.poem(input));
+            }
+        }
+        assertEquals("a x b", whole.poem("a b"));
+    }
+    
+    @Test public void testAppendToLoadedSnapshot() throws IOException {
+        Path snapshot = Files.createTempFile("poet", ".snapshot");
+        try {
+            new GraphPoet(stream("a b")).save(snapshot);
+            GraphPoet loaded = GraphPoet.load(snapshot);
+            loaded.append(new StringReader("c d"));
+            // the last word of the saved corpus is not known, so b -> c is not counted
+            assertEquals("a c", loaded.poem("a c"));
+            assertEquals("c d", loaded.poem("c d"));
+            loaded.append(new StringReader("b"));
+            assertEquals("c d b", loaded.poem("c b"));
+        }
+        finally {
+            Files.delete(snapshot);
+        }
+    }
+    
+    // tests compaction
+    @Test public void testCompactMinWeight() throws IOException {
+        GraphPoet gp = new GraphPoet(stream("a z b a y b a y b c q d"));
+        gp.indexBridges(false);
+        gp.cacheBridges(10);
+        assertEquals("a y b", gp.poem("a b"));
+        assertEquals("c q d", gp.poem("c d"));
+        CompactionReport report = gp.compact(Integer.MAX_VALUE, 2);
+        assertEquals(new HashSet<>(Arrays.asList("a", "y", "b")), gp.vertices());
+        assertEquals(5, report.edgesRemoved());
+        assertEquals(3, report.edgesKept());
+        assertEquals(4, report.verticesRemoved());
+        assertTrue(report.bytesReclaimed() > 0);
+        assertEquals("a y b", gp.poem("a b"));
+        assertEquals("c d", gp.poem("c d"));
+    }
+    
+    @Test public void testCompactAfterAppendEstimatesBytes() throws IOException {
+        GraphPoet gp = new GraphPoet(stream("a z b a y b"));
+        assertFalse(gp.compact(Integer.MAX_VALUE, 1).estimatedBefore());
+        gp.append(new StringReader("a y b c q d"));
+        CompactionReport report = gp.compact(Integer.MAX_VALUE, 2);
+        assertTrue(report.estimatedBefore());
+        assertTrue(report.toString().contains("frozen-equivalent estimate"));
+        assertEquals("a y b", gp.poem("a b"));
+    }
+    
+    @Test public void testCompactTopK() throws IOException {
+        GraphPoet gp = new GraphPoet(stream("a x b x b x b x b x b a y b a y b"));
+        assertEquals("a x b", gp.poem("a b"));
+        // a -> x has weight 1 and a -> y weight 2, so only a -> y is kept
+        gp.compact(1, 1);
+        assertEquals("a y b", gp.poem("a b"));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "x", "y")), gp.vertices());
+    }
+    
+    @Test public void testCompactThenAppend() throws IOException {
+        GraphPoet gp = new GraphPoet(stream("a b a b c d"));
+        gp.compact(Integer.MAX_VALUE, 2);
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), gp.vertices());
+        gp.append(new StringReader("e a"));
+        assertEquals("d e a", gp.poem("d a"));
+    }
+    
+    @Test public void testMinWeightConstructorSameAsCompact() throws IOException {
+        File f = new File("test/poet/duplicate-pairs.txt");
+        for (int minWeight : new int[] { 1, 2, 3 }) {
+            GraphPoet compacted = new GraphPoet(f);
+            compacted.compact(Integer.MAX_VALUE, minWeight);
+            GraphPoet pruned = new GraphPoet(f, minWeight);
+            assertEquals(compacted.vertices(), pruned.vertices());
+            for (String input : APPEND_INPUTS) {
+                assertEquals(compacted.poem(input), pruned.poem(input));
+            }
+        }
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testMinWeightConstructorZero() throws IOException {
+        new GraphPoet(new File("test/poet/duplicate-pairs.txt"), 0);
+    }
+    
+    // tests poem into an Appendable
+    private static final List<String> APPENDABLE_INPUTS = Arrays.asList(
+            "Test the system.", "test  the system.", " Test the", "the system.  ", "", "a",
+            "THIS a TEST", "unknown the mugar", "is\u0130 a", "\u03a3\u03a3 \u03c3\u03c2",
+            "\ud801\udc00b \ud801\udc28B", "x y x z", "TheAter sound SYSTEM.");
+    
+    private static void assertSamePoems(GraphPoet gp) throws IOException {
+        for (String input : APPENDABLE_INPUTS) {
+            StringBuilder out = new StringBuilder("> ");
+            gp.poem(input, out);
+            assertEquals(input, "> " + gp.poem(input), out.toString());
+        }
+    }
+    
+    @Test public void testPoemAppendableSameAsPoem() throws IOException {
+        assertSamePoems(new GraphPoet(new File("test/poet/mugar-omni-theater.txt")));
+        assertSamePoems(new GraphPoet(stream("x a z x b z x c z y z y z \u03c3\u03c2 \u03c3\u03c3 \u03c3\u03c2 "
+                + "is\u0069\u0307 x a \ud801\udc28b m \ud801\udc28b \ud801\udc28b m")));
+    }
+    
+    @Test public void testPoemAppendableTiedBridges() throws IOException {
+        GraphPoet gp = new GraphPoet(stream("x c z x b z x a z"));
+        StringBuilder out = new StringBuilder();
+        gp.poem("x z", out);
+        assertEquals("x a z", out.toString());
+    }
+    
+    @Test public void testPoemAppendableAfterAppendAndCompact() throws IOException {
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        assertSamePoems(gp);
+        gp.append(new StringReader("the mugar the mugar x system."));
+        assertSamePoems(gp);
+        gp.compact(Integer.MAX_VALUE, 1);
+        assertSamePoems(gp);
+    }
+    
+    @Test public void testPoemAppendableLoaded() throws IOException {
+        Path snapshot = Files.createTempFile("graphpoet", ".gpsn");
+        try {
+            new GraphPoet(new File("test/poet/mugar-omni-theater.txt")).save(snapshot);
+            assertSamePoems(GraphPoet.load(snapshot));
+        }
+        finally {
+            Files.delete(snapshot);
+        }
+    }
+    
+    @Test public void testPoemAppendableAllocationFree() throws IOException {
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        org.junit.Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        org.junit.Assume.assumeTrue(threads.isThreadAllocatedMemoryEnabled());
+        
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        String input = "This IS test the Mugar theater system. unknown words";
+        StringBuilder out = new StringBuilder(256);
+        for (int i = 0; i < 20000; i++) {
+            out.setLength(0);
+            gp.poem(input, out);
+        }
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 10000; i++) {
+            out.setLength(0);
+            gp.poem(input, out);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertEquals(gp.poem(input), out.toString());
+        // allow for the measurement itself, but not for a single object per poem
+        assertTrue("allocated " + allocated + " bytes", allocated < 10000);
+    }
+    
+    // tests batches of poems
+    private static void assertSameBatch(GraphPoet gp, List<String> inputs) {
+        List<String> expected = new ArrayList<>();
+        for (String input : inputs) expected.add(gp.poem(input));
+        assertEquals(expected, gp.poems(inputs));
+    }
+    
+    @Test public void testPoemsEmptyBatch() throws IOException {
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        assertEquals(Collections.emptyList(), gp.poems(Collections.emptyList()));
+    }
+    
+    @Test public void testPoemsSameAsPoem() throws IOException {
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        assertEquals(Arrays.asList("test of the system."), gp.poems(Arrays.asList("Test the system.")));
+        assertSameBatch(gp, APPENDABLE_INPUTS);
+        gp.indexBridges(false);
+        assertSameBatch(gp, APPENDABLE_INPUTS);
+        gp.append(new StringReader("the mugar the x system."));
+        assertSameBatch(gp, APPENDABLE_INPUTS);
+    }
+    
+    @Test public void testPoemsLooksUpEachPairOnce() throws IOException {
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        gp.cacheBridges(100);
+        List<String> inputs = Arrays.asList("Test the system.", "test THE system.", "the system. test the");
+        assertSameBatch(gp, inputs);
+        // test the, the system., system. test; the poem() calls above then hit the cache
+        assertEquals(3, gp.bridgeCacheStats().misses());
+    }
+    
+    @Test public void testPoemsLargeBatch() throws IOException {
+        StringBuilder corpus = new StringBuilder();
+        Random random = new Random(6005);
+        for (int i = 0; i < 20000; i++) corpus.append("w").append(random.nextInt(300)).append(' ');
+        GraphPoet gp = new GraphPoet(stream(corpus.toString()));
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder input = new StringBuilder("W" + random.nextInt(320));
+            for (int j = 0; j < 5; j++) input.append(" w").append(random.nextInt(320));
+            inputs.add(input.toString());
+        }
+        assertSameBatch(gp, inputs);
+    }
+    
+    // tests asynchronous poems
+    @Test public void testPoemAsync() throws Exception {
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        assertEquals("test of the system.", gp.poemAsync("Test the system.").get());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            assertEquals("test of the system.", gp.poemAsync("Test the system.", executor).get());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test public void testPoemAsyncConcurrentWithAppend() throws Exception {
+        GraphPoet gp = new GraphPoet(stream("a b c"));
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(gp.poemAsync("A c"));
+            if (i == 500) gp.append(new StringReader("a x c a x c"));
+        }
+        for (CompletableFuture<String> future : futures) {
+            String poem = future.get();
+            assertTrue(poem, poem.equals("a b c") || poem.equals("a x c"));
+        }
+        assertEquals("a x c", gp.poemAsync("A c").get());
+    }
+    
+    @Test public void testPoemAsyncThrows() throws Exception {
+        GraphPoet gp = new GraphPoet(stream("a b c"));
+        try {
+            gp.poemAsync(null).get();
+            fail("expected the poem to fail");
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NullPointerException);
+        }
+    }
+    
+    /**
+     * A subscriber that requests a fixed number of poems at a time, at most
+     * a number of times, and cancels after a limit.
+     */
+    private static class Collector implements Flow.Subscriber<String> {
+        final List<String> poems = Collections.synchronizedList(new ArrayList<>());
+        final CompletableFuture<List<String>> done = new CompletableFuture<>();
+        final int batch;
+        final int limit;
+        final int requests;
+        int requested = 0;
+        Flow.Subscription subscription;
+        
+        Collector(int batch, int limit) {
+            this(batch, limit, Integer.MAX_VALUE);
+        }
+        
+        Collector(int batch, int limit, int requests) {
+            this.batch = batch;
+            this.limit = limit;
+            this.requests = requests;
+        }
+        
+        private void request() {
+            if (requested == requests) return;
+            requested++;
+            subscription.request(batch);
+        }
+        
+        @Override public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            request();
+        }
+        
+        @Override public void onNext(String poem) {
+            poems.add(poem);
+            if (poems.size() == limit) {
+                subscription.cancel();
+                done.complete(poems);
+            }
+            else if (poems.size() % batch == 0) {
+                request();
+            }
+        }
+        
+        @Override public void onError(Throwable e) {
+            done.completeExceptionally(e);
+        }
+        
+        @Override public void onComplete() {
+            done.complete(poems);
+        }
+    }
+    
+    @Test public void testPoemPublisher() throws Exception {
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) inputs.add(APPENDABLE_INPUTS.get(i % APPENDABLE_INPUTS.size()));
+        List<String> expected = gp.poems(inputs);
+        Collector one = new Collector(1, Integer.MAX_VALUE);
+        Collector all = new Collector(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        Flow.Publisher<String> publisher = gp.poemPublisher(inputs);
+        publisher.subscribe(one);
+        publisher.subscribe(all);
+        assertEquals(expected, one.done.get());
+        assertEquals(expected, all.done.get());
+        
+        Collector none = new Collector(1, Integer.MAX_VALUE);
+        gp.poemPublisher(Collections.emptyList()).subscribe(none);
+        assertEquals(Collections.emptyList(), none.done.get());
+    }
+    
+    @Test public void testPoemPublisherCompletesWithoutMoreDemand() throws Exception {
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        Collector exact = new Collector(2, Integer.MAX_VALUE, 1);
+        gp.poemPublisher(Arrays.asList("Test the system.", "a b")).subscribe(exact);
+        assertEquals(Arrays.asList("test of the system.", "a b"), exact.done.get(10, TimeUnit.SECONDS));
+        
+        Collector none = new Collector(1, Integer.MAX_VALUE, 0);
+        gp.poemPublisher(Collections.emptyList()).subscribe(none);
+        assertEquals(Collections.emptyList(), none.done.get(10, TimeUnit.SECONDS));
+    }
+    
+    @Test public void testPoemPublisherCancel() throws Exception {
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        AtomicInteger generated = new AtomicInteger();
+        Iterable<String> inputs = () -> new Iterator<String>() {
+            @Override public boolean hasNext() {
+                return true;
+            }
+            @Override public String next() {
+                generated.incrementAndGet();
+                return "Test the system.";
+            }
+        };
+        Collector collector = new Collector(3, 10);
+        gp.poemPublisher(inputs).subscribe(collector);
+        assertEquals(Collections.nCopies(10, "test of the system."), collector.done.get());
+        // the endless stream stops at the cancellation
+        Thread.sleep(100);
+        int after = generated.get();
+        Thread.sleep(100);
+        assertEquals(after, generated.get());
+    }
+    
+    @Test public void testPoemPublisherThrows() throws Exception {
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        Collector collector = new Collector(1, Integer.MAX_VALUE);
+        gp.poemPublisher(Arrays.asList("Test the system.", null)).subscribe(collector);
+        try {
+            collector.done.get();
+            fail("expected the stream to fail");
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NullPointerException);
+        }
+        assertEquals(Collections.singletonList("test of the system."), collector.poems);
+    }
+    
+    @Test public void testPoemPublisherSingleThreadExecutor() throws Exception {
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        List<String> inputs = Collections.nCopies(4 * Flow.defaultBufferSize(), "Test the system.");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Collector one = new Collector(1, Integer.MAX_VALUE);
+            Collector all = new Collector(Integer.MAX_VALUE, Integer.MAX_VALUE);
+            gp.poemPublisher(inputs, executor).subscribe(one);
+            gp.poemPublisher(inputs, executor).subscribe(all);
+            List<String> expected = Collections.nCopies(inputs.size(), "test of the system.");
+            assertEquals(expected, one.done.get(10, TimeUnit.SECONDS));
+            assertEquals(expected, all.done.get(10, TimeUnit.SECONDS));
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test public void testPoemPublisherBadRequest() throws Exception {
+        GraphPoet gp = new GraphPoet(stream("a b c"));
+        Collector collector = new Collector(0, Integer.MAX_VALUE);
+        gp.poemPublisher(Arrays.asList("a c")).subscribe(collector);
+        try {
+            collector.done.get();
+            fail("expected the stream to fail");
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+    
+    // tests paths of several bridge words
+    private static void assertPoems(GraphPoet gp, String input, String expected) throws IOException {
+        assertEquals(expected, gp.poem(input));
+        StringBuilder out = new StringBuilder();
+        gp.poem(input, out);
+        assertEquals(expected, out.toString());
+        assertEquals(Arrays.asList(expected), gp.poems(Arrays.asList(input)));
+    }
+    
+    @Test public void testBridgePaths() throws IOException {
+        GraphPoet gp = new GraphPoet(stream("the quick brown fox jumps over a lazy dog"));
+        assertPoems(gp, "The fox over dog", "the fox jumps over dog");
+        assertPoems(gp, "The jumps", "the jumps");
+        gp.bridgePaths(3, 8);
+        assertPoems(gp, "The fox over dog", "the quick brown fox jumps over a lazy dog");
+        assertPoems(gp, "The jumps", "the quick brown fox jumps");
+        assertPoems(gp, "The over", "the over");
+        assertPoems(gp, "dog The", "dog the");
+        gp.bridgePaths(1, 8);
+        assertPoems(gp, "The jumps", "the jumps");
+    }
+    
+    @Test public void testBridgePathsIndexedAndCached() throws IOException {
+        GraphPoet gp = new GraphPoet(stream("the quick brown fox jumps over a lazy dog"));
+        gp.indexBridges(false);
+        gp.cacheBridges(100);
+        assertPoems(gp, "The jumps", "the jumps");
+        gp.bridgePaths(4, 8);
+        assertPoems(gp, "The jumps", "the quick brown fox jumps");
+        assertPoems(gp, "The over", "the quick brown fox jumps over");
+    }
+    
+    @Test public void testBridgePathsAppendAndCompact() throws IOException {
+        GraphPoet gp = new GraphPoet(stream("the quick brown fox jumps"));
+        gp.cacheBridges(100);
+        gp.bridgePaths(4, 8);
+        assertPoems(gp, "The jumps", "the quick brown fox jumps");
+        assertPoems(gp, "The over", "the over");
+        gp.append(new StringReader("over the lazy dog"));
+        assertPoems(gp, "The over", "the quick brown fox jumps over");
+        gp.append(new StringReader("the slow red fox jumps"));
+        gp.compact(Integer.MAX_VALUE, 1);
+        // tied paths through quick brown and slow red
+        assertPoems(gp, "The over", "the quick brown fox jumps over");
+        gp.append(new StringReader("the slow red fox"));
+        assertPoems(gp, "The over", "the slow red fox jumps over");
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testBridgePathsZeroWords() throws IOException {
+        new GraphPoet(stream("a b c")).bridgePaths(0, 8);
+    }
+    
+    // tests graph instrumentation
+    @Test public void testInstrumentGraphSamePoems() throws IOException {
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        gp.indexBridges(false);
+        gp.instrumentGraph(new GraphMetrics());
+        assertSamePoems(gp);
+        gp.append(new StringReader("the mugar the mugar x system."));
+        assertSamePoems(gp);
+        gp.compact(Integer.MAX_VALUE, 1);
+        assertSamePoems(gp);
+    }
+    
+    @Test public void testInstrumentGraphCountsCalls() throws IOException {
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        GraphMetrics metrics = new GraphMetrics();
+        gp.instrumentGraph(metrics);
+        assertEquals("test of the system.", gp.poem("Test the system."));
+        // one lookup of the targets of the first word and the sources of the second, per pair
+        assertEquals(2, metrics.stats(GraphOperation.TARGETS_VIEW).calls());
+        assertEquals(2, metrics.stats(GraphOperation.SOURCES_VIEW).calls());
+        assertEquals(2, metrics.stats(GraphOperation.TARGETS_VIEW).resultSizes().sum());
+        
+        // the copy made by the first append is not recorded, the new adjacencies are
+        gp.append(new StringReader("the mugar"));
+        assertEquals(0, metrics.stats(GraphOperation.SET).calls());
+        assertEquals(2, metrics.stats(GraphOperation.INCREMENT).calls());
+        
+        gp.compact(Integer.MAX_VALUE, 1);
+        gp.poem("Test the", new StringBuilder());
+        assertEquals(3, metrics.stats(GraphOperation.TARGETS_VIEW).calls());
+        
+        gp.instrumentGraph(null);
+        assertEquals("test of the system.", gp.poem("Test the system."));
+        assertEquals(3, metrics.stats(GraphOperation.TARGETS_VIEW).calls());
+    }
+    
+    @Test public void testInstrumentGraphSave() throws IOException {
+        GraphPoet gp = new GraphPoet(new File("test/poet/mugar-omni-theater.txt"));
+        GraphMetrics metrics = new GraphMetrics();
+        gp.instrumentGraph(metrics);
+        Path snapshot = Files.createTempFile("graphpoet", ".gpsn");
+        try {
+            gp.save(snapshot);
+            assertEquals("test of the system.", GraphPoet.load(snapshot).poem("Test the system."));
+        }
+        finally {
+            Files.delete(snapshot);
+        }
+        for (GraphOperation op : GraphOperation.values()) {
+            assertEquals(op.toString(), 0, metrics.stats(op).calls());
+        }
+    }
 }
@@ -0,0 +1,124 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import graph.Graph;
+
+/**
+ * Tests for HopSearch.
+ */
+public class HopSearchTest {
+    
+    // Testing strategy
+    //   path length: 2, 3, 4 bridge words; longer than maxWords; none
+    //   choice: fewer words beats heavier path; heavier path; tie broken by words;
+    //           path repeating a word
+    //   fanOut: follows all edges, misses a light edge
+    //   words: not in graph
+    //   invalidate(): after adding an edge, after removing a word
+    //   constructor: maxWords 1, fanOut 0
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    /** @return a graph with a chain of edges of weight 1 through words */
+    private static Graph<String> chain(String... words) {
+        Graph<String> graph = Graph.empty();
+        for (int i = 0; i + 1 < words.length; i++) graph.increment(words[i], words[i + 1], 1);
+        return graph;
+    }
+    
+    @Test public void testPathLengths() {
+        Graph<String> graph = chain("a", "b", "c", "d", "e", "f");
+        HopSearch search = new HopSearch(graph, 4, 10);
+        assertEquals("b c", search.path("a", "d"));
+        assertEquals("b c d", search.path("a", "e"));
+        assertEquals("b c d e", search.path("a", "f"));
+        assertEquals("c d e", search.path("b", "f"));
+        assertNull(new HopSearch(graph, 3, 10).path("a", "f"));
+        assertNull(search.path("f", "a"));
+    }
+    
+    @Test public void testNotInGraph() {
+        HopSearch search = new HopSearch(chain("a", "b", "c", "d"), 3, 10);
+        assertNull(search.path("a", "x"));
+        assertNull(search.path("x", "d"));
+    }
+    
+    @Test public void testFewestWordsFirst() {
+        Graph<String> graph = chain("a", "b", "c", "z");
+        graph.set("a", "p", 100);
+        graph.set("p", "q", 100);
+        graph.set("q", "r", 100);
+        graph.set("r", "z", 100);
+        assertEquals("b c", new HopSearch(graph, 4, 10).path("a", "z"));
+    }
+    
+    @Test public void testHeaviestPath() {
+        Graph<String> graph = chain("a", "b", "c", "z");
+        graph.set("a", "x", 1);
+        graph.set("x", "y", 5);
+        graph.set("y", "z", 1);
+        graph.set("a", "p", 2);
+        graph.set("p", "q", 2);
+        graph.set("q", "z", 2);
+        assertEquals("x y", new HopSearch(graph, 2, 10).path("a", "z"));
+    }
+    
+    @Test public void testTieBrokenByWords() {
+        Graph<String> graph = Graph.empty();
+        for (String b : new String[] { "m", "k", "n" }) {
+            for (String c : new String[] { "y", "x" }) {
+                graph.set("a", b, 2);
+                graph.set(b, c, 2);
+                graph.set(c, "z", 2);
+            }
+        }
+        assertEquals("k x", new HopSearch(graph, 3, 10).path("a", "z"));
+    }
+    
+    @Test public void testRepeatedWord() {
+        Graph<String> graph = chain("a", "b", "b", "z");
+        assertEquals("b b", new HopSearch(graph, 2, 10).path("a", "z"));
+    }
+    
+    @Test public void testFanOutMissesLightEdge() {
+        Graph<String> graph = chain("a", "b", "c", "z");
+        graph.set("a", "p", 5);
+        graph.set("a", "q", 5);
+        assertEquals("b c", new HopSearch(graph, 2, 3).path("a", "z"));
+        assertNull(new HopSearch(graph, 2, 2).path("a", "z"));
+    }
+    
+    @Test public void testInvalidate() {
+        Graph<String> graph = chain("a", "b", "c", "z");
+        HopSearch search = new HopSearch(graph, 3, 10);
+        assertNull(search.path("a", "y"));
+        graph.set("c", "y", 1);
+        search.invalidate("c");
+        search.invalidate("y");
+        assertEquals("b c", search.path("a", "y"));
+        graph.remove("b");
+        search.invalidate("a");
+        search.invalidate("b");
+        search.invalidate("c");
+        assertNull(search.path("a", "y"));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testOneWord() {
+        new HopSearch(Graph.empty(), 1, 10);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testZeroFanOut() {
+        new HopSearch(Graph.empty(), 3, 0);
+    }
+}
@@ -0,0 +1,120 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for MappedWordReader.
+ */
+public class MappedWordReaderTest {
+
+    // Testing strategy
+    //   file content: empty, only delimiters, one word, many words, repeated
+    //                 delimiters, upper-case ASCII, non-ASCII letters
+    //   window: larger than the file, smaller than the file, word crosses
+    //           window boundary, word longer than window
+    //   range: whole file, part of the file
+    //   interning: same word in different case, many distinct words
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static List<String> read(String text, long start, long end, int window) throws IOException {
+        Path corpus = Files.createTempFile("corpus", ".txt");
+        try {
+            Files.write(corpus, text.getBytes(StandardCharsets.UTF_8));
+            try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+                MappedWordReader reader = new MappedWordReader(channel, start,
+                        end < 0 ? channel.size() : end, window);
+                List<String> words = new ArrayList<>();
+                for (String word = reader.next(); word != null; word = reader.next()) {
+                    words.add(word);
+                }
+                return words;
+            }
+        }
+        finally {
+            Files.delete(corpus);
+        }
+    }
+
+    /** Read with WordReader, for comparison. */
+    private static List<String> expected(String text) throws IOException {
+        WordReader reader = new WordReader(new StringReader(text));
+        List<String> words = new ArrayList<>();
+        for (String word = reader.next(); word != null; word = reader.next()) {
+            words.add(word);
+        }
+        return words;
+    }
+
+    @Test public void testEmpty() throws IOException {
+        assertEquals(Collections.emptyList(), read("", 0, -1, 16));
+    }
+
+    @Test public void testOnlyDelimiters() throws IOException {
+        assertEquals(Collections.emptyList(), read("  \n\r\n  ", 0, -1, 2));
+    }
+
+    @Test public void testOneWord() throws IOException {
+        assertEquals(Arrays.asList("hello"), read("Hello", 0, -1, 16));
+    }
+
+    @Test public void testSameAsWordReader() throws IOException {
+        String text = "  This is a test\r\nof the  Mugar Omni Theater\n\nsound system.  ";
+        assertEquals(expected(text), read(text, 0, -1, 1 << 20));
+    }
+
+    @Test public void testSmallWindow() throws IOException {
+        String text = "Hello HELLO hello goodbye! Mugar Omni\nTheater";
+        for (int window = 1; window < 20; window++) {
+            assertEquals(expected(text), read(text, 0, -1, window));
+        }
+    }
+
+    @Test public void testWordLongerThanWindow() throws IOException {
+        assertEquals(Arrays.asList("a", "goodbye!", "b"), read("a GOODBYE! b", 0, -1, 3));
+    }
+
+    @Test public void testRange() throws IOException {
+        assertEquals(Arrays.asList("is", "a"), read("This is a test", 4, 9, 16));
+    }
+
+    @Test public void testNonAscii() throws IOException {
+        String text = "CAF\u00c9 caf\u00e9 Caf\u00e9 \u00dcBER";
+        assertEquals(expected(text), read(text, 0, -1, 16));
+    }
+
+    @Test public void testInternsSameInstance() throws IOException {
+        List<String> words = read("Hello HELLO hello hELLo", 0, -1, 16);
+        assertEquals(4, words.size());
+        for (String word : words) {
+            assertSame(words.get(0), word);
+        }
+    }
+
+    @Test public void testManyDistinctWords() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("Word").append(i % 2500).append(' ');
+        }
+        List<String> words = read(text.toString(), 0, -1, 1 << 12);
+        assertEquals(expected(text.toString()), words);
+        assertSame(words.get(0), words.get(2500));
+    }
+}
@@ -0,0 +1,112 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import graph.Graph;
+
+/**
+ * Tests for ParallelCorpusReader.
+ */
+public class ParallelCorpusReaderTest {
+
+    // Testing strategy
+    //   threshold: 1 byte (split at every delimiter), larger than the file
+    //   file content: empty, one word, repeated delimiters at range boundaries,
+    //                 duplicate pairs across ranges, multi-byte characters
+    //   pool parallelism: 1, >1
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    /** Count adjacencies the straightforward way, for comparison. */
+    private static Graph<String> expected(String text) {
+        Graph<String> graph = Graph.empty();
+        String prev = null;
+        for (String word : text.toLowerCase().split("[ \n\r]+")) {
+            if (word.isEmpty()) continue;
+            graph.add(word);
+            if (prev != null) graph.set(prev, word, graph.targets(prev).getOrDefault(word, 0) + 1);
+            prev = word;
+        }
+        return graph;
+    }
+
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        for (String v : expected.vertices()) {
+            assertEquals(expected.targets(v), actual.targets(v));
+        }
+    }
+
+    private static void assertReads(String text, int parallelism, long threshold) throws IOException {
+        Path corpus = Files.createTempFile("corpus", ".txt");
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Files.write(corpus, text.getBytes(StandardCharsets.UTF_8));
+            assertSameGraph(expected(text), ParallelCorpusReader.read(corpus, pool, threshold));
+        }
+        finally {
+            pool.shutdown();
+            Files.delete(corpus);
+        }
+    }
+
+    @Test public void testEmptyFile() throws IOException {
+        assertReads("", 4, 1);
+    }
+
+    @Test public void testOneWord() throws IOException {
+        assertReads("Hello", 4, 1);
+    }
+
+    @Test public void testSplitAtEveryDelimiter() throws IOException {
+        assertReads("I have a good news\nno longer good news\ngood old no\n", 4, 1);
+    }
+
+    @Test public void testRepeatedDelimiters() throws IOException {
+        assertReads("  Hello   HELLO \r\n\n hello goodbye!  ", 4, 1);
+    }
+
+    @Test public void testNoSplit() throws IOException {
+        assertReads("This is a test of the Mugar Omni Theater sound system.", 1, 1 << 20);
+    }
+
+    @Test public void testMultiByteCharacters() throws IOException {
+        assertReads("caf\u00e9 na\u00efve caf\u00e9 \u00fcber na\u00efve caf\u00e9", 3, 2);
+    }
+
+    @Test public void testLargeRandomCorpus() throws IOException {
+        Random random = new Random(6005);
+        String[] vocabulary = { "the", "a", "poem", "Graph", "bridge", "word", "of", "\u00e9t\u00e9" };
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.append(vocabulary[random.nextInt(vocabulary.length)]);
+            text.append(random.nextInt(10) == 0 ? "\n" : " ");
+        }
+        assertReads(text.toString(), 8, 512);
+    }
+
+    @Test public void testGraphPoetParallelSameAsSequential() throws IOException {
+        File f = new File("test/poet/duplicate-pairs.txt");
+        GraphPoet sequential = new GraphPoet(f);
+        GraphPoet parallel = new GraphPoet(f, ForkJoinPool.commonPool());
+        assertEquals(sequential.vertices(), parallel.vertices());
+        assertEquals(sequential.poem("Good no"), parallel.poem("Good no"));
+        assertEquals(sequential.poem("a nEws"), parallel.poem("a nEws"));
+    }
+}